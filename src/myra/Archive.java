@@ -20,7 +20,7 @@
 package myra;
 
 import java.util.Arrays;
-import java.util.Comparator;
+import java.util.Collections;
 
 /**
  * This interface represents a solution archive. The archive holds the solutions
@@ -144,40 +144,41 @@ public interface Archive<E extends Comparable<E>> {
 
 	@Override
 	public boolean add(E e) {
-	    if (size == 0 || (size < solutions.length
-		    && e.compareTo(solutions[size - 1]) <= 0)) {
-		solutions[size] = e;
-		size++;
-	    } else if (e.compareTo(solutions[size - 1]) > 0) {
-		E previous = null;
-		int position = -1;
-
-		// finds the position to insert the new element (insertion sort)
-		for (int i = 0; i < solutions.length; i++) {
-		    if (solutions[i] == null || e.compareTo(solutions[i]) > 0) {
-			previous = solutions[i];
-			position = i + 1;
-			// adds the new solution
-			solutions[i] = e;
-			break;
-		    }
-		}
-		// shift the remaining solutions
-		for (int i = position; i < solutions.length
-			&& previous != null; i++) {
-		    E element = solutions[i];
-		    solutions[i] = previous;
-		    previous = element;
-		}
-
-		if (size < solutions.length) {
-		    size++;
-		}
-	    } else {
+	    if (size == solutions.length
+		    && e.compareTo(solutions[size - 1]) <= 0) {
 		// the solutions will not be added to the archive
 		return false;
 	    }
 
+	    // finds the position to insert the new element (binary search);
+	    // the new element is placed after the solutions of equal quality,
+	    // so the insertion order of equal solutions is preserved
+	    int low = 0;
+	    int high = size;
+
+	    while (low < high) {
+		int middle = (low + high) >>> 1;
+
+		if (e.compareTo(solutions[middle]) > 0) {
+		    high = middle;
+		} else {
+		    low = middle + 1;
+		}
+	    }
+
+	    // shift the remaining solutions, discarding the lowest solution if
+	    // the archive is full
+	    if (size < solutions.length) {
+		size++;
+	    }
+
+	    System.arraycopy(solutions,
+			     low,
+			     solutions,
+			     low + 1,
+			     size - low - 1);
+	    solutions[low] = e;
+
 	    return true;
 	}
 
@@ -209,11 +210,7 @@ public interface Archive<E extends Comparable<E>> {
 
 	@Override
 	public void sort() {
-	    Arrays.sort(solutions, new Comparator<E>() {
-		public int compare(E o1, E o2) {
-		    return -o1.compareTo(o2);
-		};
-	    });
+	    Arrays.sort(solutions, 0, size, Collections.reverseOrder());
 	}
 
 	@Override
@@ -20,13 +20,20 @@
 package myra;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import myra.Config.ConfigKey;
 
 /**
  * The <code>Config</code> holds all configuration parameters for the execution
- * of an algorithm.
+ * of an algorithm. Values can be set and read concurrently; code in hot loops
+ * should resolve the values it needs once (e.g., in <code>final</code> fields
+ * or local variables) rather than querying the configuration repeatedly.
+ * 
+ * <p>
+ * When a {@link RunContext} is bound to the current thread, the
+ * {@link #CONFIG} instance delegates to the configuration of the context.
+ * </p>
  * 
  * @author Fernando Esteban Barril Otero
  */
@@ -39,12 +46,34 @@ public final class Config {
     /**
      * Mapping of <code>ConfigKey</code> object and values.
      */
-    private HashMap<ConfigKey<?>, Object> mapping = new HashMap<>();
+    private ConcurrentHashMap<ConfigKey<?>, Object> mapping =
+	    new ConcurrentHashMap<>();
 
     /**
-     * Private constructor.
+     * Creates a new (empty) <code>Config</code>. Instances other than
+     * {@link #CONFIG} are owned by a {@link RunContext}.
      */
-    private Config() {
+    Config() {
+    }
+
+    /**
+     * Returns the configuration that holds the values: the configuration of
+     * the {@link RunContext} bound to the current thread, if this is the
+     * {@link #CONFIG} instance and a context is bound; otherwise this
+     * configuration.
+     * 
+     * @return the configuration that holds the values.
+     */
+    private Config target() {
+	if (this == CONFIG) {
+	    RunContext context = RunContext.current();
+
+	    if (context != null) {
+		return context.config();
+	    }
+	}
+
+	return this;
     }
 
     /**
@@ -55,10 +84,15 @@ public final class Config {
      * @param key
      *            the <code>ConfigKey</code> object.
      * @param value
-     *            the value to set.
+     *            the value to set; <code>null</code> removes the current
+     *            value.
      */
     public <T> void set(ConfigKey<T> key, T value) {
-	mapping.put(key, value);
+	if (value == null) {
+	    target().mapping.remove(key);
+	} else {
+	    target().mapping.put(key, value);
+	}
     }
 
     /**
@@ -75,7 +109,7 @@ public final class Config {
      */
     @SuppressWarnings("unchecked")
     public <T> T get(ConfigKey<T> key) {
-	T value = (T) mapping.get(key);
+	T value = (T) target().mapping.get(key);
 
 	if (value == null) {
 	    throw new IllegalStateException("ConfigKey " + key
@@ -98,7 +132,7 @@ public final class Config {
      *         has been set; <code>false</code> otherwise.
      */
     public <T> boolean isPresent(ConfigKey<T> key) {
-	return mapping.containsKey(key);
+	return target().mapping.containsKey(key);
     }
 
     /**
@@ -43,6 +43,20 @@ public abstract class IterativeActivity<T extends Comparable<T>>
     public final static ConfigKey<Integer> STAGNATION =
 	    new ConfigKey<Integer>();
 
+    /**
+     * The config key for the time budget (in milliseconds) of the activity.
+     * Once the budget is exhausted, the activity terminates at the end of the
+     * current iteration.
+     */
+    public final static ConfigKey<Long> TIME_BUDGET = new ConfigKey<>();
+
+    /**
+     * The config key for the convergence test. If enabled, subclasses
+     * terminate the creation process when the pheromone values have
+     * converged to the best-so-far solution.
+     */
+    public final static ConfigKey<Boolean> CONVERGENCE = new ConfigKey<>();
+
     /**
      * The iteration number;
      */
@@ -60,21 +74,83 @@ public abstract class IterativeActivity<T extends Comparable<T>>
     protected T globalBest;
 
     /**
-     * Initialises the iteration number to <code>0</code>.
+     * Indicates whether the convergence test is enabled.
+     */
+    protected boolean convergence;
+
+    /**
+     * The deadline (as given by {@link System#nanoTime()}) of the activity.
+     */
+    private long deadline;
+
+    /**
+     * Indicates whether the activity has a deadline.
+     */
+    private boolean limited;
+
+    /**
+     * The maximum number of iterations, resolved when the activity is
+     * created.
+     */
+    private final int maxIterations;
+
+    /**
+     * Default constructor.
+     */
+    public IterativeActivity() {
+	maxIterations = CONFIG.get(MAX_ITERATIONS);
+    }
+
+    /**
+     * Initialises the iteration number to <code>0</code>. If a time budget is
+     * configured and no deadline has been set, the deadline of the activity
+     * is set to the end of the time budget.
      */
     @Override
     public void initialise() {
 	iteration = 0;
 	stagnation = 0;
 	globalBest = null;
+
+	convergence =
+		CONFIG.isPresent(CONVERGENCE) && CONFIG.get(CONVERGENCE);
+
+	if (!limited && CONFIG.isPresent(TIME_BUDGET)) {
+	    long budget = CONFIG.get(TIME_BUDGET) * 1000000;
+	    setDeadline(System.nanoTime() + budget);
+	}
     }
 
     /**
-     * Checks whether the maximum number of iterations has been reached.
+     * Sets the deadline of the activity. The activity always completes at
+     * least one iteration, so that a best-so-far solution is available.
+     * 
+     * @param deadline
+     *            the deadline, as given by {@link System#nanoTime()}.
+     */
+    public void setDeadline(long deadline) {
+	this.deadline = deadline;
+	limited = true;
+    }
+
+    /**
+     * Checks whether the maximum number of iterations has been reached or
+     * the deadline of the activity has passed.
      */
     @Override
     public boolean terminate() {
-	return iteration >= CONFIG.get(MAX_ITERATIONS);
+	return iteration >= maxIterations || expired();
+    }
+
+    /**
+     * Returns <code>true</code> if the deadline of the activity has passed
+     * and at least one iteration has been completed.
+     * 
+     * @return <code>true</code> if the deadline of the activity has passed;
+     *         <code>false</code> otherwise.
+     */
+    protected boolean expired() {
+	return limited && iteration > 0 && (System.nanoTime() - deadline) >= 0;
     }
 
     @Override
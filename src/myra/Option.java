@@ -376,4 +376,65 @@ public class Option<T> {
 	    CONFIG.set(key, Boolean.TRUE);
 	}
     }
+
+    /**
+     * <code>Option</code> for time duration parameters. The value is a number
+     * followed by an optional unit (<code>ms</code>, <code>s</code>,
+     * <code>m</code> or <code>h</code>), e.g., <code>30s</code>; numbers
+     * without a unit are interpreted as seconds. The duration is stored in
+     * milliseconds.
+     */
+    public static class DurationOption extends Option<Long> {
+	/**
+	 * Creates a <code>DurationOption</code>.
+	 * 
+	 * @param key
+	 *            the key of the option.
+	 * @param modifier
+	 *            the modifier of the option.
+	 * @param description
+	 *            the description of the option.
+	 * @param argument
+	 *            the name of the option's argument.
+	 */
+	public DurationOption(ConfigKey<Long> key,
+			      String modifier,
+			      String description,
+			      String argument) {
+	    super(key, modifier, description, true, argument);
+	}
+
+	@Override
+	public void set(String value) {
+	    String number = value.trim().toLowerCase();
+	    double unit = 1000;
+
+	    if (number.endsWith("ms")) {
+		number = number.substring(0, number.length() - 2);
+		unit = 1;
+	    } else if (number.endsWith("s")) {
+		number = number.substring(0, number.length() - 1);
+	    } else if (number.endsWith("m")) {
+		number = number.substring(0, number.length() - 1);
+		unit = 60 * 1000;
+	    } else if (number.endsWith("h")) {
+		number = number.substring(0, number.length() - 1);
+		unit = 60 * 60 * 1000;
+	    }
+
+	    try {
+		double duration = Double.parseDouble(number) * unit;
+
+		if (duration <= 0) {
+		    throw new IllegalArgumentException("Invalid duration: "
+			    + value);
+		}
+
+		CONFIG.set(key, (long) Math.ceil(duration));
+	    } catch (NumberFormatException e) {
+		throw new IllegalArgumentException("Expected a duration value: "
+			+ value, e);
+	    }
+	}
+    }
 }
\ No newline at end of file
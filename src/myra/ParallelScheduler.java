@@ -26,8 +26,6 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
 
-import myra.Archive.SynchronizedArchive;
-
 /**
  * Parallel implementation of a <code>Scheduler</code>. Activites executed by
  * this scheduler need to be thread-safe.
@@ -96,16 +94,20 @@ public class ParallelScheduler<T extends Comparable<T>> extends Scheduler<T> {
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     protected void create() {
-	final CountDownLatch latch =
-		new CountDownLatch(CONFIG.get(COLONY_SIZE));
-	final Archive<T> pool = new SynchronizedArchive<>(archive);
+	final CountDownLatch latch = new CountDownLatch(streams.length);
+	final Object[] created = new Object[streams.length];
+
+	split();
+
+	for (int i = 0; i < streams.length; i++) {
+	    final int ant = i;
 
-	for (int i = 0; i < CONFIG.get(COLONY_SIZE); i++) {
 	    executor.execute(new Runnable() {
 		@Override
 		public void run() {
-		    pool.add(activity.create());
+		    created[ant] = create(ant);
 		    latch.countDown();
 		}
 	    });
@@ -117,6 +119,12 @@ public class ParallelScheduler<T extends Comparable<T>> extends Scheduler<T> {
 	} catch (InterruptedException e) {
 	    throw new RuntimeException(e);
 	}
+
+	// solutions are added in the order of the ants, as in the
+	// sequential scheduler
+	for (Object solution : created) {
+	    archive.add((T) solution);
+	}
     }
 
     @Override
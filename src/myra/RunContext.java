@@ -0,0 +1,140 @@
+/*
+ * RunContext.java
+ * (this file is part of MYRA)
+ * 
+ * Copyright 2008-2015 Fernando Esteban Barril Otero
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package myra;
+
+import java.io.PrintStream;
+import java.util.concurrent.Callable;
+
+/**
+ * The execution context of a run, holding its configuration (including the
+ * random number generator) and its logging destination. While a context is
+ * bound to a thread, {@link Config#CONFIG} and the <code>Logger</code> resolve
+ * to the context's configuration and destination, so independent runs can
+ * execute concurrently in the same JVM. Schedulers propagate the context of
+ * the run to their worker threads.
+ * 
+ * @author Fernando Esteban Barril Otero
+ */
+public final class RunContext {
+    /**
+     * The context bound to each thread.
+     */
+    private static final ThreadLocal<RunContext> CURRENT = new ThreadLocal<>();
+
+    /**
+     * The configuration of the run.
+     */
+    private final Config config = new Config();
+
+    /**
+     * The logging destination of the run.
+     */
+    private final PrintStream log;
+
+    /**
+     * Creates a new <code>RunContext</code>.
+     * 
+     * @param log
+     *            the logging destination of the run.
+     */
+    public RunContext(PrintStream log) {
+	if (log == null) {
+	    throw new IllegalArgumentException("Invalid logging destination: "
+		    + log);
+	}
+
+	this.log = log;
+    }
+
+    /**
+     * Returns the configuration of the run.
+     * 
+     * @return the configuration of the run.
+     */
+    public Config config() {
+	return config;
+    }
+
+    /**
+     * Returns the logging destination of the run.
+     * 
+     * @return the logging destination of the run.
+     */
+    public PrintStream log() {
+	return log;
+    }
+
+    /**
+     * Executes the specified task with this context bound to the current
+     * thread. The previous context of the thread (if any) is restored
+     * afterwards.
+     * 
+     * @param <V>
+     *            the type of the task result.
+     * @param task
+     *            the task to execute.
+     * 
+     * @return the result of the task.
+     * 
+     * @throws Exception
+     *             if the task fails.
+     */
+    public <V> V call(Callable<V> task) throws Exception {
+	RunContext previous = bind(this);
+
+	try {
+	    return task.call();
+	} finally {
+	    bind(previous);
+	}
+    }
+
+    /**
+     * Returns the context bound to the current thread.
+     * 
+     * @return the context bound to the current thread, or <code>null</code>
+     *         if no context is bound.
+     */
+    public static RunContext current() {
+	return CURRENT.get();
+    }
+
+    /**
+     * Binds the specified context to the current thread.
+     * 
+     * @param context
+     *            the context to bind; <code>null</code> unbinds the current
+     *            context.
+     * 
+     * @return the context previously bound to the current thread, or
+     *         <code>null</code> if no context was bound.
+     */
+    public static RunContext bind(RunContext context) {
+	RunContext previous = CURRENT.get();
+
+	if (context == null) {
+	    CURRENT.remove();
+	} else {
+	    CURRENT.set(context);
+	}
+
+	return previous;
+    }
+}
@@ -20,8 +20,12 @@
 package myra;
 
 import static myra.Config.CONFIG;
+
+import java.util.SplittableRandom;
+
 import myra.Archive.DefaultArchive;
 import myra.Config.ConfigKey;
+import myra.util.RandomStreams;
 
 /**
  * This class is responsible to execute an <code>Activity</code>. It provides
@@ -48,6 +52,12 @@ import myra.Config.ConfigKey;
  * All solutions are created sequentially.
  * </p>
  * 
+ * <p>
+ * Each ant creates its solution using its own random stream, split from a
+ * root stream seeded at the start of each run; parallel schedulers therefore
+ * create the same solutions as the sequential scheduler for a given seed.
+ * </p>
+ * 
  * @param <T>
  *            type of the solution created by the <code>Activity</code>.
  * 
@@ -66,6 +76,11 @@ public class Scheduler<T extends Comparable<T>> {
      */
     public final static ConfigKey<Integer> PARALLEL = new ConfigKey<>();
 
+    /**
+     * The config key for the execution mode of parallel schedulers.
+     */
+    public final static ConfigKey<Execution> EXECUTION = new ConfigKey<>();
+
     /**
      * The wrapped activity.
      */
@@ -76,6 +91,22 @@ public class Scheduler<T extends Comparable<T>> {
      */
     protected Archive<T> archive;
 
+    /**
+     * The context of the current run, propagated to the threads creating
+     * the solutions.
+     */
+    private RunContext context;
+
+    /**
+     * The root random stream of the current run.
+     */
+    private SplittableRandom root;
+
+    /**
+     * The random streams of the ants in the current iteration.
+     */
+    protected SplittableRandom[] streams;
+
     /**
      * Creates a new <code>Scheduler</code>.
      */
@@ -167,6 +198,10 @@ public class Scheduler<T extends Comparable<T>> {
     protected void initialise() {
 	activity.initialise();
 	archive.clear();
+
+	context = RunContext.current();
+	root = new SplittableRandom(RandomStreams.current().nextLong());
+	streams = new SplittableRandom[CONFIG.get(COLONY_SIZE)];
     }
 
     /**
@@ -175,8 +210,42 @@ public class Scheduler<T extends Comparable<T>> {
      * ants is controlled by the configuration {@link #COLONY_SIZE}.
      */
     protected void create() {
-	for (int i = 0; i < CONFIG.get(COLONY_SIZE); i++) {
-	    archive.add(activity.create());
+	split();
+
+	for (int i = 0; i < streams.length; i++) {
+	    archive.add(create(i));
+	}
+    }
+
+    /**
+     * Splits the random streams of the ants for the current iteration. This
+     * method must be called by the thread running the scheduler, before the
+     * creation of the solutions.
+     */
+    protected void split() {
+	for (int i = 0; i < streams.length; i++) {
+	    streams[i] = root.split();
+	}
+    }
+
+    /**
+     * Creates the candidate solution of an ant, using the ant's random stream
+     * and the context of the current run.
+     * 
+     * @param ant
+     *            the index of the ant in the colony.
+     * 
+     * @return the candidate solution of the ant.
+     */
+    protected T create(int ant) {
+	RunContext previous = RunContext.bind(context);
+	RandomStreams.set(streams[ant]);
+
+	try {
+	    return activity.create();
+	} finally {
+	    RandomStreams.set(null);
+	    RunContext.bind(previous);
 	}
     }
 
@@ -216,13 +285,23 @@ public class Scheduler<T extends Comparable<T>> {
      * @param <V>
      *            type of the solution created by the <code>Activity</code>.
      * 
-     * @return a <code>ParallelScheduler</code> instance if the
-     *         {@link #PARALLEL} configuration is set; otherwise a (sequential)
+     * @return a parallel scheduler instance, as specified by the
+     *         {@link #EXECUTION} configuration, if the {@link #PARALLEL}
+     *         configuration is set; otherwise a (sequential)
      *         <code>Scheduler</code> instance.
      */
     public static <V extends Comparable<V>> Scheduler<V> newInstance() {
 	if (CONFIG.isPresent(PARALLEL)) {
-	    return new ParallelScheduler<V>();
+	    Execution execution = CONFIG.isPresent(EXECUTION)
+		    ? CONFIG.get(EXECUTION) : Execution.WORK_STEALING;
+
+	    if (execution == Execution.POOL) {
+		return new ParallelScheduler<V>();
+	    } else if (execution == Execution.VIRTUAL) {
+		return new VirtualThreadScheduler<V>();
+	    }
+
+	    return new WorkStealingScheduler<V>();
 	}
 
 	return new Scheduler<V>();
@@ -237,8 +316,9 @@ public class Scheduler<T extends Comparable<T>> {
      * @param capacity
      *            the solution archive capacity.
      * 
-     * @return a <code>ParallelScheduler</code> instance if the
-     *         {@link #PARALLEL} configuration is set; otherwise a (sequential)
+     * @return a parallel scheduler instance, as specified by the
+     *         {@link #EXECUTION} configuration, if the {@link #PARALLEL}
+     *         configuration is set; otherwise a (sequential)
      *         <code>Scheduler</code> instance.
      */
     public static <V extends Comparable<V>> Scheduler<V> newInstance(int capacity) {
@@ -246,4 +326,24 @@ public class Scheduler<T extends Comparable<T>> {
 	scheduler.setCapacity(capacity);
 	return scheduler;
     }
+
+    /**
+     * Enum of the execution modes of parallel schedulers.
+     */
+    public static enum Execution {
+	/**
+	 * Ants are executed by a fixed thread pool created for each run.
+	 */
+	POOL,
+	/**
+	 * Batches of ants are executed by a work-stealing pool created for
+	 * each run.
+	 */
+	WORK_STEALING,
+	/**
+	 * Ants are executed by virtual threads over a carrier pool shared by
+	 * all schedulers.
+	 */
+	VIRTUAL;
+    }
 }
\ No newline at end of file
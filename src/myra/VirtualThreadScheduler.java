@@ -0,0 +1,173 @@
+/*
+ * VirtualThreadScheduler.java
+ * (this file is part of MYRA)
+ * 
+ * Copyright 2008-2015 Fernando Esteban Barril Otero
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package myra;
+
+import static myra.Config.CONFIG;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinPool.ForkJoinWorkerThreadFactory;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Parallel implementation of a <code>Scheduler</code> where each ant is
+ * executed by a virtual thread. Virtual threads are scheduled over a carrier
+ * pool shared by all instances of this scheduler, so many colonies can run
+ * concurrently in the same JVM without creating (and tearing down) a thread
+ * pool each. On runtimes without virtual threads, ants are executed directly
+ * by a shared carrier pool with one thread per available processor.
+ * Activites executed by this scheduler need to be thread-safe.
+ * 
+ * @author Fernando Esteban Barril Otero
+ */
+public class VirtualThreadScheduler<T extends Comparable<T>>
+	extends Scheduler<T> {
+    /**
+     * The executor shared by all schedulers.
+     */
+    private static ExecutorService shared;
+
+    /**
+     * The executor service.
+     */
+    private ExecutorService executor;
+
+    /**
+     * The tasks of the colony, one per ant.
+     */
+    private List<Callable<T>> tasks;
+
+    /**
+     * Creates a new <code>VirtualThreadScheduler</code>.
+     */
+    public VirtualThreadScheduler() {
+	this(null, CONFIG.get(COLONY_SIZE));
+    }
+
+    /**
+     * Creates a new <code>VirtualThreadScheduler</code>.
+     * 
+     * @param capacity
+     *            number of candidate solutions stored at each iteration.
+     */
+    public VirtualThreadScheduler(int capacity) {
+	this(null, capacity);
+    }
+
+    /**
+     * Creates a new <code>VirtualThreadScheduler</code>.
+     * 
+     * @param activity
+     *            the (wrapped) activity.
+     */
+    public VirtualThreadScheduler(Activity<T> activity) {
+	this(activity, CONFIG.get(COLONY_SIZE));
+    }
+
+    /**
+     * Creates a new <code>VirtualThreadScheduler</code>.
+     * 
+     * @param activity
+     *            the (wrapped) activity.
+     * @param capacity
+     *            number of candidate solutions stored at each iteration.
+     */
+    public VirtualThreadScheduler(Activity<T> activity, int capacity) {
+	super(activity, capacity);
+    }
+
+    /**
+     * Returns the executor shared by all schedulers. The executor is created
+     * on first use and is never shut down.
+     * 
+     * @return the executor shared by all schedulers.
+     */
+    static synchronized ExecutorService executor() {
+	if (shared == null) {
+	    try {
+		// virtual threads are only available from Java 21
+		shared = (ExecutorService) Executors.class
+			.getMethod("newVirtualThreadPerTaskExecutor")
+			.invoke(null);
+	    } catch (ReflectiveOperationException e) {
+		// runtime without virtual threads: uses a shared pool
+		shared = new ForkJoinPool(Runtime.getRuntime()
+			.availableProcessors(),
+					  new ForkJoinWorkerThreadFactory() {
+		    private final AtomicInteger id = new AtomicInteger();
+
+		    @Override
+		    public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+			ForkJoinWorkerThread thread =
+				ForkJoinPool.defaultForkJoinWorkerThreadFactory
+					.newThread(pool);
+			thread.setName("VirtualThreadScheduler::carrier"
+				+ id.getAndIncrement());
+			return thread;
+		    }
+		}, null, false);
+	    }
+	}
+
+	return shared;
+    }
+
+    @Override
+    protected void initialise() {
+	super.initialise();
+
+	executor = executor();
+	tasks = new ArrayList<>(streams.length);
+
+	for (int i = 0; i < streams.length; i++) {
+	    final int ant = i;
+
+	    tasks.add(new Callable<T>() {
+		@Override
+		public T call() {
+		    return create(ant);
+		}
+	    });
+	}
+    }
+
+    @Override
+    protected void create() {
+	split();
+
+	try {
+	    // waits for the creation of trails
+	    for (Future<T> future : executor.invokeAll(tasks)) {
+		archive.add(future.get());
+	    }
+	} catch (InterruptedException e) {
+	    throw new RuntimeException(e);
+	} catch (ExecutionException e) {
+	    throw new RuntimeException(e.getCause());
+	}
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * WorkStealingScheduler.java
+ * (this file is part of MYRA)
+ * 
+ * Copyright 2008-2015 Fernando Esteban Barril Otero
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package myra;
+
+import static myra.Config.CONFIG;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinPool.ForkJoinWorkerThreadFactory;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import myra.Archive.DefaultArchive;
+
+/**
+ * Parallel implementation of a <code>Scheduler</code> based on a work-stealing
+ * pool. The colony is split into one batch of ants per worker; each batch
+ * stores its solutions in a local archive, which are merged into the
+ * scheduler's archive once per iteration. Batch tasks are created once and
+ * reused across iterations. Activites executed by this scheduler need to be
+ * thread-safe.
+ * 
+ * @author Fernando Esteban Barril Otero
+ */
+public class WorkStealingScheduler<T extends Comparable<T>>
+	extends Scheduler<T> {
+    /**
+     * The work-stealing pool.
+     */
+    private ForkJoinPool pool;
+
+    /**
+     * The batches of the colony.
+     */
+    private List<Batch> batches;
+
+    /**
+     * Creates a new <code>WorkStealingScheduler</code>.
+     */
+    public WorkStealingScheduler() {
+	this(null, CONFIG.get(COLONY_SIZE));
+    }
+
+    /**
+     * Creates a new <code>WorkStealingScheduler</code>.
+     * 
+     * @param capacity
+     *            number of candidate solutions stored at each iteration.
+     */
+    public WorkStealingScheduler(int capacity) {
+	this(null, capacity);
+    }
+
+    /**
+     * Creates a new <code>WorkStealingScheduler</code>.
+     * 
+     * @param activity
+     *            the (wrapped) activity.
+     */
+    public WorkStealingScheduler(Activity<T> activity) {
+	this(activity, CONFIG.get(COLONY_SIZE));
+    }
+
+    /**
+     * Creates a new <code>WorkStealingScheduler</code>.
+     * 
+     * @param activity
+     *            the (wrapped) activity.
+     * @param capacity
+     *            number of candidate solutions stored at each iteration.
+     */
+    public WorkStealingScheduler(Activity<T> activity, int capacity) {
+	super(activity, capacity);
+    }
+
+    @Override
+    protected void initialise() {
+	super.initialise();
+
+	final int size = CONFIG.get(COLONY_SIZE);
+	final int workers = Math.max(1, Math.min(CONFIG.get(PARALLEL), size));
+	// initialises the work-stealing pool
+	pool = new ForkJoinPool(workers, new ForkJoinWorkerThreadFactory() {
+	    private final AtomicInteger id = new AtomicInteger();
+
+	    @Override
+	    public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+		ForkJoinWorkerThread thread =
+			ForkJoinPool.defaultForkJoinWorkerThreadFactory
+				.newThread(pool);
+		thread.setName("WorkStealingScheduler::worker"
+			+ id.getAndIncrement());
+		return thread;
+	    }
+	}, null, false);
+	// splits the colony into one batch per worker, distributing the
+	// remaining ants over the first batches
+	batches = new ArrayList<>(workers);
+	int start = 0;
+
+	for (int i = 0; i < workers; i++) {
+	    Batch batch = new Batch(start,
+				    (size / workers)
+					    + (i < (size % workers) ? 1 : 0),
+				    archive.capacity());
+	    batches.add(batch);
+	    start += batch.size;
+	}
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void create() {
+	split();
+
+	for (Batch batch : batches) {
+	    batch.reinitialize();
+	}
+
+	pool.invoke(new RecursiveAction() {
+	    private static final long serialVersionUID = 1L;
+
+	    @Override
+	    protected void compute() {
+		ForkJoinTask.invokeAll(batches);
+	    }
+	});
+
+	// merges the local archives in the order of the ants, as in the
+	// sequential scheduler
+	for (Batch batch : batches) {
+	    Comparable<T>[] solutions = batch.local.solutions();
+
+	    for (int i = 0; i < batch.local.size(); i++) {
+		archive.add((T) solutions[i]);
+	    }
+	}
+    }
+
+    @Override
+    public void run() {
+	super.run();
+	// finilizes the worker threads
+	pool.shutdown();
+    }
+
+    /**
+     * Task that creates the solutions of a batch of ants.
+     */
+    private class Batch extends RecursiveAction {
+	/**
+	 * The serial version UID.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The index of the first ant of the batch.
+	 */
+	private final int start;
+
+	/**
+	 * The number of ants in the batch.
+	 */
+	private final int size;
+
+	/**
+	 * The local archive of the batch.
+	 */
+	private final DefaultArchive<T> local;
+
+	/**
+	 * Creates a new <code>Batch</code>.
+	 * 
+	 * @param start
+	 *            the index of the first ant of the batch.
+	 * @param size
+	 *            the number of ants in the batch.
+	 * @param capacity
+	 *            the capacity of the local archive.
+	 */
+	Batch(int start, int size, int capacity) {
+	    this.start = start;
+	    this.size = size;
+	    local = new DefaultArchive<>(capacity);
+	}
+
+	@Override
+	protected void compute() {
+	    local.clear();
+
+	    for (int i = start; i < (start + size); i++) {
+		local.add(create(i));
+	    }
+	}
+    }
+}
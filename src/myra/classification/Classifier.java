@@ -19,12 +19,39 @@
 
 package myra.classification;
 
+import static myra.Config.CONFIG;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import myra.Config.ConfigKey;
 import myra.Cost;
 import myra.Cost.Maximise;
+import myra.Option;
+import myra.Option.IntegerOption;
+import myra.RunContext;
+import myra.datamining.ARFFReader;
 import myra.datamining.Algorithm;
 import myra.datamining.Attribute;
 import myra.datamining.Dataset;
 import myra.datamining.Model;
+import myra.datamining.Partitioner;
+import myra.rule.Rule;
 import myra.util.Logger;
 
 /**
@@ -33,6 +60,573 @@ import myra.util.Logger;
  * @author Fernando Esteban Barril Otero
  */
 public abstract class Classifier extends Algorithm {
+    /**
+     * The config key for the number of cross-validation folds.
+     */
+    public final static ConfigKey<Integer> FOLDS = new ConfigKey<>();
+
+    /**
+     * The config key for the number of seeds of an experiment.
+     */
+    public final static ConfigKey<Integer> SEEDS = new ConfigKey<>();
+
+    /**
+     * The config key for the path of the experiment results file.
+     */
+    public final static ConfigKey<String> RESULTS_FILE = new ConfigKey<>();
+
+    @Override
+    protected Collection<Option<?>> options() {
+	ArrayList<Option<?>> options = new ArrayList<Option<?>>();
+	options.addAll(super.options());
+
+	// stratified cross-validation
+	options.add(new IntegerOption(FOLDS,
+				      "-cv",
+				      "evaluate the algorithm using a"
+					      + " stratified cross-validation"
+					      + " with the specified number"
+					      + " of %s",
+				      "folds"));
+
+	// multi-seed experiment
+	options.add(new IntegerOption(SEEDS,
+				      "-seeds",
+				      "run an experiment with the specified"
+					      + " number of %s in parallel,"
+					      + " starting from the seed",
+				      "seeds"));
+
+	options.add(new Option<String>(RESULTS_FILE,
+				       "-results",
+				       "Path of the %s to save the experiment"
+					       + " results (CSV, or JSON if the"
+					       + " name ends with .json)",
+				       false,
+				       "file"));
+
+	return options;
+    }
+
+    @Override
+    protected void run(Map<String, String> parameters) throws Exception {
+	if (CONFIG.isPresent(FOLDS)) {
+	    crossValidate(parameters);
+	} else if (CONFIG.isPresent(SEEDS)) {
+	    experiment(parameters);
+	} else {
+	    super.run(parameters);
+	}
+    }
+
+    /**
+     * Evaluates the algorithm using a stratified cross-validation of the
+     * input file. The folds are trained and tested concurrently, each one by
+     * its own instance of the algorithm within its own {@link RunContext}; the
+     * accuracy, confusion matrix and running times of the folds are
+     * aggregated in a single report.
+     * 
+     * @param parameters
+     *            the command-line parameters.
+     * 
+     * @throws Exception
+     *             If an error occurs &mdash; e.g., I/O error.
+     */
+    protected void crossValidate(final Map<String, String> parameters)
+	    throws Exception {
+	if (!CONFIG.isPresent(INPUT_FILE)) {
+	    throw new IllegalArgumentException("Missing input file (-f)");
+	}
+
+	final int folds = CONFIG.get(FOLDS);
+
+	if (folds < 2) {
+	    throw new IllegalArgumentException("Invalid number of folds: "
+		    + folds);
+	}
+
+	Dataset dataset = new ARFFReader().read(CONFIG.get(INPUT_FILE));
+	logRuntime(dataset, new LinkedHashMap<String, String>(parameters));
+
+	final Partitioner partitioner = new Partitioner(dataset, folds);
+	partitioner.stratified();
+
+	List<Callable<Fold>> tasks = new ArrayList<>(folds);
+
+	for (int i = 0; i < folds; i++) {
+	    // the seeds are drawn by the calling thread, so that the folds
+	    // are reproducible
+	    final long seed = CONFIG.get(RANDOM_GENERATOR).nextLong();
+	    final int index = i;
+
+	    tasks.add(new Callable<Fold>() {
+		@Override
+		public Fold call() throws Exception {
+		    return fold(partitioner, index, seed, parameters);
+		}
+	    });
+	}
+
+	long start = System.nanoTime();
+	List<Fold> results = invokeAll(tasks);
+
+	report(dataset,
+	       results.toArray(new Fold[folds]),
+	       System.nanoTime() - start);
+    }
+
+    /**
+     * Runs an experiment with several random seeds. The input file is read
+     * and partitioned once (see {@link #partition(Dataset)}), and the
+     * training and test datasets are shared by all runs. The runs execute
+     * concurrently, each one by its own instance of the algorithm within its
+     * own {@link RunContext}, using the consecutive seeds starting from the
+     * random seed. The mean and standard deviation of the accuracy, rule
+     * count, term count and training time are logged and, if a results file
+     * is specified, saved together with the result of each run.
+     * 
+     * @param parameters
+     *            the command-line parameters.
+     * 
+     * @throws Exception
+     *             If an error occurs &mdash; e.g., I/O error.
+     */
+    protected void experiment(final Map<String, String> parameters)
+	    throws Exception {
+	if (!CONFIG.isPresent(INPUT_FILE)) {
+	    throw new IllegalArgumentException("Missing input file (-f)");
+	}
+
+	final int seeds = CONFIG.get(SEEDS);
+
+	if (seeds < 1) {
+	    throw new IllegalArgumentException("Invalid number of seeds: "
+		    + seeds);
+	}
+
+	Dataset[] partitions =
+		partition(new ARFFReader().read(CONFIG.get(INPUT_FILE)));
+	final Dataset training = partitions[0];
+	final Dataset test = partitions[2];
+	logRuntime(training, new LinkedHashMap<String, String>(parameters));
+
+	List<Callable<Run>> tasks = new ArrayList<>(seeds);
+
+	for (int i = 0; i < seeds; i++) {
+	    final long seed = CONFIG.get(RANDOM_SEED) + i;
+
+	    tasks.add(new Callable<Run>() {
+		@Override
+		public Run call() throws Exception {
+		    return run(training, test, seed, parameters);
+		}
+	    });
+	}
+
+	long start = System.nanoTime();
+	List<Run> runs = invokeAll(tasks);
+	long elapsed = System.nanoTime() - start;
+
+	Summary summary = new Summary(runs);
+
+	Logger.log("%n=== Experiment with %d seeds ===%n%n", seeds);
+	Logger.log("%20s %10s %8s %8s %14s%n",
+		   "Seed",
+		   "Accuracy",
+		   "Rules",
+		   "Terms",
+		   "Training (s)");
+
+	for (Run run : runs) {
+	    Logger.log("%20d %10.6f %8d %8d %14.3f%n",
+		       run.seed,
+		       run.accuracy,
+		       run.rules,
+		       run.terms,
+		       run.training / 1e9);
+	}
+
+	Logger.log("%n%-20s %10s %10s%n", "", "Mean", "Stdev");
+	Logger.log("%-20s %10.6f %10.6f%n",
+		   "Accuracy",
+		   summary.mean[0],
+		   summary.stdev[0]);
+	Logger.log("%-20s %10.2f %10.2f%n",
+		   "Rules",
+		   summary.mean[1],
+		   summary.stdev[1]);
+	Logger.log("%-20s %10.2f %10.2f%n",
+		   "Terms",
+		   summary.mean[2],
+		   summary.stdev[2]);
+	Logger.log("%-20s %10.3f %10.3f%n",
+		   "Training (s)",
+		   summary.mean[3],
+		   summary.stdev[3]);
+	Logger.log("%nElapsed time (seconds): %.2f%n", elapsed / 1e9);
+
+	if (CONFIG.isPresent(RESULTS_FILE)) {
+	    File file = new File(CONFIG.get(RESULTS_FILE));
+
+	    try (PrintWriter writer = new PrintWriter(file, "UTF-8")) {
+		if (file.getName().toLowerCase(Locale.ROOT).endsWith(".json")) {
+		    writeJSON(writer, test, runs, summary, elapsed);
+		} else {
+		    writeCSV(writer, runs, summary);
+		}
+	    }
+	}
+    }
+
+    /**
+     * Trains the algorithm on the training dataset and tests it on the test
+     * dataset using the specified random seed. The run is executed by a new
+     * instance of the algorithm within its own {@link RunContext}; log
+     * messages of the run are discarded.
+     * 
+     * @param training
+     *            the training dataset.
+     * @param test
+     *            the test dataset.
+     * @param seed
+     *            the random seed of the run.
+     * @param parameters
+     *            the command-line parameters.
+     * 
+     * @return the results of the run.
+     * 
+     * @throws Exception
+     *             If an error occurs while training the algorithm.
+     */
+    private Run run(final Dataset training,
+		    final Dataset test,
+		    final long seed,
+		    final Map<String, String> parameters) throws Exception {
+	return isolated().call(new Callable<Run>() {
+	    @Override
+	    public Run call() throws Exception {
+		Classifier classifier = replicate(parameters, seed);
+
+		long start = System.nanoTime();
+		Model model = classifier.train(training);
+		long elapsed = System.nanoTime() - start;
+
+		int[][] matrix =
+			Measure.fill(test, (ClassificationModel) model);
+		Rule[] rules = model.getRuleList();
+		int terms = 0;
+
+		for (int i = 0; rules != null && i < rules.length; i++) {
+		    terms += rules[i].size();
+		}
+
+		return new Run(seed,
+			       (test.size() - Measure.errors(matrix))
+				       / (double) test.size(),
+			       rules == null ? 0 : rules.length,
+			       terms,
+			       elapsed);
+	    }
+	});
+    }
+
+    /**
+     * Writes the experiment results in CSV format. Each run is written in a
+     * row, followed by the rows of the mean and standard deviation.
+     * 
+     * @param writer
+     *            the writer to write to.
+     * @param runs
+     *            the results of each run.
+     * @param summary
+     *            the summary of the runs.
+     */
+    private static void writeCSV(PrintWriter writer,
+				 List<Run> runs,
+				 Summary summary) {
+	writer.println("seed,accuracy,rules,terms,training");
+
+	for (Run run : runs) {
+	    writer.println(String.format(Locale.ROOT,
+					 "%d,%f,%d,%d,%f",
+					 run.seed,
+					 run.accuracy,
+					 run.rules,
+					 run.terms,
+					 run.training / 1e9));
+	}
+
+	writer.println(String.format(Locale.ROOT,
+				     "mean,%f,%f,%f,%f",
+				     summary.mean[0],
+				     summary.mean[1],
+				     summary.mean[2],
+				     summary.mean[3]));
+	writer.println(String.format(Locale.ROOT,
+				     "stdev,%f,%f,%f,%f",
+				     summary.stdev[0],
+				     summary.stdev[1],
+				     summary.stdev[2],
+				     summary.stdev[3]));
+    }
+
+    /**
+     * Writes the experiment results in JSON format.
+     * 
+     * @param writer
+     *            the writer to write to.
+     * @param test
+     *            the test dataset.
+     * @param runs
+     *            the results of each run.
+     * @param summary
+     *            the summary of the runs.
+     * @param elapsed
+     *            the elapsed time (in nanoseconds) of the experiment.
+     */
+    private void writeJSON(PrintWriter writer,
+			   Dataset test,
+			   List<Run> runs,
+			   Summary summary,
+			   long elapsed) {
+	writer.println("{");
+	writer.println("  \"algorithm\": \""
+		+ getClass().getName() + "\",");
+	writer.println("  \"relation\": \""
+		+ test.getName().replace("\\", "\\\\").replace("\"", "\\\"")
+		+ "\",");
+	writer.println("  \"runs\": [");
+
+	for (int i = 0; i < runs.size(); i++) {
+	    Run run = runs.get(i);
+	    writer.println(String.format(Locale.ROOT,
+					 "    {\"seed\": %d, \"accuracy\": %f,"
+						 + " \"rules\": %d,"
+						 + " \"terms\": %d,"
+						 + " \"training\": %f}%s",
+					 run.seed,
+					 run.accuracy,
+					 run.rules,
+					 run.terms,
+					 run.training / 1e9,
+					 (i + 1) < runs.size() ? "," : ""));
+	}
+
+	writer.println("  ],");
+	writer.println("  \"summary\": {");
+
+	for (int i = 0; i < Summary.MEASURES.length; i++) {
+	    writer.println(String.format(Locale.ROOT,
+					 "    \"%s\": {\"mean\": %f,"
+						 + " \"stdev\": %f},",
+					 Summary.MEASURES[i],
+					 summary.mean[i],
+					 summary.stdev[i]));
+	}
+
+	writer.println(String.format(Locale.ROOT,
+				     "    \"elapsed\": %f",
+				     elapsed / 1e9));
+	writer.println("  }");
+	writer.println("}");
+    }
+
+    /**
+     * Executes the tasks concurrently, using up to one thread per available
+     * core.
+     * 
+     * @param <V>
+     *            the type of the tasks result.
+     * @param tasks
+     *            the tasks to execute.
+     * 
+     * @return the results of the tasks, in the order of the tasks.
+     * 
+     * @throws Exception
+     *             If a task fails.
+     */
+    private static <V> List<V> invokeAll(List<Callable<V>> tasks)
+	    throws Exception {
+	int threads = Math.min(tasks.size(),
+			       Runtime.getRuntime().availableProcessors());
+	ExecutorService executor =
+		Executors.newFixedThreadPool(threads, new ThreadFactory() {
+		    private int id = 0;
+
+		    @Override
+		    public Thread newThread(Runnable r) {
+			Thread thread =
+				new Thread(r, "Classifier::worker" + (id++));
+			thread.setDaemon(true);
+			return thread;
+		    }
+		});
+
+	List<V> results = new ArrayList<>(tasks.size());
+
+	try {
+	    for (Future<V> future : executor.invokeAll(tasks)) {
+		results.add(future.get());
+	    }
+	} catch (ExecutionException e) {
+	    throw new RuntimeException(e.getCause());
+	} finally {
+	    executor.shutdown();
+	}
+
+	return results;
+    }
+
+    /**
+     * Returns a new context to execute an isolated run of the algorithm. Log
+     * messages of the run are discarded.
+     * 
+     * @return a new context to execute an isolated run of the algorithm.
+     */
+    private static RunContext isolated() {
+	return new RunContext(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    /**
+     * Returns a new instance of the algorithm, configured with the default
+     * values, the command-line parameters and the specified random seed. This
+     * method must be called within the context of the new instance, since it
+     * modifies the current configuration.
+     * 
+     * @param parameters
+     *            the command-line parameters.
+     * @param seed
+     *            the random seed.
+     * 
+     * @return a new instance of the algorithm.
+     * 
+     * @throws Exception
+     *             If the algorithm cannot be instantiated.
+     */
+    private Classifier replicate(Map<String, String> parameters, long seed)
+	    throws Exception {
+	Classifier classifier =
+		getClass().getDeclaredConstructor().newInstance();
+	classifier.defaults();
+	classifier.configure(parameters);
+	CONFIG.set(RANDOM_SEED, seed);
+	CONFIG.set(RANDOM_GENERATOR, new Random(seed));
+
+	return classifier;
+    }
+
+    /**
+     * Trains and tests the algorithm on a cross-validation fold. The fold is
+     * executed by a new instance of the algorithm within its own
+     * {@link RunContext}; log messages of the fold are discarded.
+     * 
+     * @param partitioner
+     *            the partitions of the dataset.
+     * @param index
+     *            the index of the fold.
+     * @param seed
+     *            the random seed of the fold.
+     * @param parameters
+     *            the command-line parameters.
+     * 
+     * @return the results of the fold.
+     * 
+     * @throws Exception
+     *             If an error occurs while training the fold.
+     */
+    private Fold fold(final Partitioner partitioner,
+		      final int index,
+		      final long seed,
+		      final Map<String, String> parameters) throws Exception {
+	return isolated().call(new Callable<Fold>() {
+	    @Override
+	    public Fold call() throws Exception {
+		Classifier classifier = replicate(parameters, seed);
+		Dataset[] split = partitioner.fold(index);
+
+		long start = System.nanoTime();
+		Model model = classifier.train(split[0]);
+		long training = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		int[][] matrix =
+			Measure.fill(split[1], (ClassificationModel) model);
+		long testing = System.nanoTime() - start;
+
+		return new Fold(matrix, split[1].size(), training, testing);
+	    }
+	});
+    }
+
+    /**
+     * Logs the cross-validation report.
+     * 
+     * @param dataset
+     *            the current dataset.
+     * @param folds
+     *            the results of each fold.
+     * @param elapsed
+     *            the elapsed time (in nanoseconds) of the cross-validation.
+     */
+    private void report(Dataset dataset, Fold[] folds, long elapsed) {
+	Logger.log("%n=== Stratified %d-fold cross-validation ===%n%n",
+		   folds.length);
+	Logger.log("%6s %10s %14s %14s%n",
+		   "Fold",
+		   "Accuracy",
+		   "Training (s)",
+		   "Test (s)");
+
+	int[][] matrix = new int[dataset.classLength()][dataset.classLength()];
+	double[] accuracy = new double[folds.length];
+	double mean = 0;
+	long training = 0;
+
+	for (int i = 0; i < folds.length; i++) {
+	    Fold fold = folds[i];
+	    accuracy[i] = (fold.size - Measure.errors(fold.matrix))
+		    / (double) fold.size;
+	    mean += accuracy[i] / folds.length;
+	    training += fold.training;
+
+	    for (int j = 0; j < matrix.length; j++) {
+		for (int k = 0; k < matrix.length; k++) {
+		    matrix[j][k] += fold.matrix[j][k];
+		}
+	    }
+
+	    Logger.log("%6d %10.6f %14.3f %14.3f%n",
+		       i + 1,
+		       accuracy[i],
+		       fold.training / 1e9,
+		       fold.testing / 1e9);
+	}
+
+	double variance = 0;
+
+	for (int i = 0; i < folds.length; i++) {
+	    variance += Math.pow(accuracy[i] - mean, 2) / (folds.length - 1);
+	}
+
+	Logger.log("%nClassification accuracy: %f (%3.2f%%) +/- %f%n",
+		   mean,
+		   mean * 100,
+		   Math.sqrt(variance));
+
+	Logger.log("Correctly classified instances: %d (%3.2f%%)%n",
+		   dataset.size() - Measure.errors(matrix),
+		   ((dataset.size() - Measure.errors(matrix))
+			   / (double) dataset.size()) * 100);
+
+	Logger.log("Incorrectly classified instances: %d (%3.2f%%)%n",
+		   Measure.errors(matrix),
+		   (Measure.errors(matrix) / (double) dataset.size()) * 100);
+
+	Logger.log("Total training time (seconds): %.2f%n", training / 1e9);
+	Logger.log("Elapsed time (seconds): %.2f%n", elapsed / 1e9);
+
+	logConfusionMatrix(dataset, matrix);
+    }
     @Override
     protected void evaluate(Dataset dataset, Model model) {
 	Accuracy measure = new Accuracy();
@@ -108,4 +702,153 @@ public abstract class Classifier extends Algorithm {
 	    Logger.log("  %s%n", attributes[dataset.classIndex()].value(i));
 	}
     }
+
+    /**
+     * Struct-like class to hold the results of a cross-validation fold.
+     */
+    private static final class Fold {
+	/**
+	 * The confusion matrix of the test partition.
+	 */
+	final int[][] matrix;
+
+	/**
+	 * The number of instances of the test partition.
+	 */
+	final int size;
+
+	/**
+	 * The training time (in nanoseconds).
+	 */
+	final long training;
+
+	/**
+	 * The test time (in nanoseconds).
+	 */
+	final long testing;
+
+	/**
+	 * Creates a new <code>Fold</code>.
+	 * 
+	 * @param matrix
+	 *            the confusion matrix of the test partition.
+	 * @param size
+	 *            the number of instances of the test partition.
+	 * @param training
+	 *            the training time (in nanoseconds).
+	 * @param testing
+	 *            the test time (in nanoseconds).
+	 */
+	Fold(int[][] matrix, int size, long training, long testing) {
+	    this.matrix = matrix;
+	    this.size = size;
+	    this.training = training;
+	    this.testing = testing;
+	}
+    }
+
+    /**
+     * Struct-like class to hold the results of a run of an experiment.
+     */
+    private static final class Run {
+	/**
+	 * The random seed of the run.
+	 */
+	final long seed;
+
+	/**
+	 * The accuracy on the test dataset.
+	 */
+	final double accuracy;
+
+	/**
+	 * The number of rules of the model.
+	 */
+	final int rules;
+
+	/**
+	 * The number of terms of the model.
+	 */
+	final int terms;
+
+	/**
+	 * The training time (in nanoseconds).
+	 */
+	final long training;
+
+	/**
+	 * Creates a new <code>Run</code>.
+	 * 
+	 * @param seed
+	 *            the random seed of the run.
+	 * @param accuracy
+	 *            the accuracy on the test dataset.
+	 * @param rules
+	 *            the number of rules of the model.
+	 * @param terms
+	 *            the number of terms of the model.
+	 * @param training
+	 *            the training time (in nanoseconds).
+	 */
+	Run(long seed, double accuracy, int rules, int terms, long training) {
+	    this.seed = seed;
+	    this.accuracy = accuracy;
+	    this.rules = rules;
+	    this.terms = terms;
+	    this.training = training;
+	}
+    }
+
+    /**
+     * The mean and standard deviation of the measures of the runs of an
+     * experiment.
+     */
+    private static final class Summary {
+	/**
+	 * The names of the measures.
+	 */
+	static final String[] MEASURES =
+		{ "accuracy", "rules", "terms", "training" };
+
+	/**
+	 * The mean of each measure.
+	 */
+	final double[] mean = new double[MEASURES.length];
+
+	/**
+	 * The (sample) standard deviation of each measure.
+	 */
+	final double[] stdev = new double[MEASURES.length];
+
+	/**
+	 * Creates a new <code>Summary</code>.
+	 * 
+	 * @param runs
+	 *            the results of each run.
+	 */
+	Summary(List<Run> runs) {
+	    double[][] values = new double[runs.size()][];
+
+	    for (int i = 0; i < values.length; i++) {
+		Run run = runs.get(i);
+		values[i] = new double[] { run.accuracy, run.rules, run.terms,
+			run.training / 1e9 };
+	    }
+
+	    for (int j = 0; j < MEASURES.length; j++) {
+		for (int i = 0; i < values.length; i++) {
+		    mean[j] += values[i][j] / values.length;
+		}
+
+		if (values.length > 1) {
+		    for (int i = 0; i < values.length; i++) {
+			stdev[j] += Math.pow(values[i][j] - mean[j], 2)
+				/ (values.length - 1);
+		    }
+
+		    stdev[j] = Math.sqrt(stdev[j]);
+		}
+	    }
+	}
+    }
 }
\ No newline at end of file
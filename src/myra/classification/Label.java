@@ -67,4 +67,14 @@ public final class Label implements Prediction {
     public String toString(Attribute target) {
 	return target.value(index);
     }
+
+    @Override
+    public boolean equals(Object o) {
+	return (o instanceof Label) && ((Label) o).index == index;
+    }
+
+    @Override
+    public int hashCode() {
+	return index;
+    }
 }
\ No newline at end of file
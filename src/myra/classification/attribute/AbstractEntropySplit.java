@@ -23,6 +23,7 @@ import static myra.datamining.Dataset.RULE_COVERED;
 
 import java.util.Arrays;
 
+import myra.datamining.Column;
 import myra.datamining.Dataset;
 import myra.datamining.IntervalBuilder;
 import myra.datamining.Attribute.Condition;
@@ -66,6 +67,9 @@ public abstract class AbstractEntropySplit extends IntervalBuilder {
 	Pair[] candidates = new Pair[dataset.size()];
 	double[] frequency = new double[dataset.classLength()];
 
+	Column.Continuous values = dataset.continuous(attribute);
+	Column.Nominal target = dataset.nominal(dataset.classIndex());
+
 	int index = 0;
 	double size = 0;
 
@@ -73,12 +77,12 @@ public abstract class AbstractEntropySplit extends IntervalBuilder {
 	    // the dynamc discretisation only considers the instances covered
 	    // by the current rule
 	    if (instances[i].flag == RULE_COVERED) {
-		double v = dataset.value(i, attribute);
+		double v = values.value(i);
 
 		if (!Double.isNaN(v)) {
 		    Pair pair = new Pair();
 		    pair.value = v;
-		    pair.classValue = dataset.value(i, dataset.classIndex());
+		    pair.classValue = target.code(i);
 		    pair.weight = instances[i].weight;
 		    candidates[index] = pair;
 
@@ -23,9 +23,13 @@ import static myra.datamining.Dataset.COVERED;
 import static myra.datamining.Dataset.NOT_COVERED;
 import static myra.datamining.Dataset.RULE_COVERED;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.Arrays;
 
 import myra.classification.Label;
+import myra.datamining.Column;
 import myra.datamining.Dataset;
 import myra.datamining.Prediction;
 import myra.datamining.Dataset.Instance;
@@ -89,22 +93,51 @@ public class ClassificationRule extends Rule {
      * @return the number of covered instances by the rule.
      */
     public int apply(Dataset dataset, Instance[] instances) {
-	int total = 0;
-
 	covered = Arrays.copyOf(covered, dataset.classLength());
 	Arrays.fill(covered, 0);
 
 	uncovered = Arrays.copyOf(uncovered, dataset.classLength());
 	Arrays.fill(uncovered, 0);
 
+	return count(dataset, instances);
+    }
+
+    @Override
+    public int accumulate(Dataset dataset, Instance[] instances) {
+	if (covered.length < dataset.classLength()) {
+	    covered = Arrays.copyOf(covered, dataset.classLength());
+	    uncovered = Arrays.copyOf(uncovered, dataset.classLength());
+	}
+
+	return count(dataset, instances);
+    }
+
+    /**
+     * Adds the class distribution of the covered and uncovered instances to
+     * the rule's class distributions, returning the number of covered
+     * instances. Only instances that have not been previously covered are
+     * considered.
+     * 
+     * @param dataset
+     *            the current dataset.
+     * @param instances
+     *            the covered instances flag.
+     * 
+     * @return the number of covered instances by the rule.
+     */
+    private int count(Dataset dataset, Instance[] instances) {
+	Column.Nominal target = dataset.nominal(dataset.classIndex());
+	boolean[] satisfied = covers(dataset, instances);
+	int total = 0;
+
 	for (int i = 0; i < dataset.size(); i++) {
 	    if (instances[i].flag != COVERED) {
-		if (covers(dataset, i)) {
+		if (satisfied[i]) {
 		    total++;
-		    covered[(int) dataset.value(i, dataset.classIndex())]++;
+		    covered[target.code(i)]++;
 		    instances[i].flag = RULE_COVERED;
 		} else {
-		    uncovered[(int) dataset.value(i, dataset.classIndex())]++;
+		    uncovered[target.code(i)]++;
 		    instances[i].flag = NOT_COVERED;
 		}
 	    }
@@ -164,6 +197,63 @@ public class ClassificationRule extends Rule {
 	consequent = (Label) prediction;
     }
 
+    @Override
+    protected void writeState(DataOutput out) throws IOException {
+	out.writeInt(consequent == null ? -1 : consequent.value());
+	write(out, covered);
+	write(out, uncovered);
+    }
+
+    @Override
+    protected void readState(DataInput in) throws IOException {
+	int value = in.readInt();
+	consequent = (value == -1) ? null : new Label(value);
+	covered = readDistribution(in);
+	uncovered = readDistribution(in);
+    }
+
+    /**
+     * Writes a class distribution, preceded by its length.
+     * 
+     * @param out
+     *            the output to write to.
+     * @param distribution
+     *            the class distribution.
+     * 
+     * @throws IOException
+     *             if an I/O error occurs.
+     */
+    private static void write(DataOutput out, int[] distribution)
+	    throws IOException {
+	out.writeInt(distribution.length);
+
+	for (int count : distribution) {
+	    out.writeInt(count);
+	}
+    }
+
+    /**
+     * Reads a class distribution written by
+     * {@link #write(DataOutput, int[])}.
+     * 
+     * @param in
+     *            the input to read from.
+     * 
+     * @return the class distribution.
+     * 
+     * @throws IOException
+     *             if an I/O error occurs.
+     */
+    private static int[] readDistribution(DataInput in) throws IOException {
+	int[] distribution = new int[in.readInt()];
+
+	for (int i = 0; i < distribution.length; i++) {
+	    distribution[i] = in.readInt();
+	}
+
+	return distribution;
+    }
+
     @Override
     public boolean isDiverse() {
 	return diversity() > 1;
@@ -27,6 +27,7 @@ import static myra.rule.Graph.START_INDEX;
 import java.util.Arrays;
 
 import myra.datamining.Attribute;
+import myra.datamining.Column;
 import myra.datamining.Dataset;
 import myra.datamining.IntervalBuilder;
 import myra.datamining.Attribute.Condition;
@@ -99,16 +100,19 @@ public class EntropyHeuristic implements Heuristic {
 			    new int[attribute.size() * dataset.classLength()];
 		    int[] counter = new int[attribute.size()];
 
+		    Column.Nominal column =
+			    dataset.nominal(attribute.getIndex());
+		    Column.Nominal target =
+			    dataset.nominal(dataset.classIndex());
+		    final int length = dataset.classLength();
+
 		    for (int j = 0; j < dataset.size(); j++) {
 			if (instances[j].flag == RULE_COVERED) {
-			    double v = dataset.value(j, attribute.getIndex());
+			    int v = column.code(j);
 
 			    if (v != Dataset.MISSING_VALUE_INDEX) {
-				terms[(int) ((v * dataset.classLength())
-					+ dataset
-						.value(j,
-						       dataset.classIndex()))]++;
-				counter[(int) v]++;
+				terms[(v * length) + target.code(j)]++;
+				counter[v]++;
 			    }
 			}
 		    }
@@ -19,9 +19,6 @@
 
 package myra.classification.rule;
 
-import static myra.Config.CONFIG;
-import static myra.datamining.Algorithm.RANDOM_GENERATOR;
-
 import java.util.Arrays;
 
 import myra.classification.Label;
@@ -29,6 +26,7 @@ import myra.datamining.Dataset;
 import myra.datamining.Dataset.Instance;
 import myra.rule.Assignator;
 import myra.rule.Rule;
+import myra.util.RandomStreams;
 
 /**
  * An <code>Assignator</code> that assign the majority class observed on the
@@ -91,7 +89,7 @@ public class MajorityAssignator implements Assignator {
 
 		probabilities[last] = 1.0;
 
-		double slot = CONFIG.get(RANDOM_GENERATOR).nextDouble();
+		double slot = RandomStreams.current().nextDouble();
 
 		for (int i = 0; i < probabilities.length; i++) {
 		    if (slot < probabilities[i]) {
@@ -20,7 +20,6 @@
 package myra.classification.rule.function;
 
 import static myra.Config.CONFIG;
-import static myra.datamining.Algorithm.RANDOM_GENERATOR;
 import static myra.rule.pittsburgh.LevelPheromonePolicy.EVAPORATION_FACTOR;
 import static myra.rule.pittsburgh.LevelPheromonePolicy.INITIAL_PHEROMONE;
 import myra.rule.Graph.Entry;
@@ -29,6 +28,7 @@ import myra.rule.Rule;
 import myra.rule.RuleFunction;
 import myra.rule.RuleList;
 import myra.rule.pittsburgh.LevelPheromonePolicy;
+import myra.util.RandomStreams;
 
 /**
  * This class provides a dynamic rule evaluation function selection. The
@@ -103,7 +103,7 @@ public class FunctionSelector {
 	    }
 	}
 
-	double slot = CONFIG.get(RANDOM_GENERATOR).nextDouble();
+	double slot = RandomStreams.current().nextDouble();
 	int selected = -1;
 
 	for (int i = 0; i < roulette.length; i++) {
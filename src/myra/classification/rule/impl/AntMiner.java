@@ -20,10 +20,16 @@
 package myra.classification.rule.impl;
 
 import static myra.Config.CONFIG;
+import static myra.IterativeActivity.CONVERGENCE;
 import static myra.IterativeActivity.MAX_ITERATIONS;
 import static myra.IterativeActivity.STAGNATION;
+import static myra.IterativeActivity.TIME_BUDGET;
 import static myra.Scheduler.COLONY_SIZE;
+import static myra.Scheduler.EXECUTION;
 import static myra.Scheduler.PARALLEL;
+import static myra.datamining.Algorithm.DRIFT;
+import static myra.datamining.Checkpoint.CHECKPOINT_FILE;
+import static myra.datamining.Checkpoint.RESUME_FILE;
 import static myra.datamining.IntervalBuilder.DEFAULT_BUILDER;
 import static myra.datamining.IntervalBuilder.MAXIMUM_LIMIT;
 import static myra.datamining.IntervalBuilder.MINIMUM_CASES;
@@ -32,16 +38,26 @@ import static myra.rule.Heuristic.DEFAULT_HEURISTIC;
 import static myra.rule.Heuristic.DYNAMIC_HEURISTIC;
 import static myra.rule.Pruner.DEFAULT_PRUNER;
 import static myra.rule.RuleFunction.DEFAULT_FUNCTION;
+import static myra.rule.irl.IslandModel.ISLANDS;
+import static myra.rule.irl.IslandModel.MIGRATION_INTERVAL;
 import static myra.rule.irl.PheromonePolicy.DEFAULT_POLICY;
 import static myra.rule.irl.RuleFactory.DEFAULT_FACTORY;
 import static myra.rule.irl.SequentialCovering.UNCOVERED;
+import static myra.rule.irl.WarmStart.DECAY;
+import static myra.rule.irl.WorkerPool.PROCESSES;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 
 import myra.Option;
 import myra.Option.BooleanOption;
+import myra.Option.DoubleOption;
+import myra.Option.DurationOption;
 import myra.Option.IntegerOption;
+import myra.Scheduler.Execution;
 import myra.classification.ClassificationModel;
 import myra.classification.attribute.C45Split;
 import myra.classification.rule.ClassificationRule;
@@ -54,6 +70,7 @@ import myra.classification.rule.function.SensitivitySpecificity;
 import myra.datamining.Dataset;
 import myra.datamining.Model;
 import myra.rule.BacktrackPruner;
+import myra.rule.DriftMonitor;
 import myra.rule.GreedyPruner;
 import myra.rule.Heuristic;
 import myra.rule.Pruner;
@@ -63,6 +80,7 @@ import myra.rule.RuleList;
 import myra.rule.irl.SequentialCovering;
 import myra.rule.irl.VertexPheromonePolicy;
 import myra.rule.irl.VertexRuleFactory;
+import myra.rule.irl.WarmStart;
 
 /**
  * Default executable class file for the <code>Ant-Miner</code> algorithm. The
@@ -102,6 +120,11 @@ import myra.rule.irl.VertexRuleFactory;
  * @author Fernando Esteban Barril Otero
  */
 public class AntMiner extends RuleClassifier {
+    /**
+     * The state carried over between trainings when warm start is enabled.
+     */
+    private WarmStart warmStart;
+
     @Override
     protected void defaults() {
 	super.defaults();
@@ -117,11 +140,14 @@ public class AntMiner extends RuleClassifier {
 	// default configuration values
 
 	CONFIG.set(COLONY_SIZE, 120);
+	CONFIG.set(EXECUTION, Execution.WORK_STEALING);
+	CONFIG.set(MIGRATION_INTERVAL, 10);
 	CONFIG.set(MAX_ITERATIONS, 3000);
 	CONFIG.set(MINIMUM_CASES, 10);
 	CONFIG.set(MAXIMUM_LIMIT, 50);
 	CONFIG.set(UNCOVERED, 10);
 	CONFIG.set(STAGNATION, 10);
+	CONFIG.set(CONVERGENCE, Boolean.FALSE);
 	CONFIG.set(DEFAULT_PRUNER, new GreedyPruner());
 	CONFIG.set(DEFAULT_FUNCTION, new SensitivitySpecificity());
 	CONFIG.set(DEFAULT_HEURISTIC, new EntropyHeuristic());
@@ -131,8 +157,64 @@ public class AntMiner extends RuleClassifier {
     @Override
     public ClassificationModel train(Dataset dataset) {
        // System.out.println("******************train1**********************");
-	SequentialCovering seco = new SequentialCovering();
-	return new ClassificationModel(seco.train(dataset));
+	return new ClassificationModel(newCovering().train(dataset));
+    }
+
+    @Override
+    protected Model trainStep2(Dataset dataset, Model model) {
+	if (CONFIG.get(DRIFT)) {
+	    DriftMonitor monitor = new DriftMonitor(CONFIG.get(MINIMUM_CASES));
+	    return new ClassificationModel(newCovering()
+		    .retrain(dataset, rules(model), monitor));
+	}
+
+	return new ClassificationModel(newCovering().train(dataset,
+							   rules(model)));
+    }
+
+    @Override
+    protected void save(DataOutputStream out, Model model) throws IOException {
+	rules(model).write(out);
+	out.writeBoolean(warmStart != null);
+
+	if (warmStart != null) {
+	    warmStart.write(out);
+	}
+    }
+
+    @Override
+    protected Model restore(DataInputStream in) throws IOException {
+	RuleList list = RuleList.read(in);
+
+	if (in.readBoolean()) {
+	    // the current configuration decides whether the recorded states
+	    // are restored
+	    warmStart = WarmStart.read(in).withDecay(CONFIG.isPresent(DECAY)
+		    ? CONFIG.get(DECAY) : 1.0);
+	}
+
+	return new ClassificationModel(list);
+    }
+
+    /**
+     * Returns a new <code>SequentialCovering</code> instance, sharing the
+     * warm start state between trainings when enabled. When checkpoints are
+     * enabled, the state is always recorded so that it is saved with the
+     * checkpoint; without warm start, a decay of <code>1</code> leaves the
+     * search unchanged.
+     * 
+     * @return a new <code>SequentialCovering</code> instance.
+     */
+    private SequentialCovering newCovering() {
+	if (warmStart == null) {
+	    if (CONFIG.isPresent(DECAY)) {
+		warmStart = new WarmStart(CONFIG.get(DECAY));
+	    } else if (CONFIG.isPresent(CHECKPOINT_FILE)) {
+		warmStart = new WarmStart(1.0);
+	    }
+	}
+
+	return new SequentialCovering(warmStart);
     }
    
       
@@ -191,6 +273,54 @@ System.out.println("***********************incrimental*************************"
 	    }
 	});
 
+	// parallel execution mode
+	Option<Execution> execution =
+		new Option<Execution>(EXECUTION,
+				      "-execution",
+				      "specify the parallel execution %s",
+				      true,
+				      "mode");
+	execution.add("pool", Execution.POOL);
+	execution.add("work-stealing", Execution.WORK_STEALING);
+	execution.add("virtual", Execution.VIRTUAL);
+	options.add(execution);
+
+	// checkpoint and resume of the training state
+	options.add(new Option<String>(CHECKPOINT_FILE,
+				       "-checkpoint",
+				       "Path of the %s to save the training"
+					       + " state after each dataset",
+				       false,
+				       "file"));
+
+	options.add(new Option<String>(RESUME_FILE,
+				       "-resume",
+				       "Path of the checkpoint %s to resume"
+					       + " the training from",
+				       false,
+				       "file"));
+
+	// island model
+	options.add(new IntegerOption(ISLANDS,
+				      "-islands",
+				      "discover each rule using a %s of"
+					      + " colonies in parallel",
+				      "number"));
+
+	// island migration interval
+	options.add(new IntegerOption(MIGRATION_INTERVAL,
+				      "-migration",
+				      "set the number of %s between"
+					      + " migrations of the islands",
+				      "iterations"));
+
+	// worker processes
+	options.add(new IntegerOption(PROCESSES,
+				      "-processes",
+				      "create the ants of each iteration using"
+					      + " a %s of worker processes",
+				      "number"));
+
 	// minimum number of covered examples
 	options.add(new IntegerOption(MINIMUM_CASES,
 				      "m",
@@ -209,6 +339,19 @@ System.out.println("***********************incrimental*************************"
 				      "set the number of %s for convergence test",
 				      "iterations"));
 
+	// time budget
+	options.add(new DurationOption(TIME_BUDGET,
+				       "-time-budget",
+				       "stop the training after the %s (e.g.,"
+					       + " 30s), shared by all rules",
+				       "duration"));
+
+	// pheromone convergence test
+	options.add(new BooleanOption(CONVERGENCE,
+				      "-convergence",
+				      "stop the search for a rule when the"
+					      + " pheromone values converge"));
+
 	// rule pruner
 	Option<Pruner> pruner = new Option<Pruner>(DEFAULT_PRUNER,
 						   "p",
@@ -247,6 +390,14 @@ System.out.println("***********************incrimental*************************"
 						  "enables the dynamic heuristic computation");
 	options.add(dynamic);
 
+	// warm start from the previous training
+	options.add(new DoubleOption(DECAY,
+				     "-warm-start",
+				     "reuse the colony state of the previous"
+					     + " training, decayed by %s"
+					     + " toward uniform [0,1]",
+				     "factor"));
+
 	return options;
     }
 
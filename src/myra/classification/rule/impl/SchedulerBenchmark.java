@@ -0,0 +1,200 @@
+/*
+ * SchedulerBenchmark.java
+ * (this file is part of MYRA)
+ * 
+ * Copyright 2008-2015 Fernando Esteban Barril Otero
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package myra.classification.rule.impl;
+
+import static myra.Config.CONFIG;
+import static myra.IterativeActivity.MAX_ITERATIONS;
+import static myra.IterativeActivity.STAGNATION;
+import static myra.Scheduler.COLONY_SIZE;
+import static myra.Scheduler.EXECUTION;
+import static myra.Scheduler.PARALLEL;
+import static myra.datamining.Dataset.NOT_COVERED;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import myra.Config.ConfigKey;
+import myra.Option;
+import myra.Option.IntegerOption;
+import myra.Scheduler;
+import myra.Scheduler.Execution;
+import myra.datamining.ARFFReader;
+import myra.datamining.Dataset;
+import myra.datamining.Dataset.Instance;
+import myra.rule.Graph;
+import myra.rule.Rule;
+import myra.rule.irl.FindRuleActivity;
+import myra.util.Logger;
+
+/**
+ * Benchmark of the ant construction throughput of the parallel execution
+ * modes. Each colony repeatedly discovers a rule from the whole training set,
+ * running exactly the maximum number of iterations; colonies run
+ * concurrently in the same JVM, each with its own scheduler.
+ * 
+ * @author Fernando Esteban Barril Otero
+ */
+public class SchedulerBenchmark extends cAntMiner {
+    /**
+     * The config key for the number of concurrent colonies.
+     */
+    public final static ConfigKey<Integer> COLONIES = new ConfigKey<>();
+
+    /**
+     * The config key for the number of measured runs of each colony.
+     */
+    public final static ConfigKey<Integer> RUNS = new ConfigKey<>();
+
+    @Override
+    protected void defaults() {
+	super.defaults();
+
+	CONFIG.set(MAX_ITERATIONS, 100);
+	CONFIG.set(PARALLEL, Runtime.getRuntime().availableProcessors());
+	CONFIG.set(COLONIES, 1);
+	CONFIG.set(RUNS, 5);
+    }
+
+    @Override
+    protected Collection<Option<?>> options() {
+	ArrayList<Option<?>> options = new ArrayList<Option<?>>();
+	options.addAll(super.options());
+
+	// number of concurrent colonies
+	options.add(new IntegerOption(COLONIES,
+				      "-colonies",
+				      "specify the %s of concurrent colonies",
+				      "number"));
+
+	// number of measured runs
+	options.add(new IntegerOption(RUNS,
+				      "-runs",
+				      "specify the %s of measured runs",
+				      "number"));
+
+	return options;
+    }
+
+    @Override
+    public void run(String[] args) throws Exception {
+	defaults();
+	processCommandLine(args);
+
+	if (!CONFIG.isPresent(INPUT_FILE)) {
+	    throw new IllegalArgumentException("Missing input file (-f)");
+	}
+
+	Dataset dataset = new ARFFReader().read(CONFIG.get(INPUT_FILE));
+	// colonies never stop before the maximum number of iterations
+	CONFIG.set(STAGNATION, CONFIG.get(MAX_ITERATIONS));
+
+	final int colonies = CONFIG.get(COLONIES);
+	final int runs = CONFIG.get(RUNS);
+	final long ants = (long) colonies * runs * CONFIG.get(MAX_ITERATIONS)
+		* CONFIG.get(COLONY_SIZE);
+
+	Logger.log("Ant construction throughput: %d colonies, %d runs,"
+		+ " %d iterations, colony size %d, %d ants, %d cores%n%n",
+		   colonies,
+		   runs,
+		   CONFIG.get(MAX_ITERATIONS),
+		   CONFIG.get(COLONY_SIZE),
+		   ants,
+		   CONFIG.get(PARALLEL));
+
+	for (Execution execution : Execution.values()) {
+	    CONFIG.set(EXECUTION, execution);
+	    // warm-up
+	    measure(dataset, colonies, 1);
+
+	    double seconds = measure(dataset, colonies, runs) / 1e9;
+
+	    Logger.log("%-15s %10.3f s %12.1f ants/s%n",
+		       execution.name().toLowerCase().replace('_', '-'),
+		       seconds,
+		       ants / seconds);
+	}
+    }
+
+    /**
+     * Runs the specified number of colonies concurrently.
+     * 
+     * @param dataset
+     *            the training set.
+     * @param colonies
+     *            the number of concurrent colonies.
+     * @param runs
+     *            the number of runs of each colony.
+     * 
+     * @return the elapsed time in nanoseconds.
+     * 
+     * @throws Exception
+     *             if a colony fails.
+     */
+    private long measure(final Dataset dataset, int colonies, final int runs)
+	    throws Exception {
+	List<Callable<Void>> tasks = new ArrayList<>(colonies);
+
+	for (int i = 0; i < colonies; i++) {
+	    tasks.add(new Callable<Void>() {
+		@Override
+		public Void call() {
+		    Graph graph = new Graph(dataset);
+		    Instance[] instances = Instance.newArray(dataset.size());
+		    Scheduler<Rule> scheduler = Scheduler.newInstance(1);
+
+		    for (int j = 0; j < runs; j++) {
+			Instance.markAll(instances, NOT_COVERED);
+			scheduler.setActivity(new FindRuleActivity(graph,
+								   instances,
+								   dataset));
+			scheduler.run();
+		    }
+
+		    return null;
+		}
+	    });
+	}
+
+	ExecutorService executor = Executors.newFixedThreadPool(colonies);
+
+	try {
+	    long start = System.nanoTime();
+
+	    for (Future<Void> future : executor.invokeAll(tasks)) {
+		future.get();
+	    }
+
+	    return System.nanoTime() - start;
+	} finally {
+	    executor.shutdown();
+	}
+    }
+
+    public static void main(String[] args) throws Exception {
+	SchedulerBenchmark benchmark = new SchedulerBenchmark();
+	benchmark.run(args);
+    }
+}
@@ -76,6 +76,12 @@ public class FindRuleSetActivity extends IterativeActivity<RuleList> {
      */
     private boolean reset;
 
+    /**
+     * The maximum number of stagnated iterations, resolved when the activity
+     * is created.
+     */
+    private final int stagnationLimit;
+
     /**
      * Creates a new <code>FindRuleListActivity</code> object.
      * 
@@ -87,6 +93,8 @@ public class FindRuleSetActivity extends IterativeActivity<RuleList> {
     public FindRuleSetActivity(Graph graph, Dataset training) {
 	this.graph = graph;
 	this.dataset = training;
+
+	stagnationLimit = CONFIG.get(STAGNATION);
     }
 
     @Override
@@ -178,7 +186,7 @@ public class FindRuleSetActivity extends IterativeActivity<RuleList> {
 
     @Override
     public boolean terminate() {
-	if (stagnation > CONFIG.get(STAGNATION)) {
+	if (stagnation > stagnationLimit) {
 	    if (reset) {
 		policy.initialise(graph);
 		selector = new FunctionSelector();
@@ -20,7 +20,6 @@
 package myra.classification.rule.unordered;
 
 import static myra.Config.CONFIG;
-import static myra.datamining.Algorithm.RANDOM_GENERATOR;
 import static myra.datamining.IntervalBuilder.DEFAULT_BUILDER;
 import static myra.rule.Graph.START_INDEX;
 import static myra.rule.Heuristic.DEFAULT_HEURISTIC;
@@ -36,6 +35,7 @@ import myra.rule.Graph;
 import myra.rule.Graph.Entry;
 import myra.rule.Graph.Vertex;
 import myra.rule.Rule.Term;
+import myra.util.RandomStreams;
 
 /**
  * This class is responsible for creating classification rules.
@@ -70,6 +70,7 @@ public class FixedClassRuleFactory {
 					    final Label target) {
 	// the rule must cover at least MINIMUM_CASES
 	final int minimum = CONFIG.get(IntervalBuilder.MINIMUM_CASES);
+	final boolean dynamic = CONFIG.get(DYNAMIC_HEURISTIC);
 	Term last = null;
 
 	// the rule being created (empty at the start)
@@ -144,7 +145,7 @@ public class FixedClassRuleFactory {
 		}
 
 		// roulette selection
-		double slot = CONFIG.get(RANDOM_GENERATOR).nextDouble();
+		double slot = RandomStreams.current().nextDouble();
 
 		for (int i = 0; i < pheromone.length; i++) {
 		    if (slot < pheromone[i]) {
@@ -209,7 +210,7 @@ public class FixedClassRuleFactory {
 			ruleCovered = currentCovered;
 			last = null;
 
-			if (CONFIG.get(DYNAMIC_HEURISTIC)) {
+			if (dynamic) {
 			    heuristic =
 				    CONFIG.get(DEFAULT_HEURISTIC).compute(graph,
 									  dataset,
@@ -66,6 +66,12 @@ public class FindTreeActivity extends IterativeActivity<Tree> {
      */
     private boolean reset;
 
+    /**
+     * The maximum number of stagnated iterations, resolved when the activity
+     * is created.
+     */
+    private final int stagnationLimit;
+
     /**
      * The (initial) heuristic of the dataset. This value is not modified after
      * the {@link #initialise()} method.
@@ -83,6 +89,8 @@ public class FindTreeActivity extends IterativeActivity<Tree> {
     public FindTreeActivity(Graph graph, Dataset dataset) {
 	this.graph = graph;
 	this.dataset = dataset;
+
+	stagnationLimit = CONFIG.get(STAGNATION);
     }
 
     @Override
@@ -128,7 +136,9 @@ public class FindTreeActivity extends IterativeActivity<Tree> {
 
     @Override
     public boolean terminate() {
-	if (stagnation > CONFIG.get(STAGNATION)) {
+	if (stagnation > stagnationLimit
+		|| (convergence && globalBest != null
+			&& policy.hasConverged(graph, globalBest))) {
 	    if (reset) {
 		policy.initialise(graph);
 		stagnation = 0;
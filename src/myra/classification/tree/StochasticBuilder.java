@@ -20,13 +20,13 @@
 package myra.classification.tree;
 
 import static myra.Config.CONFIG;
-import static myra.datamining.Algorithm.RANDOM_GENERATOR;
 import static myra.classification.tree.Graph.START_INDEX;
 import static myra.classification.tree.Heuristic.DEFAULT_HEURISTIC;
 import myra.Config.ConfigKey;
 import myra.datamining.Attribute;
 import myra.datamining.Dataset;
 import myra.datamining.Dataset.Instance;
+import myra.util.RandomStreams;
 
 /**
  * This class is responsible to probabilistically create a decision tree using
@@ -95,7 +95,7 @@ public class StochasticBuilder extends TreeBuilder {
 	}
 
 	// roulette selection
-	double slot = CONFIG.get(RANDOM_GENERATOR).nextDouble();
+	double slot = RandomStreams.current().nextDouble();
 	int selected = -1;
 
 	for (int i = 0; i < probabilities.length; i++) {
@@ -200,10 +200,11 @@ public class TreeBuilder {
 	    count[i] += missing;
 	}
 
+	final int minimum = CONFIG.get(MINIMUM_CASES);
 	int valid = 0;
 
 	for (int i = 0; i < count.length; i++) {
-	    if (count[i] >= CONFIG.get(MINIMUM_CASES)) {
+	    if (count[i] >= minimum) {
 		valid++;
 	    }
 	}
@@ -227,7 +228,7 @@ public class TreeBuilder {
 										.value()),
 							level + 1,
 							prediction);
-		} else if (count[i] < (CONFIG.get(MINIMUM_CASES) * 2)) {
+		} else if (count[i] < (minimum * 2)) {
 		    // add a leaf node predicting the majority class of
 		    // the covered examples
 
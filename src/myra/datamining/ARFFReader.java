@@ -19,22 +19,54 @@
 
 package myra.datamining;
 
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.file.StandardOpenOption.READ;
+import static myra.Config.CONFIG;
+import static myra.datamining.Snapshot.CACHE_DIRECTORY;
+
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.StringTokenizer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
+import myra.Config.ConfigKey;
 import myra.datamining.Attribute.Type;
 
 /**
  * Reads the dataset information from a ARFF file.
  * 
+ * <p>
+ * Files are read through memory-mapped windows of the file: the header is
+ * decoded line by line, while the data section is parsed directly from the
+ * bytes of the file. Nominal values are resolved by a hash dictionary built
+ * from the attribute declarations, and numeric values are parsed without
+ * creating intermediate strings.
+ * </p>
+ * 
+ * <p>
+ * When the {@link #PARALLEL_READ} configuration is set, the data section is
+ * divided into line-aligned ranges that are parsed concurrently in a fork/join
+ * pool. The instances of each range are then concatenated in the order of the
+ * file.
+ * </p>
+ * 
  * @author Fernando Esteban Barril Otero
  */
 public class ARFFReader {
+    /**
+     * The config key for the number of threads used to read the data section.
+     */
+    public final static ConfigKey<Integer> PARALLEL_READ = new ConfigKey<>();
+
     /**
      * Constant representing an attribute section.
      */
@@ -65,6 +97,70 @@ public class ARFFReader {
      */
     private static final String REAL = "real";
 
+    /**
+     * The (maximum) size of the memory-mapped window of the file.
+     */
+    private static final int WINDOW = 1 << 28;
+
+    /**
+     * The number of bytes of the data section sampled to estimate the number
+     * of instances.
+     */
+    private static final int SAMPLE = 1 << 16;
+
+    /**
+     * The minimum size (in bytes) of a range of the data section parsed
+     * concurrently.
+     */
+    private static final int CHUNK = 1 << 20;
+
+    /**
+     * The number of ranges per thread, so that threads finishing early can
+     * pick up remaining work.
+     */
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    /**
+     * Powers of 10 that are exactly representable as <code>double</code>
+     * values.
+     */
+    private static final double[] POWERS = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5,
+	    1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17,
+	    1e18, 1e19, 1e20, 1e21, 1e22 };
+
+    /**
+     * The charset of the files.
+     */
+    private final Charset charset = Charset.defaultCharset();
+
+    /**
+     * The number of threads used to read the data section.
+     */
+    private final int parallelism;
+
+    /**
+     * Creates a new <code>ARFFReader</code>. The data section is read
+     * concurrently if the {@link #PARALLEL_READ} configuration is set.
+     */
+    public ARFFReader() {
+	this(CONFIG.isPresent(PARALLEL_READ) ? CONFIG.get(PARALLEL_READ) : 1);
+    }
+
+    /**
+     * Creates a new <code>ARFFReader</code>.
+     * 
+     * @param parallelism
+     *            the number of threads used to read the data section.
+     */
+    public ARFFReader(int parallelism) {
+	if (parallelism < 1) {
+	    throw new IllegalArgumentException("Invalid parallelism: "
+		    + parallelism);
+	}
+
+	this.parallelism = parallelism;
+    }
+
     /**
      * Reads the specified file.
      * 
@@ -82,7 +178,18 @@ public class ARFFReader {
     }
 
     /**
-     * Reads the specified file.
+     * Returns the charset used to read the files.
+     * 
+     * @return the charset used to read the files.
+     */
+    Charset charset() {
+	return charset;
+    }
+
+    /**
+     * Reads the specified file. The file can be either an ARFF file or a
+     * {@link Snapshot} file. If the {@link Snapshot#CACHE_DIRECTORY}
+     * configuration is set, ARFF files are read through the snapshot cache.
      * 
      * @param input
      *            the dataset file.
@@ -99,7 +206,45 @@ public class ARFFReader {
 		    + input.getAbsolutePath());
 	}
 
-	return read(new FileReader(input));
+	if (Snapshot.isSnapshot(input)) {
+	    return Snapshot.read(input);
+	} else if (CONFIG.isPresent(CACHE_DIRECTORY)) {
+	    return Snapshot
+		    .cached(input, new File(CONFIG.get(CACHE_DIRECTORY)), this);
+	}
+
+	return parse(input);
+    }
+
+    /**
+     * Parses the specified ARFF file.
+     * 
+     * @param input
+     *            the dataset file.
+     * 
+     * @return a <code>Dataset</code> instance contaning the contents of the
+     *         file
+     * 
+     * @exception IOException
+     *                if an I/O error occurs.
+     */
+    Dataset parse(File input) throws IOException {
+	try (FileChannel channel = FileChannel.open(input.toPath(), READ)) {
+	    Dataset header = new Dataset();
+	    long start = readHeader(channel, header);
+	    long end = channel.size();
+	    long[] ranges = ranges(channel, start, end);
+
+	    if (ranges.length > 2) {
+		return parse(channel, ranges, header);
+	    }
+
+	    Dataset.Builder builder =
+		    new Dataset.Builder(header, estimate(channel, start, end));
+	    parse(channel, start, end, header, builder);
+
+	    return builder.build();
+	}
     }
 
     /**
@@ -153,6 +298,605 @@ public class ARFFReader {
 	return dataset;
     }
 
+    /**
+     * Reads the header of the file (relation and attributes) into the
+     * specified dataset.
+     * 
+     * @param channel
+     *            the file channel.
+     * @param dataset
+     *            the dataset being read.
+     * 
+     * @return the position of the first byte of the data section.
+     * 
+     * @exception IOException
+     *                if an I/O error occurs.
+     */
+    private long readHeader(FileChannel channel, Dataset dataset)
+	    throws IOException {
+	long position = 0;
+	long size = channel.size();
+
+	while (position < size) {
+	    int length = (int) Math.min(WINDOW, size - position);
+	    ByteBuffer buffer = channel.map(READ_ONLY, position, length);
+	    boolean last = (position + length) == size;
+	    int offset = 0;
+
+	    while (offset < length) {
+		int end = find(buffer, offset, length, (byte) '\n');
+
+		if (end == -1) {
+		    if (!last) {
+			break;
+		    }
+
+		    end = length;
+		}
+
+		String line = decode(buffer, offset, end);
+		String[] split = split(line);
+		offset = end + 1;
+
+		if (split.length > 0 && !isComment(split[0])) {
+		    split[0] = split[0].toLowerCase();
+
+		    // are we dealing with an attribute?
+		    if (split[0].startsWith(ATTRIBUTE)) {
+			if (split.length != 3) {
+			    throw new IllegalArgumentException("Invalid attribute specification: "
+				    + line);
+			}
+
+			processAttribute(dataset, split);
+		    } else if (split[0].startsWith(DATA)) {
+			return Math.min(position + offset, size);
+		    } else if (split[0].startsWith(RELATION)
+			    && split.length == 2) {
+			dataset.setName(split[1]);
+		    }
+		}
+	    }
+
+	    if (offset == 0) {
+		throw new IllegalArgumentException("Line too long at position: "
+			+ position);
+	    }
+
+	    position += Math.min(offset, length);
+	}
+
+	return size;
+    }
+
+    /**
+     * Divides the data section into line-aligned ranges to be parsed
+     * concurrently. The number of ranges depends on the parallelism of the
+     * reader and the size of the data section; a reader with a parallelism
+     * of 1 always uses a single range.
+     * 
+     * @param channel
+     *            the file channel.
+     * @param start
+     *            the position of the first byte of the data section.
+     * @param end
+     *            the position after the last byte of the data section.
+     * 
+     * @return the boundaries of the ranges, where range <code>i</code> starts
+     *         at position <code>ranges[i]</code> and ends at position
+     *         <code>ranges[i + 1]</code>.
+     * 
+     * @exception IOException
+     *                if an I/O error occurs.
+     */
+    private long[] ranges(FileChannel channel, long start, long end)
+	    throws IOException {
+	if (parallelism <= 1) {
+	    // a sequential reader parses the data section as a single range
+	    return new long[] { start, end };
+	}
+
+	long chunks = Math.min((end - start) / CHUNK,
+			       (long) parallelism * CHUNKS_PER_THREAD);
+
+	if (chunks < 2) {
+	    return new long[] { start, end };
+	}
+
+	long length = (end - start) / chunks;
+	long[] ranges = new long[(int) chunks + 1];
+	int count = 0;
+	ranges[count++] = start;
+
+	ByteBuffer buffer = ByteBuffer.allocate(8192);
+
+	for (int i = 1; i < chunks; i++) {
+	    long position = Math.max(start + (i * length), ranges[count - 1]);
+	    long boundary = end;
+	    // moves the boundary to the start of the next line
+	    search: while (position < end) {
+		buffer.clear();
+		int read = channel.read(buffer, position);
+
+		if (read <= 0) {
+		    break;
+		}
+
+		for (int j = 0; j < read; j++) {
+		    if (buffer.get(j) == '\n') {
+			boundary = position + j + 1;
+			break search;
+		    }
+		}
+
+		position += read;
+	    }
+
+	    if (boundary > ranges[count - 1] && boundary < end) {
+		ranges[count++] = boundary;
+	    }
+	}
+
+	ranges[count++] = end;
+
+	return Arrays.copyOf(ranges, count);
+    }
+
+    /**
+     * Parses the ranges of the data section concurrently, concatenating the
+     * instances of each range in order.
+     * 
+     * @param channel
+     *            the file channel.
+     * @param ranges
+     *            the boundaries of the ranges.
+     * @param header
+     *            the dataset holding the attributes' information.
+     * 
+     * @return a <code>Dataset</code> instance containing the instances of the
+     *         data section.
+     * 
+     * @exception IOException
+     *                if an I/O error occurs.
+     */
+    private Dataset parse(FileChannel channel, long[] ranges, Dataset header)
+	    throws IOException {
+	ForkJoinPool pool = new ForkJoinPool(parallelism);
+
+	try {
+	    ArrayList<Segment> segments = new ArrayList<>(ranges.length - 1);
+
+	    for (int i = 0; i < ranges.length - 1; i++) {
+		Segment segment =
+			new Segment(channel, ranges[i], ranges[i + 1], header);
+		pool.execute(segment);
+		segments.add(segment);
+	    }
+
+	    int size = 0;
+
+	    for (Segment segment : segments) {
+		size += segment.join().size();
+	    }
+
+	    Dataset.Builder builder = new Dataset.Builder(header, size);
+
+	    for (Segment segment : segments) {
+		builder.addAll(segment.join());
+	    }
+
+	    return builder.build();
+	} catch (UncheckedIOException e) {
+	    throw e.getCause();
+	} finally {
+	    pool.shutdownNow();
+	}
+    }
+
+    /**
+     * Returns an estimate of the number of instances in the data section,
+     * based on the average length of the lines at its start.
+     * 
+     * @param channel
+     *            the file channel.
+     * @param start
+     *            the position of the first byte of the data section.
+     * @param end
+     *            the position after the last byte of the data section.
+     * 
+     * @return an estimate of the number of instances in the data section.
+     * 
+     * @exception IOException
+     *                if an I/O error occurs.
+     */
+    private int estimate(FileChannel channel, long start, long end)
+	    throws IOException {
+	int length = (int) Math.min(SAMPLE, end - start);
+
+	if (length == 0) {
+	    return Column.DEFAULT_CAPACITY;
+	}
+
+	ByteBuffer buffer = channel.map(READ_ONLY, start, length);
+	int lines = 1;
+
+	for (int i = 0; i < length; i++) {
+	    if (buffer.get(i) == '\n') {
+		lines++;
+	    }
+	}
+
+	long estimate = (long) (((end - start) / (double) length) * lines);
+	return (int) Math.min(estimate, Integer.MAX_VALUE - 8);
+    }
+
+    /**
+     * Parses the instances in the specified range of the data section. The
+     * range must start at the beginning of a line.
+     * 
+     * @param channel
+     *            the file channel.
+     * @param start
+     *            the position of the first byte to parse.
+     * @param end
+     *            the position after the last byte to parse.
+     * @param header
+     *            the dataset holding the attributes' information.
+     * @param builder
+     *            the builder receiving the parsed instances.
+     * 
+     * @exception IOException
+     *                if an I/O error occurs.
+     */
+    private void parse(FileChannel channel,
+		       long start,
+		       long end,
+		       Dataset header,
+		       Dataset.Builder builder) throws IOException {
+	Attribute[] attributes = header.attributes();
+	Dictionary[] dictionaries = new Dictionary[attributes.length];
+
+	for (int i = 0; i < attributes.length; i++) {
+	    if (attributes[i].getType() == Type.NOMINAL) {
+		dictionaries[i] = new Dictionary(attributes[i], charset);
+	    }
+	}
+
+	double[] values = new double[attributes.length];
+	long position = start;
+
+	while (position < end) {
+	    int length = (int) Math.min(WINDOW, end - position);
+	    ByteBuffer buffer = channel.map(READ_ONLY, position, length);
+	    boolean last = (position + length) == end;
+	    int offset = 0;
+
+	    while (offset < length) {
+		int eol = find(buffer, offset, length, (byte) '\n');
+
+		if (eol == -1) {
+		    if (!last) {
+			// the line continues in the next window
+			break;
+		    }
+
+		    eol = length;
+		}
+
+		if (processInstance(buffer,
+				    offset,
+				    eol,
+				    attributes,
+				    dictionaries,
+				    values)) {
+		    builder.add(values);
+		}
+
+		offset = eol + 1;
+	    }
+
+	    if (offset == 0) {
+		throw new IllegalArgumentException("Line too long at position: "
+			+ position);
+	    }
+
+	    position += Math.min(offset, length);
+	}
+    }
+
+    /**
+     * Parses the instance represented by the bytes in the specified range of
+     * the buffer. Blank and comment lines are ignored.
+     * 
+     * @param buffer
+     *            the buffer holding the bytes of the line.
+     * @param start
+     *            the index of the first byte of the line.
+     * @param end
+     *            the index after the last byte of the line.
+     * @param attributes
+     *            the attributes of the dataset.
+     * @param dictionaries
+     *            the dictionaries of the nominal attributes.
+     * @param values
+     *            the array to store the values of the instance.
+     * 
+     * @return <code>true</code> if the line represents an instance;
+     *         <code>false</code> otherwise.
+     */
+    private boolean processInstance(ByteBuffer buffer,
+				    int start,
+				    int end,
+				    Attribute[] attributes,
+				    Dictionary[] dictionaries,
+				    double[] values) {
+	while (start < end && isWhitespace(buffer.get(start))) {
+	    start++;
+	}
+
+	if (start == end || buffer.get(start) == '%'
+		|| buffer.get(start) == '#') {
+	    // blank line or comment
+	    return false;
+	}
+
+	int index = 0;
+	int from = start;
+
+	while (from < end) {
+	    int to = find(buffer, from, end, (byte) ',');
+
+	    if (to == -1) {
+		to = end;
+	    }
+
+	    // empty tokens are ignored (same as StringTokenizer)
+	    if (to > from) {
+		if (index == attributes.length) {
+		    throw new IllegalArgumentException("Invalid instance length: "
+			    + (index + 1) + " (expected " + attributes.length
+			    + ")");
+		}
+
+		values[index] = value(buffer,
+				      from,
+				      to,
+				      attributes[index],
+				      dictionaries[index]);
+		index++;
+	    }
+
+	    from = to + 1;
+	}
+
+	if (index != attributes.length) {
+	    throw new IllegalArgumentException("Invalid instance length: "
+		    + index + " (expected " + attributes.length + ")");
+	}
+
+	return true;
+    }
+
+    /**
+     * Returns the value represented by the bytes in the specified range of the
+     * buffer.
+     * 
+     * @param buffer
+     *            the buffer holding the bytes of the value.
+     * @param start
+     *            the index of the first byte of the value.
+     * @param end
+     *            the index after the last byte of the value.
+     * @param attribute
+     *            the attribute of the value.
+     * @param dictionary
+     *            the dictionary of the attribute (only used for nominal
+     *            attributes).
+     * 
+     * @return the value represented by the bytes in the specified range.
+     */
+    private double value(ByteBuffer buffer,
+			 int start,
+			 int end,
+			 Attribute attribute,
+			 Dictionary dictionary) {
+	while (start < end && isWhitespace(buffer.get(start))) {
+	    start++;
+	}
+
+	while (end > start && isWhitespace(buffer.get(end - 1))) {
+	    end--;
+	}
+
+	if (end - start == 1 && buffer.get(start) == '?') {
+	    return attribute.getType() == Type.NOMINAL
+		    ? Dataset.MISSING_VALUE_INDEX : Double.NaN;
+	}
+
+	if (attribute.getType() == Type.CONTINUOUS) {
+	    return parseDouble(buffer, start, end);
+	}
+
+	int index = dictionary.lookup(buffer, start, end);
+
+	if (index == Dataset.MISSING_VALUE_INDEX) {
+	    // escaped quotes need the same treatment as the header values
+	    String value = trim(decode(buffer, start, end));
+	    index = attribute.find(value);
+
+	    if (index == Dataset.MISSING_VALUE_INDEX) {
+		throw new IllegalArgumentException(String.format("Value for attribute %s not found: %s",
+								 attribute.getName(),
+								 value));
+	    }
+	}
+
+	return index;
+    }
+
+    /**
+     * Parses the decimal number represented by the bytes in the specified
+     * range of the buffer. Numbers that cannot be converted exactly using
+     * <code>long</code> and <code>double</code> arithmetic are delegated to
+     * {@link Double#parseDouble(String)}, so the result is always the same.
+     * 
+     * @param buffer
+     *            the buffer holding the bytes of the number.
+     * @param start
+     *            the index of the first byte of the number.
+     * @param end
+     *            the index after the last byte of the number.
+     * 
+     * @return the number represented by the bytes in the specified range.
+     */
+    private double parseDouble(ByteBuffer buffer, int start, int end) {
+	int i = start;
+	boolean negative = false;
+
+	if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+	    negative = buffer.get(i) == '-';
+	    i++;
+	}
+
+	long mantissa = 0;
+	int digits = 0;
+	int exponent = 0;
+	boolean valid = false;
+	boolean fraction = false;
+
+	for (; i < end; i++) {
+	    byte b = buffer.get(i);
+
+	    if (b >= '0' && b <= '9') {
+		if (digits < 18) {
+		    mantissa = (mantissa * 10) + (b - '0');
+
+		    if (mantissa > 0) {
+			digits++;
+		    }
+
+		    if (fraction) {
+			exponent--;
+		    }
+		} else {
+		    // too many significant digits
+		    valid = false;
+		    break;
+		}
+
+		valid = true;
+	    } else if (b == '.' && !fraction) {
+		fraction = true;
+	    } else {
+		break;
+	    }
+	}
+
+	if (valid && i < end
+		&& (buffer.get(i) == 'e' || buffer.get(i) == 'E')) {
+	    i++;
+	    boolean minus = false;
+
+	    if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+		minus = buffer.get(i) == '-';
+		i++;
+	    }
+
+	    int value = 0;
+	    valid = false;
+
+	    for (; i < end && value < 10000; i++) {
+		byte b = buffer.get(i);
+
+		if (b < '0' || b > '9') {
+		    break;
+		}
+
+		value = (value * 10) + (b - '0');
+		valid = true;
+	    }
+
+	    exponent += minus ? -value : value;
+	}
+
+	if (valid && i == end && mantissa < (1L << 53)
+		&& exponent >= -22 && exponent <= 22) {
+	    double value = (double) mantissa;
+
+	    if (exponent > 0) {
+		value *= POWERS[exponent];
+	    } else if (exponent < 0) {
+		value /= POWERS[-exponent];
+	    }
+
+	    return negative ? -value : value;
+	}
+
+	return Double.parseDouble(decode(buffer, start, end));
+    }
+
+    /**
+     * Returns the index of the first occurrence of the specified byte in the
+     * range of the buffer.
+     * 
+     * @param buffer
+     *            the buffer to search.
+     * @param start
+     *            the index of the first byte to search.
+     * @param end
+     *            the index after the last byte to search.
+     * @param b
+     *            the byte to find.
+     * 
+     * @return the index of the first occurrence of the specified byte, or
+     *         <code>-1</code> if the byte does not occur in the range.
+     */
+    private static int find(ByteBuffer buffer, int start, int end, byte b) {
+	for (int i = start; i < end; i++) {
+	    if (buffer.get(i) == b) {
+		return i;
+	    }
+	}
+
+	return -1;
+    }
+
+    /**
+     * Returns <code>true</code> if the specified byte represents a white
+     * space (including control characters).
+     * 
+     * @param b
+     *            the byte to check.
+     * 
+     * @return <code>true</code> if the specified byte represents a white
+     *         space; <code>false</code> otherwise.
+     */
+    private static boolean isWhitespace(byte b) {
+	return b >= 0 && b <= ' ';
+    }
+
+    /**
+     * Decodes the bytes in the specified range of the buffer as a string.
+     * 
+     * @param buffer
+     *            the buffer holding the bytes.
+     * @param start
+     *            the index of the first byte.
+     * @param end
+     *            the index after the last byte.
+     * 
+     * @return the string represented by the bytes in the specified range.
+     */
+    private String decode(ByteBuffer buffer, int start, int end) {
+	byte[] bytes = new byte[end - start];
+
+	for (int i = 0; i < bytes.length; i++) {
+	    bytes[i] = buffer.get(start + i);
+	}
+
+	return new String(bytes, charset);
+    }
+
     /**
      * Divides the input String into tokens, using a white space as delimiter.
      * 
@@ -310,4 +1054,210 @@ public class ARFFReader {
 	value = value.replace("'\\'", "\"").replace("\\''", "\"");
 	return value.trim();
     }
-}
\ No newline at end of file
+
+    /**
+     * Hash dictionary mapping the bytes of nominal values to their indexes,
+     * using open addressing with linear probing.
+     */
+    private static final class Dictionary {
+	/**
+	 * The bytes of the values.
+	 */
+	private final byte[][] keys;
+
+	/**
+	 * The index of the values.
+	 */
+	private final int[] indexes;
+
+	/**
+	 * The mask to compute the slot of a hash value.
+	 */
+	private final int mask;
+
+	/**
+	 * Creates a new <code>Dictionary</code> for the values of the
+	 * specified attribute.
+	 * 
+	 * @param attribute
+	 *            the nominal attribute.
+	 * @param charset
+	 *            the charset of the values.
+	 */
+	Dictionary(Attribute attribute, Charset charset) {
+	    int capacity =
+		    Integer.highestOneBit(attribute.length() * 2 + 1) << 1;
+	    keys = new byte[capacity][];
+	    indexes = new int[capacity];
+	    mask = capacity - 1;
+
+	    for (int i = 0; i < attribute.length(); i++) {
+		byte[] key = attribute.value(i).getBytes(charset);
+		int slot = hash(key, 0, key.length) & mask;
+
+		while (keys[slot] != null && !Arrays.equals(keys[slot], key)) {
+		    slot = (slot + 1) & mask;
+		}
+
+		// in case of repeated values, the first index is used
+		if (keys[slot] == null) {
+		    keys[slot] = key;
+		    indexes[slot] = i;
+		}
+	    }
+	}
+
+	/**
+	 * Returns the index of the value represented by the bytes in the
+	 * specified range of the buffer.
+	 * 
+	 * @param buffer
+	 *            the buffer holding the bytes of the value.
+	 * @param start
+	 *            the index of the first byte of the value.
+	 * @param end
+	 *            the index after the last byte of the value.
+	 * 
+	 * @return the index of the value, or
+	 *         {@link Dataset#MISSING_VALUE_INDEX} if not found.
+	 */
+	int lookup(ByteBuffer buffer, int start, int end) {
+	    int hash = 0x811C9DC5;
+
+	    for (int i = start; i < end; i++) {
+		hash = (hash ^ (buffer.get(i) & 0xFF)) * 0x01000193;
+	    }
+
+	    int slot = hash & mask;
+
+	    while (keys[slot] != null) {
+		if (matches(keys[slot], buffer, start, end)) {
+		    return indexes[slot];
+		}
+
+		slot = (slot + 1) & mask;
+	    }
+
+	    return Dataset.MISSING_VALUE_INDEX;
+	}
+
+	/**
+	 * Returns the (FNV-1a) hash value of the specified bytes.
+	 * 
+	 * @param bytes
+	 *            the bytes array.
+	 * @param start
+	 *            the index of the first byte.
+	 * @param end
+	 *            the index after the last byte.
+	 * 
+	 * @return the hash value of the specified bytes.
+	 */
+	private static int hash(byte[] bytes, int start, int end) {
+	    int hash = 0x811C9DC5;
+
+	    for (int i = start; i < end; i++) {
+		hash = (hash ^ (bytes[i] & 0xFF)) * 0x01000193;
+	    }
+
+	    return hash;
+	}
+
+	/**
+	 * Returns <code>true</code> if the key is equal to the bytes in the
+	 * specified range of the buffer.
+	 * 
+	 * @param key
+	 *            the key.
+	 * @param buffer
+	 *            the buffer.
+	 * @param start
+	 *            the index of the first byte.
+	 * @param end
+	 *            the index after the last byte.
+	 * 
+	 * @return <code>true</code> if the key is equal to the bytes in the
+	 *         specified range of the buffer; <code>false</code> otherwise.
+	 */
+	private static boolean matches(byte[] key,
+				       ByteBuffer buffer,
+				       int start,
+				       int end) {
+	    if (key.length != (end - start)) {
+		return false;
+	    }
+
+	    for (int i = 0; i < key.length; i++) {
+		if (key[i] != buffer.get(start + i)) {
+		    return false;
+		}
+	    }
+
+	    return true;
+	}
+    }
+
+    /**
+     * Task to parse a range of the data section.
+     */
+    private final class Segment extends RecursiveTask<Dataset.Builder> {
+	/**
+	 * The serial version UID.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The file channel.
+	 */
+	private final FileChannel channel;
+
+	/**
+	 * The position of the first byte of the range.
+	 */
+	private final long start;
+
+	/**
+	 * The position after the last byte of the range.
+	 */
+	private final long end;
+
+	/**
+	 * The dataset holding the attributes' information.
+	 */
+	private final Dataset header;
+
+	/**
+	 * Creates a new <code>Segment</code>.
+	 * 
+	 * @param channel
+	 *            the file channel.
+	 * @param start
+	 *            the position of the first byte of the range.
+	 * @param end
+	 *            the position after the last byte of the range.
+	 * @param header
+	 *            the dataset holding the attributes' information.
+	 */
+	Segment(FileChannel channel, long start, long end, Dataset header) {
+	    this.channel = channel;
+	    this.start = start;
+	    this.end = end;
+	    this.header = header;
+	}
+
+	@Override
+	protected Dataset.Builder compute() {
+	    try {
+		Dataset.Builder builder = new Dataset.Builder(header,
+							      estimate(channel,
+								       start,
+								       end));
+		parse(channel, start, end, header, builder);
+
+		return builder;
+	    } catch (IOException e) {
+		throw new UncheckedIOException(e);
+	    }
+	}
+    }
+}
@@ -17,24 +17,24 @@
  * limitations under the License.
  */
 package myra.datamining;
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
 
 import static myra.datamining.Attribute.Type.NOMINAL;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.PrintStream;
 import java.io.Reader;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.Map;
@@ -42,17 +42,31 @@ import java.util.Properties;
 import java.util.Random;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
 
 //import weka.classifiers.trees.J48;
 //import weka.core.Instances;
 import static myra.Config.CONFIG;
+import static myra.datamining.ARFFReader.PARALLEL_READ;
+import static myra.datamining.Batches.BATCHES;
+import static myra.datamining.Batches.WATCH_TIMEOUT;
+import static myra.datamining.Checkpoint.CHECKPOINT_FILE;
+import static myra.datamining.Checkpoint.RESUME_FILE;
+import static myra.datamining.Snapshot.CACHE_DIRECTORY;
+import static myra.rule.irl.WorkerPool.PROCESSES;
+import static myra.rule.irl.WorkerPool.WORKERS;
 import myra.Config.ConfigKey;
 import myra.Cost;
 import myra.Option;
 import myra.Option.BooleanOption;
+import myra.Option.IntegerOption;
+import myra.RunContext;
 import myra.classification.ClassificationModel;
+import myra.datamining.Partitioner.Order;
 import myra.rule.Rule;
+import myra.rule.RuleIndex;
 import myra.rule.RuleList;
+import myra.rule.irl.WorkerPool;
 import myra.util.Logger;
 
 /**
@@ -95,11 +109,35 @@ public abstract class Algorithm {
      */
     public final static ConfigKey<Long> RANDOM_SEED = new ConfigKey<>();
 
+    /**
+     * The config key for the order used to partition the input file.
+     */
+    public final static ConfigKey<Order> PARTITION_ORDER = new ConfigKey<>();
+
+    /**
+     * The config key to enable the error-driven incremental training.
+     */
+    public final static ConfigKey<Boolean> RESIDUAL = new ConfigKey<>();
+
+    /**
+     * The config key to enable the drift-aware incremental training.
+     */
+    public final static ConfigKey<Boolean> DRIFT = new ConfigKey<>();
+
     /**
      * The width of the output console.
      */
     private final int CONSOLE_WIDTH = 80;
-    private static final String DATA = "@data";
+
+    /**
+     * The training (D1) partition of the input file.
+     */
+    private Dataset training;
+
+    /**
+     * The incremental (D2) partition of the input file.
+     */
+    private Dataset incremental;
 
     /**
      * Returns the algorithm command-line options. The default implementation
@@ -133,6 +171,71 @@ options.add(new Option<String>(TEST_FILE,
 				       false,
 				       "file"));
 
+	// support to parallel reading of the data files
+	options.add(new IntegerOption(PARALLEL_READ,
+				      "-parallel-read",
+				      "read data files using multiple %s;"
+					      + " if no cores are specified, use"
+					      + " all available cores",
+				      "cores") {
+	    @Override
+	    public void set(String value) {
+		if (value == null) {
+		    value = String
+			    .format("%d",
+				    Runtime.getRuntime().availableProcessors());
+		}
+
+		super.set(value);
+	    }
+	});
+
+	// order of the instances of the D1, D2 and D3 partitions
+	Option<Order> order = new Option<Order>(PARTITION_ORDER,
+						"-partition",
+						"set the partitioning %s",
+						true,
+						"order");
+	order.add("sequential", Order.SEQUENTIAL);
+	order.add("shuffled", Order.SHUFFLED);
+	order.add("stratified", Order.STRATIFIED);
+	options.add(order);
+
+	options.add(new Option<String>(CACHE_DIRECTORY,
+				       "-snapshot-cache",
+				       "Path of the %s to cache binary snapshots"
+					       + " of the data files",
+				       false,
+				       "directory"));
+
+	// streaming incremental mode
+	options.add(new Option<String>(BATCHES,
+				       "-batches",
+				       "Path of the incremental %s (directory"
+					       + " or comma-separated files)",
+				       false,
+				       "batches"));
+
+	options.add(new IntegerOption(WATCH_TIMEOUT,
+				      "-watch",
+				      "watch the batches directory, stopping"
+					      + " after %s without new batches",
+				      "seconds"));
+
+	// error-driven incremental training
+	options.add(new BooleanOption(RESIDUAL,
+				      "-residual",
+				      "only learn new rules for the incremental"
+					      + " instances misclassified by"
+					      + " the current model"));
+
+	// drift-aware incremental training
+	options.add(new BooleanOption(DRIFT,
+				      "-drift",
+				      "only replace the rules whose error rate"
+					      + " increased on the incremental"
+					      + " instances"));
+
 	// random seed
 	options.add(new Option<Long>(RANDOM_SEED,
 				     "s",
@@ -187,16 +290,26 @@ options.add(new Option<String>(TEST_FILE,
 	    parameters.put(current.substring(1), null);
 	}
 
-	// set options values
+	configure(parameters);
 
+	return parameters;
+	
+    }
+
+    /**
+     * Sets the values of the options present in the specified command-line
+     * parameters.
+     * 
+     * @param parameters
+     *            the command-line parameters, as returned by
+     *            {@link #processCommandLine(String[])}.
+     */
+    protected void configure(Map<String, String> parameters) {
 	for (Option<?> option : options()) {
 	    if (parameters.containsKey(option.getModifier())) {
 		option.set(parameters.get(option.getModifier()));
 	    }
 	}
-
-	return parameters;
-	
     }
 
     /**
@@ -224,31 +337,77 @@ options.add(new Option<String>(TEST_FILE,
     	defaults();     			
  	// reads command-line arguments 
     	Map<String, String> parameters = processCommandLine(args);			
+
+	if (CONFIG.isPresent(PROCESSES) && CONFIG.get(PROCESSES) > 0) {
+	    // worker processes are started with the same arguments
+	    WorkerPool workers =
+		    new WorkerPool(getClass(), args, CONFIG.get(PROCESSES));
+	    CONFIG.set(WORKERS, workers);
+
+	    try {
+		run(parameters);
+	    } finally {
+		CONFIG.set(WORKERS, null);
+		workers.close();
+	    }
+	} else {
+	    run(parameters);
+	}
+    }
+
+    /**
+     * Executes the algorithm once the command-line arguments have been
+     * processed.
+     * 
+     * @param parameters
+     *            the command-line parameters.
+     * 
+     * @throws Exception
+     *             If an error occurs &mdash; e.g., I/O error.
+     */
+    protected void run(Map<String, String> parameters) throws Exception {
+	if (CONFIG.isPresent(BATCHES)) {
+	    stream(parameters);
+	    return;
+	}
+
 	if (CONFIG.isPresent(INPUT_FILE)) {
-           String path=CONFIG.get(INPUT_FILE);
-    	    	
-            // if the partitioning percent as given by the user
-             	if (CONFIG.isPresent(TRAINING_FILE)&&CONFIG.isPresent(INCREMENTAL_FILE)&&CONFIG.isPresent(TEST_FILE)) {
-
-            read(path,new Double(CONFIG.get(TRAINING_FILE))/100,new Double(CONFIG.get(INCREMENTAL_FILE))/100,new Double(CONFIG.get(TEST_FILE))/100);
-                }else{
-               	                
-                            read(path,0.4,0.3,0.3);                     
-                }
-           CONFIG.set(TRAINING_FILE,path+"1"); 
-           CONFIG.set(INCREMENTAL_FILE,path+"2") ;
-           CONFIG.set(TEST_FILE,path+"3") ;
-       
- // train 1 // start reading D1 which is available in 
+	    // partitions the input file in-memory into the training (D1),
+	    // incremental (D2) and test (D3) datasets
 	    ARFFReader reader = new ARFFReader();
-	    Dataset dataset = reader.read(CONFIG.get(TRAINING_FILE));
+	    Dataset[] partitions =
+		    partition(reader.read(CONFIG.get(INPUT_FILE)));
+	    training = partitions[0];
+	    incremental = partitions[1];
+
+	    // train 1 // start reading D1 which is available in
+	    Dataset dataset = training;
 	    // print the name of the algorithm , time, date, files path, options, relation ... seed
 	  //  and return parameters
 	    logRuntime(dataset, parameters); 
 	    
 	    // find the rules using ACO
 	 System.out.println("_______Training_________");
-	    Model model = train(dataset);
+	    Checkpoint resumed = CONFIG.isPresent(RESUME_FILE)
+		    ? Checkpoint.read(new File(CONFIG.get(RESUME_FILE)), this)
+		    : null;
+
+	    if (resumed != null && resumed.step() >= 2) {
+		// the checkpoint already holds the model after the incremental
+		// (D2) step, so only the evaluation on the test set is left
+		Logger.log("%n=== Evaluation on test set ===%n%n");
+		test(partitions[2], new ClassificationModel(resumed.model()));
+		return;
+	    }
+
+	    Model model;
+
+	    if (resumed == null) {
+		model = train(dataset);
+		checkpoint(model, 1, dataset.size());
+	    } else {
+		model = resumed.model();
+	    }
 	
 	    // print the rules ، تطبع الرولز وعدد الرولز والترمز
 	    Logger.log("%n");
@@ -273,13 +432,13 @@ options.add(new Option<String>(TEST_FILE,
              evaluate(dataset, model); 
 	  
             /////////////////////train2/////////////////////////
-        ARFFReader reader2 = new ARFFReader();
-	    Dataset dataset2 = reader2.read(CONFIG.get(INCREMENTAL_FILE));
+	    Dataset dataset2 = incremental;
 
 	    //logRuntime(dataset2, parameters);
 	    Logger.log("%n");
 		System.out.println("_______Incremental_________");
-	    Model model2 = train(dataset2);
+	    Model model2 = isExtending() ? trainStep2(dataset2, model)
+		    : train(dataset2);
 	    Logger.log("%n");
 	    Logger.log(model2.toString(dataset2));
 	    Logger.log("%n");
@@ -304,119 +463,46 @@ options.add(new Option<String>(TEST_FILE,
             
             
             /////////////////////Output/////////////////////////
-             double similarity, quality;
-            double w = 0.5;
-            Rule ruleo, rulen; 
-            RuleList discovered1 = new RuleList(); 
-            ArrayList<Rule> outputList =  new  ArrayList<>();
-
-            Logger.log("%n");
-            System.out.println("_______Output Rules_________");
-       
-            for (int h = 0; h < rulenewArrayList.size(); h++) {
-	            int e=h+1;
-            	rulen=rulenewArrayList.get(h);
-            	System.out.println("____Start with new rule "+e+" ___"+rulen.toString(dataset2));
-            	for (int i=0; i < ruleOldArrayList.size(); i++ ) {
-	            	Attribute target = dataset.attributes()[dataset.classIndex()];
-	                Attribute target2 = dataset.attributes()[dataset2.classIndex()];
-	               	ruleo=ruleOldArrayList.get(i);
-	               	int q = i+1;
-	               	if(rulen.getConsequent().toString(target2) == ruleo.getConsequent().toString(target)){	               		
-	            	   System.out.println("_____ old rule "+q+" ____"+ruleo.toString(dataset));
-	            	   similarity =  getSimilarity(rulen,ruleo);
-	            	   System.out.println("Similarity = "+similarity);
-	            		       
-		                if (similarity ==1 && rulen.terms().length < ruleo.terms().length ){
-		                	if (!outputList.contains(ruleo)){
-		                	outputList.add(ruleo);}
-		                	
-		                //	System.out.println(" The old rule is added as it is longer than the new rule");
-			               // System.out.println("Rule quality = "+ruleo.getQuality().adjusted());
-		                }
-		                else if (similarity ==1 && rulen.terms().length == ruleo.terms().length){
-		                	quality=(w*rulen.getQuality().adjusted())+(w*similarity);
-		                	if (!outputList.contains(rulen)){
-			                	outputList.add(rulen);}
-		                //	System.out.println("The new rule is added and its quality is updated");
-		                //	System.out.println("the new quality ="+quality);
-		                }
-		                else if (similarity <1 && similarity >0 ){
-		                	if (!outputList.contains(rulen)){
-			                	outputList.add(rulen);}
-		                //	System.out.println(" The new rule is added");		                			          
-		                }
-		                 // if simimlarity =0
-		                else {
-		                	if (!outputList.contains(rulen)){
-			                	outputList.add(rulen);}
-		               
-
-		                	// System.out.println("The similarity is zero, so the new rule is added");
-		                	 }	
-		                }   else  
-		                {	 	if (!outputList.contains(rulen)){
-		                	outputList.add(rulen);}
-		                if (!outputList.contains(ruleo)){
-		                	outputList.add(ruleo);}
-		                		//System.out.println("No rules have the same class label so both are added");
-		                }       
-            			        
-            			}
-            	} 
-            			for(int i =0 ; i<outputList.size(); i++){			
-            				discovered1.add(outputList.get(i));  }
-            														  
-            		discovered1.add(ruleemptyArrayList.get(0));    
-            		RuleList r1 = new RuleList();
-            	//	r1.removeDuplicates(discovered1);
-                    System.out.println ("R1 rules are  "+incrementalModel(r1).toString(dataset2));
-
-            	/*	for (int d =0 ; d <= outputList.size(); d++){
-            		          if(outputList.get(d+1) == outputList.get(d)){
-            		        	  outputList.remove(d+1);
-            		          }
-            		          
-            		       //   discovered1.add(outputList.get(d));
-
-            		}
-            		for (int b =0; b < outputList.size(); b++ ){
-            		      		
-            		      		discovered1.add(outputList.get(b));
-            		      	}*/
-            		          
-                	Model modelA = incrementalModel(discovered1);
-
-            		//Model modelA = incrementalMod(outputList);
-          Logger.log("%n");
-          Logger.log("%n");
-          System.out.println ("The new rule list has "+discovered1.size());
-
-          System.out.println (incrementalModel(discovered1).toString(dataset2));
-        //  evaluate(dataset2, new ClassificationModel(modelA));
-	
-   	    	
-	               	            	              	 
-     //       if (Ruleold.getClass().getName()==RuleNew.getClass().getName()) {  
-      /*      Attribute target = dataset.attributes()[dataset.classIndex()];
-            Attribute target2 = dataset.attributes()[dataset2.classIndex()];
-           if ( rulenewArrayList.getConsequent().toString(target) == ruleOldArrayList.getConsequent().toString(target2)){*/
-  //     Model modelf=incremental_result(rulenewArrayList, ruleOldArrayList,ruleemptyArrayList);
-	//  evaluate(dataset2, new ClassificationModel(modelf));
+	    Logger.log("%n");
+	    System.out.println("_______Output Rules_________");
+
+	    Model modelA;
+
+	    if (isExtending()) {
+		// the incremental step already extended the D1 model, so it is
+		// the output model and no merge is needed
+		modelA = model2;
+	    } else {
+		// adds the coverage of the D1 rules on the incremental dataset
+		// to their coverage on the training dataset, so the merged
+		// list (and its checkpoint) holds the statistics of D1 and D2
+		rules(model).accumulate(dataset2);
+
+		RuleList discovered1 = new RuleList();
+		discovered1.addAll(combine(rulenewArrayList,
+					   ruleOldArrayList,
+					   dataset));
+		discovered1.add(ruleemptyArrayList.get(0));
+		// new rules can be equal to (or subsumed by) old rules
+		discovered1.removeDuplicates();
+		discovered1.removeSubsumed();
+		modelA = incrementalModel(discovered1);
+	    }
+
+	    System.out.println("The new rule list has "
+		    + modelA.getRuleList().length);
+	    System.out.println(modelA.toString(dataset2));
+
+	    checkpoint(modelA, 2, dataset.size() + dataset2.size());
+      
       
 	    // if a test file is provided, evaluates the model on the test
 	    // data and logs the confusion matrix	         
-       ARFFReader reader3 = new ARFFReader();
-	    
-       Dataset dataset3 = reader3.read(CONFIG.get(TEST_FILE));
-	    if (CONFIG.isPresent(TEST_FILE)) {
-		dataset3 = reader3.read(CONFIG.get(TEST_FILE));
+	    Dataset dataset3 = partitions[2];
 
-		Logger.log("%n=== Evaluation on test set ===%n%n");
+	    Logger.log("%n=== Evaluation on test set ===%n%n");
 
-	test(dataset3, new ClassificationModel(modelA));
-	   
-	    }
+	    test(dataset3, new ClassificationModel(modelA));
     }}
 //	  Logger.log("%nRunning time (seconds): %.2f%n", elapsed);
 
@@ -440,6 +526,315 @@ options.add(new Option<String>(TEST_FILE,
 	} */
     
 
+    /**
+     * Partitions the dataset in-memory into the training (D1), incremental
+     * (D2) and test (D3) datasets. The proportions of the partitions are
+     * given by the {@link #TRAINING_FILE}, {@link #INCREMENTAL_FILE} and
+     * {@link #TEST_FILE} percentages when all three are specified; otherwise
+     * 40%, 30% and 30% of the instances are used.
+     * 
+     * @param dataset
+     *            the dataset to partition.
+     * 
+     * @return the training, incremental and test datasets.
+     */
+    protected Dataset[] partition(Dataset dataset) {
+	double[] proportions = { 0.4, 0.3, 0.3 };
+
+	// if the partitioning percent as given by the user
+	if (CONFIG.isPresent(TRAINING_FILE)
+		&& CONFIG.isPresent(INCREMENTAL_FILE)
+		&& CONFIG.isPresent(TEST_FILE)) {
+	    proportions = new double[] {
+		    Double.parseDouble(CONFIG.get(TRAINING_FILE)) / 100,
+		    Double.parseDouble(CONFIG.get(INCREMENTAL_FILE)) / 100,
+		    Double.parseDouble(CONFIG.get(TEST_FILE)) / 100 };
+	}
+
+	return new Partitioner(dataset, 3).split(CONFIG.get(PARTITION_ORDER),
+						 proportions);
+    }
+
+    /**
+     * Executes the algorithm within the specified context. The configuration
+     * and logging of the execution are isolated from other executions, so
+     * several algorithms can run concurrently in the same JVM.
+     * 
+     * @param args
+     *            command-line arguments.
+     * @param context
+     *            the context of the execution.
+     * 
+     * @throws Exception
+     *             If an error occurs &mdash; e.g., I/O error.
+     */
+    public void run(final String[] args, RunContext context) throws Exception {
+	context.call(new Callable<Void>() {
+	    @Override
+	    public Void call() throws Exception {
+		run(args);
+		return null;
+	    }
+	});
+    }
+
+    /**
+     * Executes the algorithm as a worker process of a {@link WorkerPool}.
+     * Requests are read from the standard input and responses are written to
+     * the standard output; log messages are redirected to the standard error.
+     * 
+     * @param args
+     *            command-line arguments of the coordinator.
+     * 
+     * @throws Exception
+     *             If an error occurs &mdash; e.g., I/O error.
+     */
+    public void work(String[] args) throws Exception {
+	defaults();
+	processCommandLine(args);
+
+	PrintStream responses = System.out;
+	System.setOut(System.err);
+	Logger.setDestination(System.err);
+
+	WorkerPool.serve(System.in, responses);
+    }
+
+    /**
+     * Streaming incremental mode. The model is trained on the first batch (or
+     * the input file, if one is specified) and each subsequent batch is
+     * merged into the current rule list using
+     * {@link #incremental_result(ArrayList, ArrayList, ArrayList)}. The
+     * latency and throughput of each batch are logged. When resuming from a
+     * checkpoint, the model of the checkpoint is used as the current model,
+     * the input file is not used and the batches already processed (given by
+     * the step of the checkpoint) are skipped.
+     * 
+     * @param parameters
+     *            the command-line parameters.
+     * 
+     * @throws Exception
+     *             If an error occurs &mdash; e.g., I/O error.
+     */
+    protected void stream(Map<String, String> parameters) throws Exception {
+	ARFFReader reader = new ARFFReader();
+	Model current = null;
+	Dataset previous = null;
+
+	// batches and instances processed before resuming
+	int resumed = 0;
+	long seen = 0;
+
+	int batch = 0;
+	long instances = 0;
+	long total = 0;
+
+	if (CONFIG.isPresent(RESUME_FILE)) {
+	    Checkpoint checkpoint =
+		    Checkpoint.read(new File(CONFIG.get(RESUME_FILE)), this);
+	    current = checkpoint.model();
+	    resumed = checkpoint.step();
+	    seen = checkpoint.instances();
+	}
+
+	try (Batches batches =
+		new Batches(CONFIG.get(BATCHES),
+			    CONFIG.isPresent(WATCH_TIMEOUT)
+				    ? CONFIG.get(WATCH_TIMEOUT) : 0)) {
+	    // the batches already processed are skipped; when an input file
+	    // is specified, it was the first dataset processed
+	    int processed = resumed;
+
+	    if (current != null && CONFIG.isPresent(INPUT_FILE)) {
+		processed--;
+	    }
+
+	    for (int i = 0; i < processed && batches.hasNext(); i++) {
+		batches.next();
+	    }
+
+	    if (current == null && CONFIG.isPresent(INPUT_FILE)) {
+		long start = System.nanoTime();
+		previous = reader.read(CONFIG.get(INPUT_FILE));
+		logRuntime(previous, parameters);
+		current = train(previous);
+
+		long elapsed = System.nanoTime() - start;
+		logBatch(batch++, CONFIG.get(INPUT_FILE), previous, elapsed);
+		instances += previous.size();
+		total += elapsed;
+		checkpoint(current, resumed + batch, seen + instances);
+	    }
+
+	    while (batches.hasNext()) {
+		File file = batches.next();
+		long start = System.nanoTime();
+		Dataset dataset = reader.read(file);
+
+		if (previous == null) {
+		    logRuntime(dataset, parameters);
+		}
+
+		if (current == null) {
+		    current = train(dataset);
+		} else if (isExtending()) {
+		    current = trainStep2(dataset, current);
+		} else {
+		    training = (previous == null) ? dataset : previous;
+		    incremental = dataset;
+		    current = merge(current, train(dataset));
+		}
+
+		long elapsed = System.nanoTime() - start;
+		logBatch(resumed + batch++, file.getPath(), dataset, elapsed);
+		instances += dataset.size();
+		total += elapsed;
+		previous = dataset;
+		checkpoint(current, resumed + batch, seen + instances);
+	    }
+	}
+
+	if (current == null) {
+	    throw new IllegalArgumentException("No batches found: "
+		    + CONFIG.get(BATCHES));
+	}
+
+	if (previous != null) {
+	    Logger.log("%n%s%n", current.toString(previous));
+	}
+
+	Logger.log("Batches: %d%n", resumed + batch);
+	Logger.log("Instances: %d%n", seen + instances);
+
+	if (batch > 0) {
+	    Logger.log("Total time (seconds): %.3f%n", total / 1e9);
+	    Logger.log("Average latency (seconds): %.3f%n",
+		       (total / 1e9) / batch);
+	    Logger.log("Throughput (instances/second): %.1f%n",
+		       instances / (total / 1e9));
+	}
+    }
+
+    /**
+     * Writes a checkpoint of the training state, if a checkpoint file is
+     * specified.
+     * 
+     * @param model
+     *            the current model.
+     * @param step
+     *            the number of datasets (batches) processed.
+     * @param instances
+     *            the number of instances processed.
+     * 
+     * @throws IOException
+     *             if an I/O error occurs.
+     */
+    private void checkpoint(Model model, int step, long instances)
+	    throws IOException {
+	if (CONFIG.isPresent(CHECKPOINT_FILE)) {
+	    new Checkpoint(model, step, instances)
+		    .write(new File(CONFIG.get(CHECKPOINT_FILE)), this);
+	}
+    }
+
+    /**
+     * Merges the rules of the model trained on a new batch into the current
+     * rule list.
+     * 
+     * @param current
+     *            the current model.
+     * @param model
+     *            the model trained on the new batch.
+     * 
+     * @return the merged model.
+     * 
+     * @throws Exception
+     *             If an error occurs &mdash; e.g., I/O error.
+     */
+    private Model merge(Model current, Model model) throws Exception {
+	// adds the coverage of the current rules on the new batch to their
+	// coverage on the previous batches, so their quality reflects all data
+	// seen so far without rescanning it
+	rules(current).accumulate(partition(incremental, INCREMENTAL_FILE));
+
+	ArrayList<Rule> rulesold = new ArrayList<>();
+	ArrayList<Rule> rulesnew = new ArrayList<>();
+	ArrayList<Rule> ruleempty = new ArrayList<>();
+
+	for (Rule rule : current.getRuleList()) {
+	    if (rule.getQuality() != null && rule.terms().length > 0) {
+		rulesold.add(rule);
+	    }
+	}
+
+	for (Rule rule : model.getRuleList()) {
+	    if (rule.getQuality() != null && rule.terms().length > 0) {
+		rulesnew.add(rule);
+	    } else {
+		ruleempty.add(rule);
+	    }
+	}
+
+	return incremental_result(rulesnew, rulesold, ruleempty);
+    }
+
+    /**
+     * Returns <code>true</code> if the incremental step extends the current
+     * model (see {@link #trainStep2(Dataset, Model)}) rather than merging it
+     * with a model trained on the incremental dataset.
+     * 
+     * @return <code>true</code> if the incremental step extends the current
+     *         model; <code>false</code> otherwise.
+     */
+    private boolean isExtending() {
+	return CONFIG.get(RESIDUAL) || CONFIG.get(DRIFT);
+    }
+
+    /**
+     * Logs the latency and throughput of a batch.
+     * 
+     * @param batch
+     *            the batch number.
+     * @param name
+     *            the batch file name.
+     * @param dataset
+     *            the batch dataset.
+     * @param elapsed
+     *            the time (in nanoseconds) to process the batch.
+     */
+    private void logBatch(int batch,
+			  String name,
+			  Dataset dataset,
+			  long elapsed) {
+	double seconds = elapsed / 1e9;
+
+	Logger.log("%n=== Batch %d: %s ===%n", batch, name);
+	Logger.log("Instances: %d%n", dataset.size());
+	Logger.log("Latency (seconds): %.3f%n", seconds);
+	Logger.log("Throughput (instances/second): %.1f%n",
+		   dataset.size() / seconds);
+    }
+
+    /**
+     * Returns the rule list of the specified model.
+     * 
+     * @param model
+     *            the model.
+     * 
+     * @return the rule list of the specified model.
+     */
+    protected RuleList rules(Model model) {
+	if (model instanceof ClassificationModel) {
+	    model = ((ClassificationModel) model).raw();
+	}
+
+	if (!(model instanceof RuleList)) {
+	    throw new IllegalArgumentException("Unsupported model: " + model);
+	}
+
+	return (RuleList) model;
+    }
+
     /**
      * Trains the algorithm for the current dataset.
      * 
@@ -471,8 +866,64 @@ options.add(new Option<String>(TEST_FILE,
      *            the model.
      */
     protected abstract void test(Dataset dataset, Model model);
+
+    /**
+     * Trains the algorithm for the incremental dataset, extending the current
+     * model so that it also covers the instances that it misclassifies.
+     * 
+     * @param dataset
+     *            the incremental dataset.
+     * @param model
+     *            the current model.
+     * 
+     * @return the extended model.
+     */
     protected abstract Model trainStep2(Dataset dataset, Model model);
 
+    /**
+     * Writes the algorithm-specific state of a checkpoint, including the
+     * model. The default implementation throws an
+     * <code>UnsupportedOperationException</code>; algorithms that support
+     * checkpoints override this method and
+     * {@link #restore(DataInputStream)}, and register the
+     * {@link Checkpoint#CHECKPOINT_FILE} and {@link Checkpoint#RESUME_FILE}
+     * options.
+     * 
+     * @param out
+     *            the output to write to.
+     * @param model
+     *            the current model.
+     * 
+     * @throws IOException
+     *             if an I/O error occurs.
+     * 
+     * @see Checkpoint
+     */
+    protected void save(DataOutputStream out, Model model) throws IOException {
+	throw new UnsupportedOperationException("Checkpoints not supported: "
+		+ getClass().getName());
+    }
+
+    /**
+     * Reads the algorithm-specific state of a checkpoint written by
+     * {@link #save(DataOutputStream, Model)}, returning the model. The default
+     * implementation throws an <code>UnsupportedOperationException</code>.
+     * 
+     * @param in
+     *            the input to read from.
+     * 
+     * @return the model read.
+     * 
+     * @throws IOException
+     *             if an I/O error occurs.
+     * 
+     * @see Checkpoint
+     */
+    protected Model restore(DataInputStream in) throws IOException {
+	throw new UnsupportedOperationException("Checkpoints not supported: "
+		+ getClass().getName());
+    }
+
     /**
      * Returns the algorithm description.
      * 
@@ -489,6 +940,9 @@ options.add(new Option<String>(TEST_FILE,
 
 	CONFIG.set(RANDOM_SEED, seed);
 	CONFIG.set(RANDOM_GENERATOR, new Random(seed));
+	CONFIG.set(PARTITION_ORDER, Order.SEQUENTIAL);
+	CONFIG.set(RESIDUAL, Boolean.FALSE);
+	CONFIG.set(DRIFT, Boolean.FALSE);
     }
 
     /**
@@ -757,87 +1211,216 @@ Logger.log("%" + (80 - description.length()) + "s%n", timestamp);
     	return sim;
     }
    
-    // the new equation for measuring the quality of the dataset2
-       
-    public Model incremental_result(ArrayList<Rule> rulesnew,ArrayList<Rule> rulesold,ArrayList<Rule>ruleemptyArrayList) throws Exception {
-            double similarity;
-            double quality;
-            double w=0.5;
-            RuleList discovered1 = new RuleList();
-            Rule ruleo,rulen;
-            
-            ARFFReader reader = new ARFFReader();
-            Dataset dataset = reader.read(CONFIG.get(TRAINING_FILE));
-    
-            ARFFReader reader2 = new ARFFReader() ;
-            Dataset dataset2 = reader2.read(CONFIG.get(INCREMENTAL_FILE)); 
-            
-          //  int sizeRules=Math.min(rulesold.size(),rulesnew.size());
-          //  for (int i = 0; i < sizeRules; i++) { 
-          //  System.out.println("rulesnew.size()="+rulesnew.size());
-          //  System.out.println("rulesold.size()="+rulesold.size());
-   
-             for (int i = 0; i < rulesnew.size(); i++) {
-                 for (int h = 0; h < rulesold.size(); h++) {
-
-                		ruleo=rulesold.get(h);
-		                rulen=rulesnew.get(i); 
-		         
-		                Attribute target = dataset.attributes()[dataset.classIndex()];
-		                Attribute target2 = dataset2.attributes()[dataset2.classIndex()];
-		           //     if ( ruleo.getConsequent().toString() == rulen.getConsequent().toString()){
-		                		similarity =  getSimilarity(rulen,ruleo) ;
-		                /*		quality=(w*rulen.getQuality().adjusted())+(w*similarity);
-		                		System.out.println("-----------Start------------");				                		  		                				                
-				                System.out.println("Rule old is "+ruleo.toString(dataset));
-				                System.out.println("Rule new is "+rulen.toString(dataset2));
-				                System.out.println("Similarity = "+similarity);
-				                System.out.println("Rule quality = "+quality);
-				                System.out.println("-----------End------------"); */
-				               
-				               if ( similarity ==1 && rulen.terms().length > ruleo.terms().length  ){
-				                	discovered1.add(rulen);
-				                	System.out.println("Rule old is "+ruleo.toString(dataset));
-					                System.out.println("Rule new is "+rulen.toString(dataset2));
-					                //System.out.println(" The rule is "+rulen.toString(dataset2));
-					                System.out.println("Rule quality = "+rulen.getQuality().adjusted());
-				                }
-				                else if (similarity ==1 && rulen.terms().length < ruleo.terms().length ){
-				                	discovered1.add(ruleo);
-				                	System.out.println("Rule old is "+ruleo.toString(dataset));
-					                System.out.println("Rule new is "+rulen.toString(dataset2));
-				                	// System.out.println("The rule is "+ruleo.toString(dataset));
-					                System.out.println("Rule quality = "+ruleo.getQuality().adjusted());
-				                }
-				                else if (similarity ==1 && rulen.terms().length == ruleo.terms().length){
-				                quality=(w*rulen.getQuality().adjusted())+(w*similarity);
-				                System.out.println("Rule old is "+ruleo.toString(dataset));
-				                System.out.println("Rule new is "+rulen.toString(dataset2));
-				                //System.out.println("The rule is "+rulen.toString(dataset2));
-				                System.out.println("the quality ="+quality);
-				                discovered1.add(rulen);
-				                }
-				                if (similarity ==0) {
-				                	 discovered1.add(rulen);
-				                	 discovered1.add(ruleo);
-				                	 
-				                	 System.out.println("Rule old is "+ruleo.toString(dataset));
-						                System.out.println("Rule new is "+rulen.toString(dataset2));
-						                //System.out.println("The rule is "+ruleo.toString(dataset));
-						                System.out.println("Rule quality = "+ruleo.getQuality().adjusted());
-						                System.out.println("The rule is "+rulen.toString(dataset2));
-						                System.out.println("Rule quality = "+ruleo.getQuality().adjusted());
-				                }
-		              
-				                //  if (quality>=0.5) 
-				                 //Cost cost=new Cost.Minimise(quality);
-				               // rulen.setQuality(cost);		                            
-		                     //   discovered1.add(rulen);		                	 
-		             //  }  
-                 }}            
-            discovered1.add(ruleemptyArrayList.get(0));
-			return discovered1;}
+    /**
+     * Combines the rules discovered on the incremental dataset (D2) with the
+     * rules discovered on the training dataset (D1), as used by the D1/D2/D3
+     * flow. For each pair of new and old rules: if the rules predict
+     * different values, both are kept; otherwise the new rule is kept, unless
+     * the rules have similarity <code>1</code> and the old rule is longer, in
+     * which case the old rule is kept. Each rule is kept once, in the order
+     * of the pairs.
+     * 
+     * <p>
+     * The similarity is only computed for pairs sharing a term signature (see
+     * {@link RuleIndex}); all other pairs have similarity <code>0</code>.
+     * Pairs that cannot change the result are skipped.
+     * </p>
+     * 
+     * @param rulesnew
+     *            the rules discovered on the incremental dataset.
+     * @param rulesold
+     *            the rules discovered on the training dataset.
+     * @param dataset
+     *            the training dataset.
+     * 
+     * @return the combined rules.
+     * 
+     * @throws IOException
+     *             If an I/O error occurs.
+     */
+    private ArrayList<Rule> combine(ArrayList<Rule> rulesnew,
+				    ArrayList<Rule> rulesold,
+				    Dataset dataset) throws IOException {
+	Attribute target = dataset.attributes()[dataset.classIndex()];
+	RuleIndex index = new RuleIndex(rulesold);
+	ArrayList<Rule> combined = new ArrayList<>();
+	// the predicted values are compared by identity of their labels
+	String[] labels = new String[rulesold.size()];
+	// old rules not combined yet, grouped by label
+	IdentityHashMap<String, BitSet> pending = new IdentityHashMap<>();
+
+	for (int h = 0; h < rulesold.size(); h++) {
+	    labels[h] = rulesold.get(h).getConsequent().toString(target);
+	    BitSet group = pending.get(labels[h]);
+
+	    if (group == null) {
+		group = new BitSet(rulesold.size());
+		pending.put(labels[h], group);
+	    }
+
+	    group.set(h);
+	}
+
+	for (Rule rulen : rulesnew) {
+	    String label = rulen.getConsequent().toString(target);
+	    BitSet candidates = index.candidates(rulen);
+
+	    if (rulen.terms().length == 0) {
+		candidates.set(0, rulesold.size());
+	    }
+
+	    // only the candidates, the pending old rules predicting a
+	    // different value and the first non-candidate (which keeps the
+	    // new rule) can change the result
+	    BitSet visit = (BitSet) candidates.clone();
+
+	    for (Map.Entry<String, BitSet> entry : pending.entrySet()) {
+		if (entry.getKey() != label) {
+		    visit.or(entry.getValue());
+		}
+	    }
+
+	    int unmatched = candidates.nextClearBit(0);
+
+	    if (unmatched < rulesold.size()) {
+		visit.set(unmatched);
+	    }
+
+	    boolean added = false;
+
+	    for (int h = visit.nextSetBit(0); h >= 0 && h < rulesold.size();
+		    h = visit.nextSetBit(h + 1)) {
+		Rule ruleo = rulesold.get(h);
+		boolean old = labels[h] != label;
+
+		if (!old && candidates.get(h)
+			&& rulen.terms().length < ruleo.terms().length
+			&& getSimilarity(rulen, ruleo) == 1) {
+		    old = true;
+		} else if (!added) {
+		    combined.add(rulen);
+		    added = true;
+		}
+
+		if (old && pending.get(labels[h]).get(h)) {
+		    combined.add(ruleo);
+		    pending.get(labels[h]).clear(h);
+		}
+	    }
+	}
+
+	return combined;
+    }
+
+    /**
+     * Merges the rules discovered on the incremental dataset (D2) into the
+     * rules discovered on the training dataset (D1). Each pair of new and old
+     * rules is compared: rules with similarity <code>1</code> keep the longer
+     * rule, rules with similarity <code>0</code> keep both. The similarity is
+     * only computed for pairs sharing a term signature (see {@link RuleIndex});
+     * all other pairs have similarity <code>0</code>.
+     * 
+     * @param rulesnew
+     *            the rules discovered on the incremental dataset.
+     * @param rulesold
+     *            the rules discovered on the training dataset.
+     * @param ruleemptyArrayList
+     *            the empty (default) rules of the incremental dataset.
+     * 
+     * @return the merged rule list.
+     * 
+     * @throws Exception
+     *             If an error occurs &mdash; e.g., I/O error.
+     */
+    public Model incremental_result(ArrayList<Rule> rulesnew,
+				   ArrayList<Rule> rulesold,
+				   ArrayList<Rule> ruleemptyArrayList)
+	    throws Exception {
+	RuleIndex index = new RuleIndex(rulesold);
+	ArrayList<Rule> merged = new ArrayList<>();
+	// old rules not merged yet
+	BitSet pending = new BitSet(rulesold.size());
+	pending.set(0, rulesold.size());
+
+	for (Rule rulen : rulesnew) {
+	    // rules without terms are compared against all old rules
+	    BitSet candidates = index.candidates(rulen);
+
+	    if (rulen.terms().length == 0) {
+		candidates.set(0, rulesold.size());
+	    }
+
+	    // the similarity of a non-candidate pair is 0, which merges both
+	    // rules; only the candidates, the pending old rules and the first
+	    // non-candidate (which merges the new rule) can change the list,
+	    // so the other pairs are skipped without changing its order
+	    BitSet visit = (BitSet) candidates.clone();
+	    visit.or(pending);
+	    int unmatched = candidates.nextClearBit(0);
+
+	    if (unmatched < rulesold.size()) {
+		visit.set(unmatched);
+	    }
+
+	    boolean added = false;
+
+	    for (int h = visit.nextSetBit(0); h >= 0 && h < rulesold.size();
+		    h = visit.nextSetBit(h + 1)) {
+		Rule ruleo = rulesold.get(h);
+		double similarity =
+			candidates.get(h) ? getSimilarity(rulen, ruleo) : 0;
+
+		if (similarity == 1
+			&& rulen.terms().length < ruleo.terms().length) {
+		    if (pending.get(h)) {
+			merged.add(ruleo);
+			pending.clear(h);
+		    }
+		} else if (similarity == 1 || similarity == 0) {
+		    if (!added) {
+			merged.add(rulen);
+			added = true;
+		    }
+
+		    if (similarity == 0 && pending.get(h)) {
+			merged.add(ruleo);
+			pending.clear(h);
+		    }
+		}
+	    }
+	}
+
+	merged.add(ruleemptyArrayList.get(0));
+	RuleList discovered1 = new RuleList();
+	discovered1.addAll(merged);
+	// new rules can be equal to old rules
+	discovered1.removeDuplicates();
+	discovered1.removeSubsumed();
+
+	return discovered1;
+    }
+
        
+    /**
+     * Returns the specified partition of the input file, if it has been
+     * loaded; otherwise reads the file associated with the specified key.
+     * 
+     * @param partition
+     *            the partition of the input file.
+     * @param key
+     *            the config key of the file.
+     * 
+     * @return the dataset representing the partition.
+     * 
+     * @exception IOException
+     *                if an I/O error occurs.
+     */
+    private Dataset partition(Dataset partition, ConfigKey<String> key)
+	    throws IOException {
+	return partition != null ? partition
+		: new ARFFReader().read(CONFIG.get(key));
+    }
+
     public  Model incrementalModel (RuleList incrementalRule) throws Exception{
     	return incrementalRule;
     }
@@ -851,13 +1434,10 @@ Logger.log("%" + (80 - description.length()) + "s%n", timestamp);
     	return  discovered1;
     }
     public  Model arrayModel (ArrayList<Rule>  incrementalRule) throws Exception{
-    	RuleList discovered1 = new RuleList();
-    	for (int z=0; z<incrementalRule.size(); z++) {
-    		if (incrementalRule.get(z+1) != incrementalRule.get(z)){
-    		    
-    			discovered1.add(incrementalRule.get(z));
-    	 }}
-    	return discovered1;
+	RuleList discovered1 = new RuleList();
+	discovered1.addAll(incrementalRule);
+	discovered1.removeDuplicates();
+	return discovered1;
     }
     public Model incremental(ArrayList<Rule> rulesnew,ArrayList<Rule> rulesold) throws Exception {
         double similarity;
@@ -866,10 +1446,8 @@ Logger.log("%" + (80 - description.length()) + "s%n", timestamp);
         RuleList discovered1 = new RuleList();
         Rule ruleo,rulen;
         
-        ARFFReader reader = new ARFFReader();
-        Dataset dataset = reader.read(CONFIG.get(TRAINING_FILE));
-        ARFFReader reader2 = new ARFFReader() ;
-        Dataset dataset2 = reader2.read(CONFIG.get(INCREMENTAL_FILE)); 
+	Dataset dataset = partition(training, TRAINING_FILE);
+	Dataset dataset2 = partition(incremental, INCREMENTAL_FILE);
         
          for (int i = 0; i < rulesnew.size(); i++) {
              for (int h = 0; h < rulesold.size(); h++) {
@@ -965,167 +1543,6 @@ Logger.log("%" + (80 - description.length()) + "s%n", timestamp);
         
             discovered.add(ruleemptyArrayList.get(0));
                             return discovered;  } */
-       
-
-    private String[] split(String line) {
-	String[] words = new String[0];
-	int index = 0;
-
-	while (index < line.length()) {
-	    StringBuffer word = new StringBuffer();
-
-	    boolean copying = false;
-	    boolean quotes = false;
-	    boolean brackets = false;
-
-	    int i = index;
-
-	    for (; i < line.length(); i++) {
-		char c = line.charAt(i);
-
-		if (!copying && !Character.isWhitespace(c)) {
-		    copying = true;
-		}
-
-		if (c == '"' || c == '\'') {
-		    quotes ^= true;
-		} else if (c == '{' || c == '}') {
-		    brackets ^= true;
-		}
-
-		if (copying) {
-		    if (Character.isWhitespace(c) && !quotes && !brackets) {
-			index = i + 1;
-			break;
-		    }
-
-		    word.append(c);
-
-		    // if (!(c == '"' || c == '\''))
-		    // {
-		    // word.append(c);
-		    // }
-		}
-	    }
-
-	    if (i >= line.length()) {
-		// we reached the end of the line, need to stop the while loop
-		index = i;
-	    }
-
-	    if (word.length() > 0) {
-		words = Arrays.copyOf(words, words.length + 1);
-		words[words.length - 1] = word.toString();
-	    }
-	}
-
-	return words;
-    }
-
-
-    private boolean isComment(String line) {
-	if (line.startsWith("%") || line.startsWith("#")) {
-	    return true;
-	}
-
-	return false;
-    }
- // read the dataset 
-    /**
-     * @param inputPath
-     * @param p1
-     * @param p2
-     * @param p3
-     * @throws IOException
-     */
-    public void read(String  inputPath ,double p1,double p2,double p3) throws IOException {
-        FileReader fileReader =new FileReader(inputPath);
-	BufferedReader reader = new BufferedReader(fileReader);
-                int totalLinenumber=0;
-	String line = null;
- // loop to read all the lines in the dataset
-	while ((line = reader.readLine()) != null) {
-          totalLinenumber++;
-       }
-	reader.close();
-	// printing the dataset path after partitioning
-	// PrintWriter :Prints formatted representations of objects to a text-output stream
-PrintWriter writer = new PrintWriter(new File(inputPath+"1"));
-writer.print("");
-writer.close();
-writer = new PrintWriter(new File(inputPath+"2"));
-writer.print("");
-writer.close();
-writer = new PrintWriter(new File(inputPath+"3"));
-writer.print("");
-writer.close();
-        FileWriter fstream = new FileWriter(inputPath+"1", true);
-        BufferedWriter out = new BufferedWriter(fstream);
-            FileWriter fstream2 = new FileWriter(inputPath+"2", true);
-        BufferedWriter out2 = new BufferedWriter(fstream2);
-    FileWriter fstream3 = new FileWriter(inputPath+"3", true);
-        BufferedWriter out3 = new BufferedWriter(fstream3);
-
-            fileReader =new FileReader(inputPath);
-
-         reader = new BufferedReader(fileReader);
-      
-        line = null;
- double cusor=0;
- double part1=0;
- double part2=0;
- double part3=0;
-
-	while ((line = reader.readLine()) != null) {
-            cusor++;
-            if (line!=null&&!line.equals("")){
-	    String[] split = split(line);
-            		split[0] = split[0].toLowerCase();
-if (part1==0){
-                    out.write(line);
-                    out.newLine();
-                    out2.write(line);
-                    out2.newLine(); 
-                    out3.write(line);
-                    out3.newLine();
-}
-		// are we dealing with an attribute?
-// start with the first line in data
-		 if (split[0].startsWith(DATA)) {
- // cuser = 0
-			 // equation to split the dataset without redundant using records
-                 double startdata=totalLinenumber-cusor;
-                 part1= (cusor+(startdata*p1));
-                 part2= ((startdata*p2)+part1);
-                 part3=((startdata*p3)+part2);
-                
-                 } 
-                 else {
-                     if (cusor<part1){
-                      out.write(line);
-                    out.newLine();
-                     }else if (cusor<part2){
-                       out2.write(line);
-                    out2.newLine();
-                     
-                     }
-                     else if (cusor<part3){
-                       out3.write(line);
-                    out3.newLine();
-                     
-                     }
-                 }
-                 
-	    }
-	}
-
-	reader.close();
-	out.close();
-	out2.close();
-	out3.close();
-
-    }
-
         
         
         
@@ -19,7 +19,11 @@
 
 package myra.datamining;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.Arrays;
+import java.util.HashMap;
 
 /**
  * This class represents an attribute of the dataset.
@@ -78,6 +82,12 @@ public final class Attribute implements Cloneable {
      */
     private String[] values;
 
+    /**
+     * Mapping of values to their indexes, only valid for nominal attributes.
+     * The mapping is created on demand and discarded when a value is added.
+     */
+    private volatile HashMap<String, Integer> indexes;
+
     /**
      * The type of the attribute.
      */
@@ -161,6 +171,7 @@ public final class Attribute implements Cloneable {
     public void add(String value) {
 	values = Arrays.copyOf(values, values.length + 1);
 	values[values.length - 1] = value;
+	indexes = null;
     }
 
     /**
@@ -202,13 +213,41 @@ public final class Attribute implements Cloneable {
      * @return the index of the specified value.
      */
     public int indexOf(String value) {
-	for (int i = 0; i < values.length; i++) {
-	    if (value.equals(values[i])) {
-		return i;
+	int index = find(value);
+
+	if (index == Dataset.MISSING_VALUE_INDEX) {
+	    throw new IllegalArgumentException("Value not found: " + value);
+	}
+
+	return index;
+    }
+
+    /**
+     * Returns the index of the specified value, or
+     * {@link Dataset#MISSING_VALUE_INDEX} if the value is not part of the
+     * domain of the attribute. When a value occurs more than once in the
+     * domain, the index of its first occurrence is returned.
+     * 
+     * @param value
+     *            the value to look up.
+     * 
+     * @return the index of the specified value.
+     */
+    public int find(String value) {
+	HashMap<String, Integer> mapping = indexes;
+
+	if (mapping == null) {
+	    mapping = new HashMap<>(values.length * 2);
+
+	    for (int i = values.length - 1; i >= 0; i--) {
+		mapping.put(values[i], i);
 	    }
+
+	    indexes = mapping;
 	}
 
-	throw new IllegalArgumentException("Value not found: " + value);
+	Integer index = mapping.get(value);
+	return (index == null) ? Dataset.MISSING_VALUE_INDEX : index;
     }
 
     /**
@@ -423,6 +462,111 @@ public final class Attribute implements Cloneable {
 	    return Double.compare(quality, o.quality);
 	}
 
+	/**
+	 * Writes the condition to the specified output. The condition can be
+	 * recreated using {@link #read(DataInput)}.
+	 * 
+	 * @param out
+	 *            the output to write to.
+	 * 
+	 * @throws IOException
+	 *             if an I/O error occurs.
+	 */
+	public void write(DataOutput out) throws IOException {
+	    write(out, value);
+	    write(out, threshold);
+	    out.writeShort(relation);
+	    out.writeDouble(entropy);
+	    out.writeInt(attribute);
+	    out.writeDouble(length);
+	    out.writeDouble(tries);
+	    out.writeBoolean(frequency != null);
+
+	    if (frequency != null) {
+		write(out, frequency);
+	    }
+
+	    out.writeInt(diversity);
+	    out.writeInt(index);
+	    out.writeDouble(quality);
+	    out.writeDouble(weight);
+	}
+
+	/**
+	 * Reads a condition written by {@link #write(DataOutput)}.
+	 * 
+	 * @param in
+	 *            the input to read from.
+	 * 
+	 * @return the condition read.
+	 * 
+	 * @throws IOException
+	 *             if an I/O error occurs.
+	 */
+	public static Condition read(DataInput in) throws IOException {
+	    Condition condition = new Condition();
+	    condition.value = readValues(in);
+	    condition.threshold = readValues(in);
+	    condition.relation = in.readShort();
+	    condition.entropy = in.readDouble();
+	    condition.attribute = in.readInt();
+	    condition.length = in.readDouble();
+	    condition.tries = in.readDouble();
+
+	    if (in.readBoolean()) {
+		condition.frequency = readValues(in);
+	    }
+
+	    condition.diversity = in.readInt();
+	    condition.index = in.readInt();
+	    condition.quality = in.readDouble();
+	    condition.weight = in.readDouble();
+
+	    return condition;
+	}
+
+	/**
+	 * Writes an array of double values, preceded by its length.
+	 * 
+	 * @param out
+	 *            the output to write to.
+	 * @param values
+	 *            the values to write.
+	 * 
+	 * @throws IOException
+	 *             if an I/O error occurs.
+	 */
+	private static void write(DataOutput out, double[] values)
+		throws IOException {
+	    out.writeInt(values.length);
+
+	    for (double v : values) {
+		out.writeDouble(v);
+	    }
+	}
+
+	/**
+	 * Reads an array of double values written by
+	 * {@link #write(DataOutput, double[])}.
+	 * 
+	 * @param in
+	 *            the input to read from.
+	 * 
+	 * @return the values read.
+	 * 
+	 * @throws IOException
+	 *             if an I/O error occurs.
+	 */
+	private static double[] readValues(DataInput in) throws IOException {
+	    double[] values = new double[in.readInt()];
+
+	    for (int i = 0; i < values.length; i++) {
+		values[i] = in.readDouble();
+	    }
+
+	    return values;
+	}
+
 	@Override
 	public String toString() {
 	    StringBuffer buffer = new StringBuffer();
@@ -0,0 +1,185 @@
+/*
+ * Batches.java
+ * (this file is part of MYRA)
+ * 
+ * Copyright 2008-2015 Fernando Esteban Barril Otero
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package myra.datamining;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+
+import myra.Config.ConfigKey;
+
+/**
+ * Sequence of batch files consumed by the streaming incremental mode. Batches
+ * are specified either as a comma-separated list of files or as a directory,
+ * in which case its files are processed in name order. Directories can also be
+ * watched for new files: the sequence ends when no new file arrives within
+ * the watch timeout.
+ * 
+ * <p>
+ * Files should be moved into a watched directory only when complete, since a
+ * file is read as soon as it is detected.
+ * </p>
+ * 
+ * @author Fernando Esteban Barril Otero
+ */
+public class Batches implements Iterator<File>, Closeable {
+    /**
+     * The config key for the path of the batches.
+     */
+    public final static ConfigKey<String> BATCHES = new ConfigKey<>();
+
+    /**
+     * The config key for the watch timeout (in seconds).
+     */
+    public final static ConfigKey<Integer> WATCH_TIMEOUT = new ConfigKey<>();
+
+    /**
+     * The batch files waiting to be processed.
+     */
+    private ArrayDeque<File> pending = new ArrayDeque<>();
+
+    /**
+     * The batch files already seen.
+     */
+    private HashSet<File> seen = new HashSet<>();
+
+    /**
+     * The watched directory, or <code>null</code> if batches are specified as
+     * a list of files.
+     */
+    private File directory;
+
+    /**
+     * The watch timeout (in seconds).
+     */
+    private int timeout;
+
+    /**
+     * The watch service, or <code>null</code> if the directory is not
+     * watched.
+     */
+    private WatchService watcher;
+
+    /**
+     * Creates a new <code>Batches</code> instance.
+     * 
+     * @param path
+     *            the path of a directory or a comma-separated list of files.
+     * @param timeout
+     *            the watch timeout (in seconds); if <code>0</code>, the
+     *            directory is not watched for new files.
+     * 
+     * @exception IOException
+     *                if an I/O error occurs.
+     */
+    public Batches(String path, int timeout) throws IOException {
+	File file = new File(path);
+	this.timeout = timeout;
+
+	if (file.isDirectory()) {
+	    directory = file;
+
+	    if (timeout > 0) {
+		watcher = directory.toPath().getFileSystem().newWatchService();
+		directory.toPath().register(watcher, ENTRY_CREATE);
+	    }
+
+	    scan();
+	} else {
+	    for (String name : path.split(",")) {
+		File batch = new File(name.trim());
+
+		if (!batch.isFile()) {
+		    throw new IllegalArgumentException("Could not open file: "
+			    + batch.getAbsolutePath());
+		}
+
+		pending.add(batch);
+	    }
+	}
+    }
+
+    /**
+     * Adds the files of the directory that have not been seen to the pending
+     * files, in name order.
+     */
+    private void scan() {
+	File[] files = directory.listFiles();
+
+	if (files != null) {
+	    Arrays.sort(files);
+
+	    for (File file : files) {
+		if (file.isFile() && !file.isHidden() && seen.add(file)) {
+		    pending.add(file);
+		}
+	    }
+	}
+    }
+
+    @Override
+    public boolean hasNext() {
+	if (pending.isEmpty() && watcher != null) {
+	    try {
+		WatchKey key = watcher.poll(timeout, TimeUnit.SECONDS);
+
+		while (key != null && pending.isEmpty()) {
+		    key.pollEvents();
+		    key.reset();
+		    scan();
+
+		    if (pending.isEmpty()) {
+			key = watcher.poll(timeout, TimeUnit.SECONDS);
+		    }
+		}
+	    } catch (InterruptedException e) {
+		Thread.currentThread().interrupt();
+	    }
+	}
+
+	return !pending.isEmpty();
+    }
+
+    @Override
+    public File next() {
+	if (!hasNext()) {
+	    throw new NoSuchElementException();
+	}
+
+	return pending.poll();
+    }
+
+    @Override
+    public void close() throws IOException {
+	if (watcher != null) {
+	    watcher.close();
+	}
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Checkpoint.java
+ * (this file is part of MYRA)
+ * 
+ * Copyright 2008-2015 Fernando Esteban Barril Otero
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package myra.datamining;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static myra.Config.CONFIG;
+import static myra.datamining.Algorithm.RANDOM_GENERATOR;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.util.Random;
+
+import myra.Config.ConfigKey;
+
+/**
+ * Binary checkpoint of the training state. A checkpoint holds the current
+ * model, the state of the random number generator and the number of
+ * datasets (batches) and instances processed so far, together with any
+ * algorithm-specific state (e.g., the pheromone values of the colony) written
+ * by {@link Algorithm#save(DataOutputStream, Model)}. Training can be resumed
+ * from a checkpoint in a new process.
+ * 
+ * <p>
+ * Checkpoints are written to a temporary file and then moved to their final
+ * location, so an interrupted write does not corrupt a previous checkpoint.
+ * </p>
+ * 
+ * @author Fernando Esteban Barril Otero
+ */
+public final class Checkpoint {
+    /**
+     * The config key for the path of the checkpoint file to write.
+     */
+    public final static ConfigKey<String> CHECKPOINT_FILE = new ConfigKey<>();
+
+    /**
+     * The config key for the path of the checkpoint file to resume from.
+     */
+    public final static ConfigKey<String> RESUME_FILE = new ConfigKey<>();
+
+    /**
+     * The magic number identifying a checkpoint file ("MYCP").
+     */
+    private static final int MAGIC = 0x4D594350;
+
+    /**
+     * The version of the checkpoint format.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The current model.
+     */
+    private final Model model;
+
+    /**
+     * The number of datasets (batches) processed.
+     */
+    private final int step;
+
+    /**
+     * The number of instances processed.
+     */
+    private final long instances;
+
+    /**
+     * Creates a new <code>Checkpoint</code>.
+     * 
+     * @param model
+     *            the current model.
+     * @param step
+     *            the number of datasets (batches) processed.
+     * @param instances
+     *            the number of instances processed.
+     */
+    public Checkpoint(Model model, int step, long instances) {
+	this.model = model;
+	this.step = step;
+	this.instances = instances;
+    }
+
+    /**
+     * Returns the current model.
+     * 
+     * @return the current model.
+     */
+    public Model model() {
+	return model;
+    }
+
+    /**
+     * Returns the number of datasets (batches) processed.
+     * 
+     * @return the number of datasets (batches) processed.
+     */
+    public int step() {
+	return step;
+    }
+
+    /**
+     * Returns the number of instances processed.
+     * 
+     * @return the number of instances processed.
+     */
+    public long instances() {
+	return instances;
+    }
+
+    /**
+     * Writes the checkpoint to the specified file. The state of the random
+     * number generator is taken from the configuration.
+     * 
+     * @param file
+     *            the checkpoint file.
+     * @param algorithm
+     *            the algorithm that writes its specific state.
+     * 
+     * @throws IOException
+     *             if an I/O error occurs.
+     */
+    public void write(File file, Algorithm algorithm) throws IOException {
+	File temporary = new File(file.getPath() + ".tmp");
+
+	try (DataOutputStream out = new DataOutputStream(
+		new BufferedOutputStream(new FileOutputStream(temporary)))) {
+	    out.writeInt(MAGIC);
+	    out.writeInt(VERSION);
+	    out.writeInt(step);
+	    out.writeLong(instances);
+
+	    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+	    try (ObjectOutputStream random = new ObjectOutputStream(bytes)) {
+		random.writeObject(CONFIG.get(RANDOM_GENERATOR));
+	    }
+
+	    out.writeInt(bytes.size());
+	    bytes.writeTo(out);
+
+	    algorithm.save(out, model);
+	}
+
+	Files.move(temporary.toPath(),
+		   file.toPath(),
+		   REPLACE_EXISTING,
+		   ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a checkpoint from the specified file. The state of the random
+     * number generator is restored in the configuration.
+     * 
+     * @param file
+     *            the checkpoint file.
+     * @param algorithm
+     *            the algorithm that reads its specific state.
+     * 
+     * @return the checkpoint read.
+     * 
+     * @throws IOException
+     *             if an I/O error occurs.
+     */
+    public static Checkpoint read(File file, Algorithm algorithm)
+	    throws IOException {
+	try (DataInputStream in = new DataInputStream(
+		new BufferedInputStream(new FileInputStream(file)))) {
+	    if (in.readInt() != MAGIC) {
+		throw new IOException("Not a checkpoint file: "
+			+ file.getAbsolutePath());
+	    }
+
+	    int version = in.readInt();
+
+	    if (version != VERSION) {
+		throw new IOException("Unsupported checkpoint version: "
+			+ version);
+	    }
+
+	    int step = in.readInt();
+	    long instances = in.readLong();
+
+	    byte[] bytes = new byte[in.readInt()];
+	    in.readFully(bytes);
+
+	    try (ObjectInputStream random =
+		    new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+		CONFIG.set(RANDOM_GENERATOR, (Random) random.readObject());
+	    } catch (ClassNotFoundException e) {
+		throw new IOException("Invalid random generator state", e);
+	    }
+
+	    return new Checkpoint(algorithm.restore(in), step, instances);
+	}
+    }
+}
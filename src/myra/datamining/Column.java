@@ -0,0 +1,779 @@
+/*
+ * Column.java
+ * (this file is part of MYRA)
+ * 
+ * Copyright 2008-2015 Fernando Esteban Barril Otero
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package myra.datamining;
+
+import static myra.datamining.Dataset.MISSING_VALUE_INDEX;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+
+/**
+ * This class represents the values of a single attribute across the instances
+ * of a dataset. Values are stored in a primitive array, which grows
+ * geometrically as instances are added. Nominal values are stored using the
+ * narrowest integral type able to represent the domain of the attribute.
+ * Columns can also be read-only views of values mapped from a snapshot file
+ * (see {@link #map(Attribute, ByteBuffer)}), in which case the values are
+ * never copied to the heap.
+ * 
+ * @see Dataset
+ * 
+ * @author Fernando Esteban Barril Otero
+ */
+public abstract class Column {
+    /**
+     * The default initial capacity of a column.
+     */
+    public static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * The number of values in the column.
+     */
+    protected int size;
+
+    /**
+     * Returns a new column to store the values of the specified attribute.
+     * 
+     * @param attribute
+     *            the attribute.
+     * @param capacity
+     *            the initial capacity of the column.
+     * 
+     * @return a new column to store the values of the specified attribute.
+     */
+    public static Column newInstance(Attribute attribute, int capacity) {
+	capacity = Math.max(capacity, 1);
+
+	switch (attribute.getType()) {
+	case NOMINAL:
+	    if (attribute.length() <= Byte.MAX_VALUE) {
+		return new ByteColumn(capacity);
+	    } else if (attribute.length() <= Short.MAX_VALUE) {
+		return new ShortColumn(capacity);
+	    }
+
+	    return new IntColumn(capacity);
+
+	case CONTINUOUS:
+	    return new Continuous(capacity);
+
+	default:
+	    throw new IllegalArgumentException("Unsupported attribute type: "
+		    + attribute.getType());
+	}
+    }
+
+    /**
+     * Returns a new read-only column backed by the specified buffer, which
+     * holds the values of the specified attribute encoded as written by
+     * {@link #write(ByteBuffer, int, int)}. The values are not copied; the
+     * size of the column is given by the remaining bytes of the buffer.
+     * 
+     * @param attribute
+     *            the attribute.
+     * @param buffer
+     *            the buffer holding the values.
+     * 
+     * @return a new read-only column backed by the specified buffer.
+     */
+    static Column map(Attribute attribute, ByteBuffer buffer) {
+	switch (width(attribute)) {
+	case 1:
+	    return new ByteColumn(buffer.slice());
+	case 2:
+	    return new ShortColumn(buffer.asShortBuffer());
+	case 4:
+	    return new IntColumn(buffer.asIntBuffer());
+	default:
+	    return new Continuous(buffer.asDoubleBuffer());
+	}
+    }
+
+    /**
+     * Returns the number of bytes used to encode each value of the specified
+     * attribute, which is the width of the columns created by
+     * {@link #newInstance(Attribute, int)}.
+     * 
+     * @param attribute
+     *            the attribute.
+     * 
+     * @return the number of bytes used to encode each value of the specified
+     *         attribute.
+     */
+    static int width(Attribute attribute) {
+	switch (attribute.getType()) {
+	case NOMINAL:
+	    if (attribute.length() <= Byte.MAX_VALUE) {
+		return 1;
+	    } else if (attribute.length() <= Short.MAX_VALUE) {
+		return 2;
+	    }
+
+	    return 4;
+
+	case CONTINUOUS:
+	    return 8;
+
+	default:
+	    throw new IllegalArgumentException("Unsupported attribute type: "
+		    + attribute.getType());
+	}
+    }
+
+    /**
+     * Returns the number of values in the column.
+     * 
+     * @return the number of values in the column.
+     */
+    public final int size() {
+	return size;
+    }
+
+    /**
+     * Returns the value at the specified index.
+     * 
+     * @param index
+     *            the instance index.
+     * 
+     * @return the value at the specified index.
+     */
+    public abstract double value(int index);
+
+    /**
+     * Adds a value to the end of the column.
+     * 
+     * @param value
+     *            the value to add.
+     */
+    public abstract void add(double value);
+
+    /**
+     * Increases the capacity of the column, if necessary, to hold at least the
+     * specified number of values.
+     * 
+     * @param capacity
+     *            the desired minimum capacity.
+     */
+    public abstract void ensureCapacity(int capacity);
+
+    /**
+     * Returns a new column containing the values at the specified indexes, in
+     * the order they appear in the <code>indexes</code> array.
+     * 
+     * @param indexes
+     *            the indexes of the values to select.
+     * @param length
+     *            the number of indexes to consider.
+     * 
+     * @return a new column containing the values at the specified indexes.
+     */
+    public abstract Column select(int[] indexes, int length);
+
+    /**
+     * Adds all values of the specified column to the end of this column. The
+     * column must be of the same type as this column.
+     * 
+     * @param column
+     *            the column to add.
+     */
+    public abstract void addAll(Column column);
+
+    /**
+     * Returns the number of bytes used to encode each value of the column.
+     * 
+     * @return the number of bytes used to encode each value of the column.
+     */
+    abstract int width();
+
+    /**
+     * Writes the values in the specified range to the buffer.
+     * 
+     * @param buffer
+     *            the buffer to write the values to.
+     * @param offset
+     *            the index of the first value to write.
+     * @param length
+     *            the number of values to write.
+     */
+    abstract void write(ByteBuffer buffer, int offset, int length);
+
+    /**
+     * Reads values from the buffer and adds them to the end of the column.
+     * 
+     * @param buffer
+     *            the buffer to read the values from.
+     * @param length
+     *            the number of values to read.
+     */
+    abstract void read(ByteBuffer buffer, int length);
+
+    /**
+     * Returns the new capacity of a backing array when it needs to hold at
+     * least <code>minimum</code> values.
+     * 
+     * @param current
+     *            the current capacity.
+     * @param minimum
+     *            the minimum capacity required.
+     * 
+     * @return the new capacity of the backing array.
+     */
+    protected static int grow(int current, int minimum) {
+	int capacity = Math.max(current + (current >> 1), DEFAULT_CAPACITY);
+	return Math.max(capacity, minimum);
+    }
+
+    /**
+     * Checks that a column can be modified, i.e., that it is not a read-only
+     * view of mapped values.
+     * 
+     * @param mapped
+     *            the mapped values of the column, or <code>null</code>.
+     */
+    static void checkWritable(Buffer mapped) {
+	if (mapped != null) {
+	    throw new UnsupportedOperationException("Mapped columns are "
+		    + "read-only");
+	}
+    }
+
+    /**
+     * Column of continuous values.
+     */
+    public static final class Continuous extends Column {
+	/**
+	 * The backing array of values, or <code>null</code> if the column is
+	 * mapped.
+	 */
+	private double[] values;
+
+	/**
+	 * The mapped values, or <code>null</code> if the column is backed by
+	 * an array.
+	 */
+	private final DoubleBuffer mapped;
+
+	/**
+	 * Creates a new <code>Continuous</code> column.
+	 * 
+	 * @param capacity
+	 *            the initial capacity of the column.
+	 */
+	public Continuous(int capacity) {
+	    values = new double[capacity];
+	    mapped = null;
+	}
+
+	/**
+	 * Creates a new read-only <code>Continuous</code> backed by the
+	 * specified mapped values.
+	 * 
+	 * @param mapped
+	 *            the mapped values.
+	 */
+	Continuous(DoubleBuffer mapped) {
+	    this.mapped = mapped;
+	    size = mapped.remaining();
+	}
+
+	/**
+	 * Returns the backing array of values. Note that only the first
+	 * {@link #size()} positions of the array are valid.
+	 * 
+	 * @return the backing array of values.
+	 * 
+	 * @throws IllegalStateException
+	 *             if the column is mapped.
+	 */
+	public double[] values() {
+	    if (mapped != null) {
+		throw new IllegalStateException("Mapped columns have no "
+			+ "backing array");
+	    }
+
+	    return values;
+	}
+
+	@Override
+	public double value(int index) {
+	    return mapped == null ? values[index] : mapped.get(index);
+	}
+
+	@Override
+	public void add(double value) {
+	    checkWritable(mapped);
+
+	    if (size == values.length) {
+		values = Arrays.copyOf(values, grow(values.length, size + 1));
+	    }
+
+	    values[size++] = value;
+	}
+
+	@Override
+	public void ensureCapacity(int capacity) {
+	    checkWritable(mapped);
+
+	    if (capacity > values.length) {
+		values = Arrays.copyOf(values, capacity);
+	    }
+	}
+
+	@Override
+	public Column select(int[] indexes, int length) {
+	    Continuous column = new Continuous(Math.max(length, 1));
+
+	    for (int i = 0; i < length; i++) {
+		column.values[i] = value(indexes[i]);
+	    }
+
+	    column.size = length;
+	    return column;
+	}
+
+	@Override
+	public void addAll(Column column) {
+	    Continuous other = (Continuous) column;
+	    ensureCapacity(size + other.size);
+
+	    if (other.mapped == null) {
+		System.arraycopy(other.values, 0, values, size, other.size);
+	    } else {
+		other.mapped.duplicate().get(values, size, other.size);
+	    }
+
+	    size += other.size;
+	}
+
+	@Override
+	int width() {
+	    return 8;
+	}
+
+	@Override
+	void write(ByteBuffer buffer, int offset, int length) {
+	    if (mapped == null) {
+		buffer.asDoubleBuffer().put(values, offset, length);
+	    } else {
+		DoubleBuffer source = mapped.duplicate();
+		source.limit(offset + length);
+		source.position(offset);
+		buffer.asDoubleBuffer().put(source);
+	    }
+	    buffer.position(buffer.position() + (length * 8));
+	}
+
+	@Override
+	void read(ByteBuffer buffer, int length) {
+	    ensureCapacity(size + length);
+	    buffer.asDoubleBuffer().get(values, size, length);
+	    buffer.position(buffer.position() + (length * 8));
+	    size += length;
+	}
+    }
+
+    /**
+     * Base class for columns of nominal values. Values are represented by the
+     * index of the value in the attribute domain, where
+     * {@link Dataset#MISSING_VALUE_INDEX} represents a missing value.
+     */
+    public static abstract class Nominal extends Column {
+	/**
+	 * Returns the index of the nominal value at the specified index.
+	 * 
+	 * @param index
+	 *            the instance index.
+	 * 
+	 * @return the index of the nominal value at the specified index.
+	 */
+	public abstract int code(int index);
+
+	/**
+	 * Adds the index of a nominal value to the end of the column.
+	 * 
+	 * @param code
+	 *            the index of the nominal value to add.
+	 */
+	public abstract void add(int code);
+
+	@Override
+	public final double value(int index) {
+	    return code(index);
+	}
+
+	@Override
+	public final void add(double value) {
+	    add(Double.isNaN(value) ? MISSING_VALUE_INDEX : (int) value);
+	}
+    }
+
+    /**
+     * Nominal column backed by a <code>byte</code> array.
+     */
+    static final class ByteColumn extends Nominal {
+	/**
+	 * The backing array of values, or <code>null</code> if the column is
+	 * mapped.
+	 */
+	private byte[] values;
+
+	/**
+	 * The mapped values, or <code>null</code> if the column is backed by
+	 * an array.
+	 */
+	private final ByteBuffer mapped;
+
+	/**
+	 * Creates a new <code>ByteColumn</code>.
+	 * 
+	 * @param capacity
+	 *            the initial capacity of the column.
+	 */
+	ByteColumn(int capacity) {
+	    values = new byte[capacity];
+	    mapped = null;
+	}
+
+	/**
+	 * Creates a new read-only <code>ByteColumn</code> backed by the
+	 * specified mapped values.
+	 * 
+	 * @param mapped
+	 *            the mapped values.
+	 */
+	ByteColumn(ByteBuffer mapped) {
+	    this.mapped = mapped;
+	    size = mapped.remaining();
+	}
+
+	@Override
+	public int code(int index) {
+	    return mapped == null ? values[index] : mapped.get(index);
+	}
+
+	@Override
+	public void add(int code) {
+	    checkWritable(mapped);
+
+	    if (size == values.length) {
+		values = Arrays.copyOf(values, grow(values.length, size + 1));
+	    }
+
+	    values[size++] = (byte) code;
+	}
+
+	@Override
+	public void ensureCapacity(int capacity) {
+	    checkWritable(mapped);
+
+	    if (capacity > values.length) {
+		values = Arrays.copyOf(values, capacity);
+	    }
+	}
+
+	@Override
+	public Column select(int[] indexes, int length) {
+	    ByteColumn column = new ByteColumn(Math.max(length, 1));
+
+	    for (int i = 0; i < length; i++) {
+		column.values[i] = (byte) code(indexes[i]);
+	    }
+
+	    column.size = length;
+	    return column;
+	}
+
+	@Override
+	public void addAll(Column column) {
+	    ByteColumn other = (ByteColumn) column;
+	    ensureCapacity(size + other.size);
+
+	    if (other.mapped == null) {
+		System.arraycopy(other.values, 0, values, size, other.size);
+	    } else {
+		other.mapped.duplicate().get(values, size, other.size);
+	    }
+
+	    size += other.size;
+	}
+
+	@Override
+	int width() {
+	    return 1;
+	}
+
+	@Override
+	void write(ByteBuffer buffer, int offset, int length) {
+	    if (mapped == null) {
+		buffer.put(values, offset, length);
+	    } else {
+		ByteBuffer source = mapped.duplicate();
+		source.limit(offset + length);
+		source.position(offset);
+		buffer.put(source);
+	    }
+	}
+
+	@Override
+	void read(ByteBuffer buffer, int length) {
+	    ensureCapacity(size + length);
+	    buffer.get(values, size, length);
+	    size += length;
+	}
+    }
+
+    /**
+     * Nominal column backed by a <code>short</code> array.
+     */
+    static final class ShortColumn extends Nominal {
+	/**
+	 * The backing array of values, or <code>null</code> if the column is
+	 * mapped.
+	 */
+	private short[] values;
+
+	/**
+	 * The mapped values, or <code>null</code> if the column is backed by
+	 * an array.
+	 */
+	private final ShortBuffer mapped;
+
+	/**
+	 * Creates a new <code>ShortColumn</code>.
+	 * 
+	 * @param capacity
+	 *            the initial capacity of the column.
+	 */
+	ShortColumn(int capacity) {
+	    values = new short[capacity];
+	    mapped = null;
+	}
+
+	/**
+	 * Creates a new read-only <code>ShortColumn</code> backed by the
+	 * specified mapped values.
+	 * 
+	 * @param mapped
+	 *            the mapped values.
+	 */
+	ShortColumn(ShortBuffer mapped) {
+	    this.mapped = mapped;
+	    size = mapped.remaining();
+	}
+
+	@Override
+	public int code(int index) {
+	    return mapped == null ? values[index] : mapped.get(index);
+	}
+
+	@Override
+	public void add(int code) {
+	    checkWritable(mapped);
+
+	    if (size == values.length) {
+		values = Arrays.copyOf(values, grow(values.length, size + 1));
+	    }
+
+	    values[size++] = (short) code;
+	}
+
+	@Override
+	public void ensureCapacity(int capacity) {
+	    checkWritable(mapped);
+
+	    if (capacity > values.length) {
+		values = Arrays.copyOf(values, capacity);
+	    }
+	}
+
+	@Override
+	public Column select(int[] indexes, int length) {
+	    ShortColumn column = new ShortColumn(Math.max(length, 1));
+
+	    for (int i = 0; i < length; i++) {
+		column.values[i] = (short) code(indexes[i]);
+	    }
+
+	    column.size = length;
+	    return column;
+	}
+
+	@Override
+	public void addAll(Column column) {
+	    ShortColumn other = (ShortColumn) column;
+	    ensureCapacity(size + other.size);
+
+	    if (other.mapped == null) {
+		System.arraycopy(other.values, 0, values, size, other.size);
+	    } else {
+		other.mapped.duplicate().get(values, size, other.size);
+	    }
+
+	    size += other.size;
+	}
+
+	@Override
+	int width() {
+	    return 2;
+	}
+
+	@Override
+	void write(ByteBuffer buffer, int offset, int length) {
+	    if (mapped == null) {
+		buffer.asShortBuffer().put(values, offset, length);
+	    } else {
+		ShortBuffer source = mapped.duplicate();
+		source.limit(offset + length);
+		source.position(offset);
+		buffer.asShortBuffer().put(source);
+	    }
+	    buffer.position(buffer.position() + (length * 2));
+	}
+
+	@Override
+	void read(ByteBuffer buffer, int length) {
+	    ensureCapacity(size + length);
+	    buffer.asShortBuffer().get(values, size, length);
+	    buffer.position(buffer.position() + (length * 2));
+	    size += length;
+	}
+    }
+
+    /**
+     * Nominal column backed by an <code>int</code> array.
+     */
+    static final class IntColumn extends Nominal {
+	/**
+	 * The backing array of values, or <code>null</code> if the column is
+	 * mapped.
+	 */
+	private int[] values;
+
+	/**
+	 * The mapped values, or <code>null</code> if the column is backed by
+	 * an array.
+	 */
+	private final IntBuffer mapped;
+
+	/**
+	 * Creates a new <code>IntColumn</code>.
+	 * 
+	 * @param capacity
+	 *            the initial capacity of the column.
+	 */
+	IntColumn(int capacity) {
+	    values = new int[capacity];
+	    mapped = null;
+	}
+
+	/**
+	 * Creates a new read-only <code>IntColumn</code> backed by the
+	 * specified mapped values.
+	 * 
+	 * @param mapped
+	 *            the mapped values.
+	 */
+	IntColumn(IntBuffer mapped) {
+	    this.mapped = mapped;
+	    size = mapped.remaining();
+	}
+
+	@Override
+	public int code(int index) {
+	    return mapped == null ? values[index] : mapped.get(index);
+	}
+
+	@Override
+	public void add(int code) {
+	    checkWritable(mapped);
+
+	    if (size == values.length) {
+		values = Arrays.copyOf(values, grow(values.length, size + 1));
+	    }
+
+	    values[size++] = code;
+	}
+
+	@Override
+	public void ensureCapacity(int capacity) {
+	    checkWritable(mapped);
+
+	    if (capacity > values.length) {
+		values = Arrays.copyOf(values, capacity);
+	    }
+	}
+
+	@Override
+	public Column select(int[] indexes, int length) {
+	    IntColumn column = new IntColumn(Math.max(length, 1));
+
+	    for (int i = 0; i < length; i++) {
+		column.values[i] = code(indexes[i]);
+	    }
+
+	    column.size = length;
+	    return column;
+	}
+
+	@Override
+	public void addAll(Column column) {
+	    IntColumn other = (IntColumn) column;
+	    ensureCapacity(size + other.size);
+
+	    if (other.mapped == null) {
+		System.arraycopy(other.values, 0, values, size, other.size);
+	    } else {
+		other.mapped.duplicate().get(values, size, other.size);
+	    }
+
+	    size += other.size;
+	}
+
+	@Override
+	int width() {
+	    return 4;
+	}
+
+	@Override
+	void write(ByteBuffer buffer, int offset, int length) {
+	    if (mapped == null) {
+		buffer.asIntBuffer().put(values, offset, length);
+	    } else {
+		IntBuffer source = mapped.duplicate();
+		source.limit(offset + length);
+		source.position(offset);
+		buffer.asIntBuffer().put(source);
+	    }
+	    buffer.position(buffer.position() + (length * 4));
+	}
+
+	@Override
+	void read(ByteBuffer buffer, int length) {
+	    ensureCapacity(size + length);
+	    buffer.asIntBuffer().get(values, size, length);
+	    buffer.position(buffer.position() + (length * 4));
+	    size += length;
+	}
+    }
+}
@@ -19,14 +19,14 @@
 
 package myra.datamining;
 
-import static myra.Config.CONFIG;
 import static myra.datamining.Attribute.Type.CONTINUOUS;
 import static myra.datamining.Attribute.Type.NOMINAL;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 
-import myra.classification.Classifier;
+import myra.util.RandomStreams;
+
 
 /**
  * This class represents the data.
@@ -70,10 +70,17 @@ public final class Dataset {
     private Attribute[] attributes;
 
     /**
-     * The instances of the dataset, represented as an array. Each instance has
-     * the length of <code>attributes.length</code>.
+     * The instances of the dataset, represented as one column per attribute.
+     * The columns are only created when the first instance is added, since
+     * the type of a nominal column depends on the size of the attribute
+     * domain.
+     */
+    private Column[] columns;
+
+    /**
+     * The number of instances in the dataset.
      */
-    private double[] instances;
+    private int size;
 
     /**
      * Class frequency distribution (only valid for classification problems).
@@ -90,11 +97,79 @@ public final class Dataset {
      */
     public Dataset() {
 	attributes = new Attribute[0];
-	instances = new double[0];
+	columns = null;
+	size = 0;
 	distribution = new double[0];
 	mean = 0;
     }
 
+    /**
+     * Returns the column holding the values of the specified attribute.
+     * 
+     * @param attribute
+     *            the attribute index.
+     * 
+     * @return the column holding the values of the specified attribute.
+     */
+    public Column column(int attribute) {
+	return columns()[attribute];
+    }
+
+    /**
+     * Returns the column holding the values of the specified nominal
+     * attribute.
+     * 
+     * @param attribute
+     *            the attribute index.
+     * 
+     * @return the column holding the values of the specified nominal
+     *         attribute.
+     */
+    public Column.Nominal nominal(int attribute) {
+	return (Column.Nominal) columns()[attribute];
+    }
+
+    /**
+     * Returns the column holding the values of the specified continuous
+     * attribute.
+     * 
+     * @param attribute
+     *            the attribute index.
+     * 
+     * @return the column holding the values of the specified continuous
+     *         attribute.
+     */
+    public Column.Continuous continuous(int attribute) {
+	return (Column.Continuous) columns()[attribute];
+    }
+
+    /**
+     * Returns the columns of the dataset, creating them if needed.
+     * 
+     * @return the columns of the dataset.
+     */
+    private Column[] columns() {
+	if (columns == null) {
+	    allocate(Column.DEFAULT_CAPACITY);
+	}
+
+	return columns;
+    }
+
+    /**
+     * Creates the columns of the dataset with the specified initial capacity.
+     * 
+     * @param capacity
+     *            the initial capacity of each column.
+     */
+    private void allocate(int capacity) {
+	columns = new Column[attributes.length];
+
+	for (int i = 0; i < attributes.length; i++) {
+	    columns[i] = Column.newInstance(attributes[i], capacity);
+	}
+    }
+
     /**
      * Returns the attribute of the dataset at the specified index.
      * 
@@ -168,7 +243,7 @@ public final class Dataset {
      * @return the number of instances in the dataset.
      */
     public final int size() {
-	return (instances.length / attributes.length);
+	return size;
     }
 
     /**
@@ -182,10 +257,11 @@ public final class Dataset {
      *         specified class value.
      */
     public final int size(int value) {
+	Column.Nominal target = nominal(classIndex());
 	int count = 0;
 
-	for (int i = 0; i < size(); i++) {
-	    if (instances[(i * attributes.length) + classIndex()] == value) {
+	for (int i = 0; i < size; i++) {
+	    if (target.code(i) == value) {
 		count++;
 	    }
 	}
@@ -200,7 +276,7 @@ public final class Dataset {
      *            the attribute to add.
      */
     public void add(Attribute attribute) {
-	if (instances.length > 0) {
+	if (size > 0) {
 	    throw new IllegalStateException("Dataset metadata cannot"
 		    + " change after adding instances.");
 	}
@@ -210,6 +286,8 @@ public final class Dataset {
 
 	attributes[index] = attribute;
 	attribute.setIndex(index);
+	// columns are recreated using the new metadata
+	columns = null;
     }
 
     /**
@@ -240,14 +318,7 @@ public final class Dataset {
 	    } else if (attributes[i].getType() == CONTINUOUS) {
 		instance[i] = Double.parseDouble(values[i]);
 	    } else if (attributes[i].getType() == NOMINAL) {
-		int index = MISSING_VALUE_INDEX;
-
-		for (int j = 0; j < attributes[i].values().length; j++) {
-		    if (values[i].equals(attributes[i].value(j))) {
-			index = j;
-			break;
-		    }
-		}
+		int index = attributes[i].find(values[i]);
 
 		// sanity check: did we find the value that we are looking
 		// for or not?
@@ -276,12 +347,13 @@ public final class Dataset {
 		    + values.length + " (expected " + attributes.length + ")");
 	}
 
-	int offset = instances.length;
+	Column[] columns = columns();
 
-	instances =
-		Arrays.copyOf(instances, instances.length + attributes.length);
+	for (int i = 0; i < values.length; i++) {
+	    columns[i].add(values[i]);
+	}
 
-	System.arraycopy(values, 0, instances, offset, values.length);
+	size++;
 
 	// increments the class distribution
 	// (if dealing with a classification problem)
@@ -316,11 +388,11 @@ public final class Dataset {
      */
     public double[] get(int index) {
 	double[] values = new double[attributes.length];
-	System.arraycopy(instances,
-			 index * values.length,
-			 values,
-			 0,
-			 values.length);
+	Column[] columns = columns();
+
+	for (int i = 0; i < values.length; i++) {
+	    values[i] = columns[i].value(index);
+	}
 
 	return values;
     }
@@ -334,44 +406,37 @@ public final class Dataset {
      * @return the size of the dataset after the removal of the instances.
      */
     public int remove(int... indexes) {
-	double[] resized = new double[instances.length
-		- (indexes.length * attributes.length)];
+	boolean[] removed = new boolean[size];
 
-	int current = 0;
-	int target = 0;
-
-	for (int removed : indexes) {
+	for (int index : indexes) {
 	    if (attributes[classIndex()].getType() == NOMINAL) {
 		// updates the class frequency
-		distribution[(int) value(removed * attributes.length,
-					 classIndex())]--;
+		distribution[(int) value(index, classIndex())]--;
 	    } else if (attributes[classIndex()].getType() == CONTINUOUS) {
 		// updates the mean
-		mean -= distribution[(int) value(removed * attributes.length,
-						 classIndex())];
+		mean -= value(index, classIndex());
 	    }
 
-	    if (current == removed) {
-		current++;
-	    } else {
-		int length = (removed - current) * attributes.length;
-		int source = current * attributes.length;
+	    removed[index] = true;
+	}
 
-		System.arraycopy(instances, source, resized, target, length);
+	int[] selected = new int[size];
+	int length = 0;
 
-		target += length;
-		current = removed + 1;
+	for (int i = 0; i < size; i++) {
+	    if (!removed[i]) {
+		selected[length] = i;
+		length++;
 	    }
 	}
 
-	if (target != resized.length) {
-	    int length = resized.length - target;
-	    int source = current * attributes.length;
+	Column[] columns = columns();
 
-	    System.arraycopy(instances, source, resized, target, length);
+	for (int i = 0; i < columns.length; i++) {
+	    columns[i] = columns[i].select(selected, length);
 	}
 
-	this.instances = resized;
+	size = length;
 
 	return size();
     }
@@ -389,14 +454,13 @@ public final class Dataset {
      * @return the index of the majority class.
      */
     public int findMajority(Instance[] instances, byte flag) {
-	int classIndex = classIndex();
+	Column.Nominal target = nominal(classIndex());
 	double[] frequencies =
-		new double[attributes[classIndex].values().length];
+		new double[attributes[classIndex()].values().length];
 
-	for (int i = 0; i < size(); i++) {
+	for (int i = 0; i < size; i++) {
 	    if (instances[i].flag == flag) {
-		int index = (i * attributes.length) + classIndex;
-		frequencies[(int) this.instances[index]] += instances[i].weight;
+		frequencies[target.code(i)] += instances[i].weight;
 	    }
 	}
 
@@ -436,7 +500,7 @@ public final class Dataset {
 		majority = bias;
 	    } else {
 		majority =
-			candidates.get(CONFIG.get(Classifier.RANDOM_GENERATOR)
+			candidates.get(RandomStreams.current()
 				.nextInt(candidates.size()));
 	    }
 	}
@@ -534,7 +598,49 @@ public final class Dataset {
      * @return the attribute value of a given instance.
      */
     public double value(int instance, int attribute) {
-	return instances[(instance * attributes.length) + attribute];
+	return columns[attribute].value(instance);
+    }
+
+    /**
+     * Computes the class frequency distribution (or the sum of the target
+     * values) of the instances of the dataset.
+     * 
+     * @param bounds
+     *            indicates whether the lower and upper bounds of continuous
+     *            attributes should also be updated.
+     */
+    private void summarise(boolean bounds) {
+	Column[] columns = columns();
+	Attribute target = attributes[classIndex()];
+
+	if (target.getType() == NOMINAL) {
+	    Column.Nominal column = (Column.Nominal) columns[classIndex()];
+	    distribution = new double[classLength()];
+
+	    for (int i = 0; i < size; i++) {
+		distribution[column.code(i)]++;
+	    }
+	} else if (target.getType() == CONTINUOUS) {
+	    Column.Continuous values = continuous(classIndex());
+	    mean = 0;
+
+	    for (int i = 0; i < size; i++) {
+		mean += values.value(i);
+	    }
+	}
+
+	if (bounds) {
+	    for (int i = 0; i < attributes.length; i++) {
+		if (attributes[i].getType() == CONTINUOUS) {
+		    Column.Continuous values = continuous(i);
+
+		    for (int j = 0; j < size; j++) {
+			attributes[i].lower(values.value(j));
+			attributes[i].upper(values.value(j));
+		    }
+		}
+	    }
+	}
     }
    
     /**
@@ -579,11 +685,12 @@ public final class Dataset {
     public static int markCorrect(Dataset dataset,
 				  Instance[] covered,
 				  int predicted) {
+	Column.Nominal target = dataset.nominal(dataset.classIndex());
 	int marked = 0;
 
 	for (int j = 0; j < covered.length; j++) {
 	    if (covered[j].flag == RULE_COVERED) {
-		if (dataset.value(j, dataset.classIndex()) == predicted) {
+		if (target.code(j) == predicted) {
 		    covered[j].flag = COVERED;
 		    marked++;
 		} else {
@@ -611,30 +718,227 @@ public final class Dataset {
     public static Dataset filter(Dataset dataset,
 				 Instance[] covered,
 				 int flag) {
+	int[] selected = new int[dataset.size];
+	int length = 0;
+
+	for (int i = 0; i < dataset.size; i++) {
+	    if (covered[i].flag == flag) {
+		selected[length] = i;
+		length++;
+	    }
+	}
+
 	Dataset clone = new Dataset();
 	clone.attributes = dataset.attributes.clone();
 	clone.name = dataset.name;
+	clone.columns = new Column[clone.attributes.length];
 
-	for (int i = 0; i < dataset.size(); i++) {
-	    if (covered[i].flag == flag) {
-		int start = clone.instances.length;
-		int length = dataset.attributes.length;
-
-		clone.instances =
-			Arrays.copyOf(clone.instances,
-				      start + clone.attributes.length);
-
-		System.arraycopy(dataset.instances,
-				 (i * length),
-				 clone.instances,
-				 start,
-				 length);
-	    }
+	for (int i = 0; i < clone.columns.length; i++) {
+	    clone.columns[i] = dataset.columns()[i].select(selected, length);
 	}
 
+	clone.size = length;
+	clone.summarise(false);
+
 	return clone;
     }
 
+    /**
+     * Returns a new dataset containing the instances at the specified indexes,
+     * in the order they appear in the <code>indexes</code> array. The new
+     * dataset has its own copy of the attributes, with lower and upper bounds
+     * computed from the selected instances only.
+     * 
+     * @param dataset
+     *            the dataset to select the instances from.
+     * @param indexes
+     *            the indexes of the instances to select.
+     * 
+     * @return a new dataset containing the instances at the specified
+     *         indexes.
+     */
+    public static Dataset select(Dataset dataset, int[] indexes) {
+	Dataset selection = new Dataset();
+	selection.name = dataset.name;
+
+	for (Attribute attribute : dataset.attributes) {
+	    Attribute copy =
+		    new Attribute(attribute.getType(), attribute.getName());
+
+	    for (String value : attribute.values()) {
+		copy.add(value);
+	    }
+
+	    selection.add(copy);
+	}
+
+	selection.columns = new Column[selection.attributes.length];
+
+	for (int i = 0; i < selection.columns.length; i++) {
+	    selection.columns[i] =
+		    dataset.columns()[i].select(indexes, indexes.length);
+	}
+
+	selection.size = indexes.length;
+	selection.summarise(true);
+
+	return selection;
+    }
+
+    /**
+     * Builder of datasets. The columns of the dataset are allocated upfront
+     * using the expected number of instances, and the class distribution and
+     * the attribute bounds are computed once when the dataset is built.
+     */
+    public static final class Builder {
+	/**
+	 * The dataset being built.
+	 */
+	private Dataset dataset;
+
+	/**
+	 * Creates a new <code>Builder</code>.
+	 * 
+	 * @param header
+	 *            the dataset providing the name and attributes of the
+	 *            dataset to build.
+	 * @param capacity
+	 *            the expected number of instances.
+	 */
+	public Builder(Dataset header, int capacity) {
+	    dataset = new Dataset();
+	    dataset.name = header.name;
+	    dataset.attributes = header.attributes;
+	    dataset.allocate(capacity);
+	}
+
+	/**
+	 * Creates a new builder for a dataset holding the instances represented
+	 * by the specified columns. The columns are used by the dataset without
+	 * being copied, so they must not be modified by the caller. There must
+	 * be one column per attribute, each holding <code>size</code> values.
+	 * 
+	 * @param header
+	 *            the dataset providing the name and attributes of the
+	 *            dataset to build.
+	 * @param columns
+	 *            the columns holding the values of the instances.
+	 * @param size
+	 *            the number of instances.
+	 */
+	Builder(Dataset header, Column[] columns, int size) {
+	    if (columns.length != header.attributes.length) {
+		throw new IllegalArgumentException("Invalid number of columns: "
+			+ columns.length + " (expected "
+			+ header.attributes.length + ")");
+	    }
+
+	    dataset = new Dataset();
+	    dataset.name = header.name;
+	    dataset.attributes = header.attributes;
+	    dataset.columns = columns;
+	    dataset.size = size;
+	}
+
+	/**
+	 * Adds an instance to the dataset being built. The values are copied,
+	 * so the array can be reused by the caller.
+	 * 
+	 * @param values
+	 *            the values of the instance to add.
+	 * 
+	 * @return this builder.
+	 */
+	public Builder add(double[] values) {
+	    if (values.length != dataset.attributes.length) {
+		throw new IllegalArgumentException("Invalid instance length: "
+			+ values.length + " (expected "
+			+ dataset.attributes.length + ")");
+	    }
+
+	    for (int i = 0; i < values.length; i++) {
+		dataset.columns[i].add(values[i]);
+	    }
+
+	    dataset.size++;
+
+	    return this;
+	}
+
+	/**
+	 * Adds all instances of the specified builder to the dataset being
+	 * built, preserving their order. The builders must share the same
+	 * attributes.
+	 * 
+	 * @param builder
+	 *            the builder holding the instances to add.
+	 * 
+	 * @return this builder.
+	 */
+	public Builder addAll(Builder builder) {
+	    if (builder.dataset.attributes != dataset.attributes) {
+		throw new IllegalArgumentException("Incompatible attributes.");
+	    }
+
+	    return addAll(builder.dataset.columns, builder.dataset.size);
+	}
+
+	/**
+	 * Adds the instances represented by the specified columns to the
+	 * dataset being built. There must be one column per attribute, each
+	 * holding <code>size</code> values.
+	 * 
+	 * @param columns
+	 *            the columns holding the values of the instances.
+	 * @param size
+	 *            the number of instances.
+	 * 
+	 * @return this builder.
+	 */
+	Builder addAll(Column[] columns, int size) {
+	    if (columns.length != dataset.columns.length) {
+		throw new IllegalArgumentException("Invalid number of columns: "
+			+ columns.length + " (expected "
+			+ dataset.columns.length + ")");
+	    }
+
+	    for (int i = 0; i < dataset.columns.length; i++) {
+		dataset.columns[i].addAll(columns[i]);
+	    }
+
+	    dataset.size += size;
+
+	    return this;
+	}
+
+	/**
+	 * Returns the number of instances added so far.
+	 * 
+	 * @return the number of instances added so far.
+	 */
+	public int size() {
+	    return dataset.size;
+	}
+
+	/**
+	 * Returns the dataset. The builder should not be used after this
+	 * method is called.
+	 * 
+	 * @return the dataset.
+	 */
+	public Dataset build() {
+	    if (dataset == null) {
+		throw new IllegalStateException("Dataset already built.");
+	    }
+
+	    Dataset built = dataset;
+	    built.summarise(true);
+	    dataset = null;
+
+	    return built;
+	}
+    }
+
     /**
      * Struct-like class to hold the information about an instance.
      */
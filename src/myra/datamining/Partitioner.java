@@ -22,10 +22,11 @@ package myra.datamining;
 import static myra.Config.CONFIG;
 import static myra.datamining.Algorithm.RANDOM_GENERATOR;
 import static myra.datamining.Dataset.COVERED;
+import static myra.datamining.Dataset.MISSING_VALUE_INDEX;
 import static myra.datamining.Dataset.NOT_COVERED;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Random;
 
 import myra.datamining.Dataset.Instance;
 
@@ -46,9 +47,9 @@ public class Partitioner {
     private Dataset dataset;
 
     /**
-     * The dataset partitions.
+     * The partition of each instance of the dataset.
      */
-    private Instance[][] partitions;
+    private int[] assignment;
 
     /**
      * Default constructor.
@@ -61,63 +62,26 @@ public class Partitioner {
     public Partitioner(Dataset dataset, int slices) {
 	this.size = slices;
 	this.dataset = dataset;
-	partitions = new Instance[slices][];
     }
 
     /**
      * Partitions the dataset respecting the class attribute values' frequency.
+     * The instances of each class value are shuffled and dealt to the
+     * partitions in turn, continuing from the partition where the previous
+     * class value stopped.
      */
     public void stratified() {
-	HashMap<Integer, ArrayList<Integer>> instances =
-		new HashMap<Integer, ArrayList<Integer>>();
-
-	for (int i = 0; i < dataset.size(); i++) {
-	    int klass = (int) dataset.value(i, dataset.classIndex());
-	    ArrayList<Integer> indexes = instances.get(klass);
-
-	    if (indexes == null) {
-		indexes = new ArrayList<Integer>();
-		instances.put(klass, indexes);
-	    }
-
-	    indexes.add(i);
-	}
-
-	for (int i = 0; i < partitions.length; i++) {
-	    partitions[i] = Instance.newArray(dataset.size());
-	    Instance.markAll(partitions[i], COVERED);
-	}
-
+	assignment = new int[dataset.size()];
 	int current = 0;
 
-	for (int i = 0; i < instances.size(); i++) {
-	    ArrayList<Integer> indexes = instances.get(i);
-
-	    while (indexes != null && !indexes.isEmpty()) {
-		for (int j = current; j < partitions.length; j++) {
-		    int index = CONFIG.get(RANDOM_GENERATOR)
-			    .nextInt(indexes.size());
-		    partitions[j][indexes.get(index)].flag = NOT_COVERED;
-
-		    indexes.remove(index);
-		    current = j;
-
-		    if (indexes.isEmpty()) {
-			break;
-		    }
-		}
+	for (int[] instances : classes()) {
+	    shuffle(instances);
 
-		current = ((current + 1) < partitions.length) ? current + 1 : 0;
+	    for (int index : instances) {
+		assignment[index] = current;
+		current = ((current + 1) < size) ? current + 1 : 0;
 	    }
 	}
-
-	// sanity check
-
-	// for (int i = current; i < partitions.length; i++)
-	// {
-	// System.out.print("Partition " + i + ": ");
-	// printFrequencies(dataset, partitions[i]);
-	// }
     }
 
     /**
@@ -141,22 +105,19 @@ public class Partitioner {
 	Instance[] instances = Instance.newArray(dataset.size());
 	Instance.markAll(instances, COVERED);
 
-	for (int i = 0; i < training; i++) {
-	    for (int j = 0; j < partitions[i].length; j++) {
-		if (partitions[i][j].flag == NOT_COVERED) {
-		    instances[j].flag = NOT_COVERED;
-		}
+	for (int i = 0; i < assignment.length; i++) {
+	    if (assignment[i] < training) {
+		instances[i].flag = NOT_COVERED;
 	    }
 	}
 
 	split[0] = Dataset.filter(dataset, instances, NOT_COVERED);
 	Instance.markAll(instances, COVERED);
 
-	for (int i = training; i < (training + validation); i++) {
-	    for (int j = 0; j < partitions[i].length; j++) {
-		if (partitions[i][j].flag == NOT_COVERED) {
-		    instances[j].flag = NOT_COVERED;
-		}
+	for (int i = 0; i < assignment.length; i++) {
+	    if (assignment[i] >= training
+		    && assignment[i] < (training + validation)) {
+		instances[i].flag = NOT_COVERED;
 	    }
 	}
 
@@ -165,6 +126,233 @@ public class Partitioner {
 	return split;
     }
 
+    /**
+     * Returns the training and test datasets of a cross-validation fold. The
+     * test dataset is the specified partition and the training dataset is
+     * the union of the remaining partitions.
+     * 
+     * @param fold
+     *            the index of the test partition.
+     * 
+     * @return the training and test datasets of the fold.
+     */
+    public Dataset[] fold(int fold) {
+	if (fold < 0 || fold >= size) {
+	    throw new IllegalArgumentException("Invalid fold: " + fold);
+	}
+
+	int length = 0;
+
+	for (int partition : assignment) {
+	    if (partition == fold) {
+		length++;
+	    }
+	}
+
+	int[] training = new int[assignment.length - length];
+	int[] test = new int[length];
+	int t = 0;
+	int v = 0;
+
+	for (int i = 0; i < assignment.length; i++) {
+	    if (assignment[i] == fold) {
+		test[v++] = i;
+	    } else {
+		training[t++] = i;
+	    }
+	}
+
+	return new Dataset[] { Dataset.select(dataset, training),
+		Dataset.select(dataset, test) };
+    }
+
+    /**
+     * Divides the dataset into one partition per proportion, without copying
+     * the instances to intermediate files. Each proportion represents the
+     * fraction of the instances assigned to the corresponding partition; the
+     * sum of the proportions must not be greater than <code>1</code>, and any
+     * remaining instances are not assigned to a partition.
+     * 
+     * @param order
+     *            the order in which instances are assigned to partitions.
+     * @param proportions
+     *            the proportion of instances of each partition.
+     * 
+     * @return the datasets representing each partition.
+     */
+    public Dataset[] split(Order order, double... proportions) {
+	if (proportions.length != size) {
+	    throw new IllegalArgumentException("Invalid number of proportions: "
+		    + proportions.length + " found; " + size + " expected");
+	}
+
+	double total = 0;
+
+	for (double proportion : proportions) {
+	    if (proportion < 0) {
+		throw new IllegalArgumentException("Invalid proportion: "
+			+ proportion);
+	    }
+
+	    total += proportion;
+	}
+
+	if (total > 1 + 1e-9) {
+	    throw new IllegalArgumentException("Invalid proportions: " + total
+		    + " (expected at most 1)");
+	}
+
+	int[][] indexes = new int[size][];
+
+	if (order == Order.STRATIFIED) {
+	    int[][] classes = classes();
+	    int[] length = new int[size];
+
+	    for (int i = 0; i < size; i++) {
+		indexes[i] = new int[dataset.size()];
+	    }
+
+	    for (int[] instances : classes) {
+		shuffle(instances);
+		int[] boundaries = boundaries(instances.length, proportions);
+
+		for (int i = 0; i < size; i++) {
+		    for (int j = boundaries[i]; j < boundaries[i + 1]; j++) {
+			indexes[i][length[i]++] = instances[j];
+		    }
+		}
+	    }
+
+	    for (int i = 0; i < size; i++) {
+		indexes[i] = Arrays.copyOf(indexes[i], length[i]);
+		Arrays.sort(indexes[i]);
+	    }
+	} else {
+	    int[] instances = new int[dataset.size()];
+
+	    for (int i = 0; i < instances.length; i++) {
+		instances[i] = i;
+	    }
+
+	    if (order == Order.SHUFFLED) {
+		shuffle(instances);
+	    }
+
+	    int[] boundaries = boundaries(instances.length, proportions);
+
+	    for (int i = 0; i < size; i++) {
+		indexes[i] = Arrays.copyOfRange(instances,
+						boundaries[i],
+						boundaries[i + 1]);
+
+		if (order == Order.SHUFFLED) {
+		    Arrays.sort(indexes[i]);
+		}
+	    }
+	}
+
+	Dataset[] split = new Dataset[size];
+
+	for (int i = 0; i < size; i++) {
+	    split[i] = Dataset.select(dataset, indexes[i]);
+	}
+
+	return split;
+    }
+
+    /**
+     * Returns the indexes of the instances of each class value. Instances with
+     * a missing class value are grouped together after the last class value.
+     * 
+     * @return the indexes of the instances of each class value.
+     */
+    private int[][] classes() {
+	int missing = dataset.classLength();
+	int[][] classes = new int[missing + 1][];
+	int[] length = new int[classes.length];
+	Column.Nominal target = dataset.nominal(dataset.classIndex());
+
+	for (int i = 0; i < dataset.size(); i++) {
+	    int klass = target.code(i);
+	    length[klass == MISSING_VALUE_INDEX ? missing : klass]++;
+	}
+
+	for (int i = 0; i < classes.length; i++) {
+	    classes[i] = new int[length[i]];
+	    length[i] = 0;
+	}
+
+	for (int i = 0; i < dataset.size(); i++) {
+	    int klass = target.code(i);
+	    klass = (klass == MISSING_VALUE_INDEX) ? missing : klass;
+	    classes[klass][length[klass]++] = i;
+	}
+
+	return classes;
+    }
+
+    /**
+     * Returns the boundaries of the partitions, where partition
+     * <code>i</code> starts at position <code>boundaries[i]</code> and ends
+     * at position <code>boundaries[i + 1]</code>.
+     * 
+     * @param length
+     *            the number of instances.
+     * @param proportions
+     *            the proportion of instances of each partition.
+     * 
+     * @return the boundaries of the partitions.
+     */
+    private static int[] boundaries(int length, double[] proportions) {
+	int[] boundaries = new int[proportions.length + 1];
+	double cumulative = 0;
+
+	for (int i = 0; i < proportions.length; i++) {
+	    cumulative += proportions[i];
+	    boundaries[i + 1] = (int) Math
+		    .min(Math.round(length * cumulative), length);
+	}
+
+	return boundaries;
+    }
+
+    /**
+     * Shuffles the specified array using the algorithm random number
+     * generator.
+     * 
+     * @param values
+     *            the array to shuffle.
+     */
+    private static void shuffle(int[] values) {
+	Random random = CONFIG.get(RANDOM_GENERATOR);
+
+	for (int i = values.length - 1; i > 0; i--) {
+	    int j = random.nextInt(i + 1);
+	    int swap = values[i];
+	    values[i] = values[j];
+	    values[j] = swap;
+	}
+    }
+
+    /**
+     * Enum of the orders in which instances can be assigned to partitions.
+     */
+    public static enum Order {
+	/**
+	 * Instances are assigned in the order of the dataset.
+	 */
+	SEQUENTIAL,
+	/**
+	 * Instances are assigned in a random order.
+	 */
+	SHUFFLED,
+	/**
+	 * Instances of each class value are assigned in a random order, so
+	 * that each partition preserves the class frequencies.
+	 */
+	STRATIFIED;
+    }
+
     /*
      * void printFrequencies(Dataset dataset, Instance[] instances) { int[]
      * frequencies = new int[dataset.classLength()];
@@ -0,0 +1,598 @@
+/*
+ * Snapshot.java
+ * (this file is part of MYRA)
+ * 
+ * Copyright 2008-2015 Fernando Esteban Barril Otero
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package myra.datamining;
+
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+
+import myra.Config.ConfigKey;
+import myra.datamining.Attribute.Type;
+
+/**
+ * Binary columnar snapshot of a dataset. A snapshot stores the header of the
+ * dataset (name, attributes and nominal values) followed by one block of
+ * values per attribute, using the same encoding of the in-memory columns.
+ * Snapshots are loaded through memory-mapped views of the file, so no parsing
+ * is required; {@link #map(File)} also uses the views as the columns of the
+ * dataset, without copying the values to the heap.
+ * 
+ * <p>
+ * When the {@link #CACHE_DIRECTORY} configuration is set, the
+ * {@link ARFFReader} stores a snapshot of each file read in the cache
+ * directory, keyed on the hash of the file contents; subsequent reads of the
+ * same contents load the snapshot instead of parsing the file.
+ * </p>
+ * 
+ * @see ARFFReader
+ * 
+ * @author Fernando Esteban Barril Otero
+ */
+public final class Snapshot {
+    /**
+     * The config key for the snapshot cache directory.
+     */
+    public final static ConfigKey<String> CACHE_DIRECTORY = new ConfigKey<>();
+
+    /**
+     * The magic number identifying a snapshot file ("MYRA").
+     */
+    private static final int MAGIC = 0x4D595241;
+
+    /**
+     * The version of the snapshot format.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The extension of snapshot files.
+     */
+    private static final String EXTENSION = ".snapshot";
+
+    /**
+     * The extension of the files recording the hash of an input file.
+     */
+    private static final String HASH_EXTENSION = ".hash";
+
+    /**
+     * The (maximum) size of the memory-mapped window of the file.
+     */
+    private static final int WINDOW = 1 << 28;
+
+    /**
+     * The size of the blocks used to hash files.
+     */
+    private static final int BLOCK = 1 << 16;
+
+    /**
+     * Private constructor.
+     */
+    private Snapshot() {
+    }
+
+    /**
+     * Returns <code>true</code> if the specified file is a snapshot file.
+     * 
+     * @param file
+     *            the file to check.
+     * 
+     * @return <code>true</code> if the specified file is a snapshot file;
+     *         <code>false</code> otherwise.
+     * 
+     * @exception IOException
+     *                if an I/O error occurs.
+     */
+    public static boolean isSnapshot(File file) throws IOException {
+	try (FileChannel channel = FileChannel.open(file.toPath(), READ)) {
+	    ByteBuffer buffer = ByteBuffer.allocate(4);
+
+	    while (buffer.hasRemaining()) {
+		if (channel.read(buffer, buffer.position()) < 0) {
+		    return false;
+		}
+	    }
+
+	    return buffer.getInt(0) == MAGIC;
+	}
+    }
+
+    /**
+     * Writes the snapshot of the specified dataset.
+     * 
+     * @param dataset
+     *            the dataset.
+     * @param file
+     *            the snapshot file.
+     * 
+     * @exception IOException
+     *                if an I/O error occurs.
+     */
+    public static void write(Dataset dataset, File file) throws IOException {
+	Attribute[] attributes = dataset.attributes();
+	ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+	try (DataOutputStream header = new DataOutputStream(bytes)) {
+	    header.writeBoolean(dataset.getName() != null);
+
+	    if (dataset.getName() != null) {
+		header.writeUTF(dataset.getName());
+	    }
+
+	    header.writeInt(attributes.length);
+
+	    for (Attribute attribute : attributes) {
+		header.writeUTF(attribute.getName());
+		header.writeByte(attribute.getType().ordinal());
+
+		if (attribute.getType() == Type.NOMINAL) {
+		    header.writeInt(attribute.length());
+
+		    for (String value : attribute.values()) {
+			header.writeUTF(value);
+		    }
+		}
+	    }
+
+	    header.writeInt(dataset.size());
+	}
+
+	try (FileChannel channel = FileChannel
+		.open(file.toPath(), WRITE, CREATE, TRUNCATE_EXISTING)) {
+	    ByteBuffer buffer = ByteBuffer.allocate(bytes.size() + 12);
+	    buffer.putInt(MAGIC);
+	    buffer.putInt(VERSION);
+	    buffer.putInt(bytes.size());
+	    buffer.put(bytes.toByteArray());
+	    buffer.flip();
+	    writeFully(channel, buffer);
+
+	    long position = align(channel.position());
+
+	    for (int i = 0; i < attributes.length; i++) {
+		Column column = dataset.column(i);
+		int window = WINDOW / column.width();
+
+		for (int offset = 0; offset < column.size(); offset += window) {
+		    int length = Math.min(window, column.size() - offset);
+		    buffer = ByteBuffer.allocate(length * column.width());
+		    column.write(buffer, offset, length);
+		    buffer.flip();
+		    channel.position(position);
+		    writeFully(channel, buffer);
+		    position += length * (long) column.width();
+		}
+
+		position = align(position);
+	    }
+
+	    // pads the file to the end of the last block
+	    if (channel.size() < position) {
+		channel.write(ByteBuffer.allocate(1), position - 1);
+	    }
+	}
+    }
+
+    /**
+     * Reads the specified snapshot file.
+     * 
+     * @param file
+     *            the snapshot file.
+     * 
+     * @return a <code>Dataset</code> instance contaning the contents of the
+     *         snapshot.
+     * 
+     * @exception IOException
+     *                if an I/O error occurs.
+     */
+    public static Dataset read(File file) throws IOException {
+	return load(file, false);
+    }
+
+    /**
+     * Maps the specified snapshot file. Unlike {@link #read(File)}, the
+     * columns of the dataset are read-only views of the memory-mapped file,
+     * so the values are not copied to the heap. Columns larger than a single
+     * mapping (2GB) are read instead.
+     * 
+     * @param file
+     *            the snapshot file.
+     * 
+     * @return a read-only <code>Dataset</code> instance backed by the
+     *         contents of the snapshot.
+     * 
+     * @exception IOException
+     *                if an I/O error occurs.
+     */
+    public static Dataset map(File file) throws IOException {
+	return load(file, true);
+    }
+
+    /**
+     * Loads the specified snapshot file.
+     * 
+     * @param file
+     *            the snapshot file.
+     * @param mapped
+     *            indicates whether the columns are mapped or read.
+     * 
+     * @return a <code>Dataset</code> instance contaning the contents of the
+     *         snapshot.
+     * 
+     * @exception IOException
+     *                if an I/O error occurs.
+     */
+    private static Dataset load(File file, boolean mapped) throws IOException {
+	try (FileChannel channel = FileChannel.open(file.toPath(), READ)) {
+	    if (channel.size() < 12) {
+		throw new IllegalArgumentException("Invalid snapshot file: "
+			+ file.getAbsolutePath());
+	    }
+
+	    ByteBuffer buffer = channel.map(READ_ONLY, 0, 12);
+
+	    if (buffer.getInt() != MAGIC) {
+		throw new IllegalArgumentException("Invalid snapshot file: "
+			+ file.getAbsolutePath());
+	    }
+
+	    int version = buffer.getInt();
+
+	    if (version != VERSION) {
+		throw new IllegalArgumentException("Unsupported snapshot version: "
+			+ version);
+	    }
+
+	    byte[] bytes = new byte[buffer.getInt()];
+	    channel.map(READ_ONLY, 12, bytes.length).get(bytes);
+
+	    Dataset header = new Dataset();
+	    int size;
+
+	    try (DataInputStream input =
+		    new DataInputStream(new ByteArrayInputStream(bytes))) {
+		if (input.readBoolean()) {
+		    header.setName(input.readUTF());
+		}
+
+		int count = input.readInt();
+
+		for (int i = 0; i < count; i++) {
+		    String name = input.readUTF();
+		    Type type = Type.values()[input.readByte()];
+		    Attribute attribute = new Attribute(type, name);
+
+		    if (type == Type.NOMINAL) {
+			int length = input.readInt();
+
+			for (int j = 0; j < length; j++) {
+			    attribute.add(input.readUTF());
+			}
+		    }
+
+		    header.add(attribute);
+		}
+
+		size = input.readInt();
+	    }
+
+	    Attribute[] attributes = header.attributes();
+	    Column[] columns = new Column[attributes.length];
+	    long position = align(12 + bytes.length);
+
+	    for (int i = 0; i < attributes.length; i++) {
+		long extent = size * (long) Column.width(attributes[i]);
+
+		if (mapped && extent <= Integer.MAX_VALUE) {
+		    if (position + extent > channel.size()) {
+			throw new IllegalArgumentException("Truncated "
+				+ "snapshot file: " + file.getAbsolutePath());
+		    }
+
+		    // the mapping remains valid after the channel is closed
+		    columns[i] = Column.map(attributes[i],
+					    channel.map(READ_ONLY,
+							position,
+							extent));
+		    position = align(position + extent);
+		    continue;
+		}
+
+		columns[i] = Column.newInstance(attributes[i], size);
+		int window = WINDOW / columns[i].width();
+
+		for (int offset = 0; offset < size; offset += window) {
+		    int length = Math.min(window, size - offset);
+		    long block = length * (long) columns[i].width();
+
+		    if (position + block > channel.size()) {
+			throw new IllegalArgumentException("Truncated snapshot file: "
+				+ file.getAbsolutePath());
+		    }
+
+		    columns[i].read(channel.map(READ_ONLY, position, block),
+				    length);
+		    position += block;
+		}
+
+		position = align(position);
+	    }
+
+	    return new Dataset.Builder(header, columns, size).build();
+	}
+    }
+
+    /**
+     * Reads the specified ARFF file using the snapshot cache. If the cache
+     * directory contains a snapshot of the contents of the file, the snapshot
+     * is loaded; otherwise the file is read and a snapshot is stored in the
+     * cache directory. The hash of the contents is recorded together with the
+     * path, size and modification time of the file, and only computed again
+     * when one of them changes.
+     * 
+     * @param input
+     *            the ARFF file.
+     * @param directory
+     *            the cache directory.
+     * @param reader
+     *            the reader used when the snapshot is not available.
+     * 
+     * @return a <code>Dataset</code> instance contaning the contents of the
+     *         file.
+     * 
+     * @exception IOException
+     *                if an I/O error occurs.
+     */
+    static Dataset cached(File input, File directory, ARFFReader reader)
+	    throws IOException {
+	File snapshot = new File(directory, input.getName() + "."
+		+ hash(input, directory, reader.charset()) + EXTENSION);
+
+	if (snapshot.exists()) {
+	    return read(snapshot);
+	}
+
+	Dataset dataset = reader.parse(input);
+
+	Files.createDirectories(directory.toPath());
+	Path temporary = Files
+		.createTempFile(directory.toPath(), input.getName(), ".tmp");
+
+	try {
+	    write(dataset, temporary.toFile());
+	    move(temporary, snapshot.toPath());
+	} finally {
+	    Files.deleteIfExists(temporary);
+	}
+
+	return dataset;
+    }
+
+    /**
+     * Returns the hash of the contents of the specified file, as computed by
+     * {@link #hash(File, Charset)}. The hash recorded in the cache directory
+     * is used if the path, size and modification time of the file and the
+     * charset match the recorded ones; otherwise the hash is computed and
+     * recorded.
+     * 
+     * @param file
+     *            the file.
+     * @param directory
+     *            the cache directory.
+     * @param charset
+     *            the charset used to read the file.
+     * 
+     * @return the hash of the contents of the specified file, in hexadecimal
+     *         format.
+     * 
+     * @exception IOException
+     *                if an I/O error occurs.
+     */
+    private static String hash(File file, File directory, Charset charset)
+	    throws IOException {
+	String path = file.getCanonicalPath();
+	long length = file.length();
+	long modified = Files.getLastModifiedTime(file.toPath())
+		.to(TimeUnit.NANOSECONDS);
+	// the path is part of the name, so each file has its own record
+	File record = new File(directory, file.getName() + "."
+		+ String.format("%08x", path.hashCode()) + HASH_EXTENSION);
+
+	if (record.exists()) {
+	    try (DataInputStream in = new DataInputStream(
+		    new BufferedInputStream(new FileInputStream(record)))) {
+		if (in.readInt() == VERSION && in.readUTF().equals(path)
+			&& in.readLong() == length
+			&& in.readLong() == modified
+			&& in.readUTF().equals(charset.name())) {
+		    return in.readUTF();
+		}
+	    } catch (IOException e) {
+		// an invalid record is replaced below
+	    }
+	}
+
+	String hash = hash(file, charset);
+
+	Files.createDirectories(directory.toPath());
+	Path temporary = Files
+		.createTempFile(directory.toPath(), file.getName(), ".tmp");
+
+	try {
+	    try (DataOutputStream out = new DataOutputStream(
+		    new BufferedOutputStream(
+			    new FileOutputStream(temporary.toFile())))) {
+		out.writeInt(VERSION);
+		out.writeUTF(path);
+		out.writeLong(length);
+		out.writeLong(modified);
+		out.writeUTF(charset.name());
+		out.writeUTF(hash);
+	    }
+
+	    move(temporary, record.toPath());
+	} finally {
+	    Files.deleteIfExists(temporary);
+	}
+
+	return hash;
+    }
+
+    /**
+     * Moves a file into the cache directory, replacing any existing file.
+     * The move is atomic when supported by the file system.
+     * 
+     * @param source
+     *            the file to move.
+     * @param target
+     *            the target file.
+     * 
+     * @exception IOException
+     *                if an I/O error occurs.
+     */
+    private static void move(Path source, Path target) throws IOException {
+	try {
+	    Files.move(source, target, ATOMIC_MOVE);
+	} catch (AtomicMoveNotSupportedException e) {
+	    Files.move(source, target, REPLACE_EXISTING);
+	}
+    }
+
+    /**
+     * Returns the hash (SHA-256) of the contents of the specified file. The
+     * hash also covers the version of the snapshot format and the charset used
+     * to read the file, since both affect the resulting snapshot.
+     * 
+     * @param file
+     *            the file.
+     * @param charset
+     *            the charset used to read the file.
+     * 
+     * @return the hash of the contents of the specified file, in hexadecimal
+     *         format.
+     * 
+     * @exception IOException
+     *                if an I/O error occurs.
+     */
+    private static String hash(File file, Charset charset) throws IOException {
+	MessageDigest digest;
+
+	try {
+	    digest = MessageDigest.getInstance("SHA-256");
+	} catch (NoSuchAlgorithmException e) {
+	    throw new IllegalStateException(e);
+	}
+
+	digest.update((VERSION + ":" + charset.name() + ":")
+		.getBytes(StandardCharsets.UTF_8));
+
+	try (FileChannel channel = FileChannel.open(file.toPath(), READ)) {
+	    ByteBuffer buffer = ByteBuffer.allocateDirect(BLOCK);
+
+	    while (channel.read(buffer) >= 0) {
+		buffer.flip();
+		digest.update(buffer);
+		buffer.clear();
+	    }
+	}
+
+	StringBuilder hex = new StringBuilder();
+
+	for (byte b : digest.digest()) {
+	    hex.append(String.format("%02x", b));
+	}
+
+	return hex.toString();
+    }
+
+    /**
+     * Writes all the remaining bytes of the buffer to the channel.
+     * 
+     * @param channel
+     *            the file channel.
+     * @param buffer
+     *            the buffer to write.
+     * 
+     * @exception IOException
+     *                if an I/O error occurs.
+     */
+    private static void writeFully(FileChannel channel, ByteBuffer buffer)
+	    throws IOException {
+	while (buffer.hasRemaining()) {
+	    channel.write(buffer);
+	}
+    }
+
+    /**
+     * Returns the specified position aligned to the next multiple of 8.
+     * 
+     * @param position
+     *            the position.
+     * 
+     * @return the specified position aligned to the next multiple of 8.
+     */
+    private static long align(long position) {
+	return (position + 7) & ~7L;
+    }
+
+    /**
+     * Converts an ARFF file into a snapshot file.
+     * 
+     * @param args
+     *            the paths of the ARFF file and snapshot file.
+     * 
+     * @throws Exception
+     *             if an error occurs &mdash; e.g., I/O error.
+     */
+    public static void main(String[] args) throws Exception {
+	if (args.length != 2) {
+	    System.err.println("Usage: java " + Snapshot.class.getName()
+		    + " <arff file> <snapshot file>");
+	    System.exit(1);
+	}
+
+	ARFFReader reader = new ARFFReader();
+	write(reader.parse(new File(args[0])), new File(args[1]));
+    }
+}
@@ -20,9 +20,9 @@
 package myra.datamining;
 
 import static myra.Config.CONFIG;
-import static myra.datamining.Algorithm.RANDOM_GENERATOR;
 import myra.Archive.DefaultArchive;
 import myra.Config.ConfigKey;
+import myra.util.RandomStreams;
 
 /**
  * This class represents a local archive&mdash;i.e., a variable of a solution,
@@ -162,7 +162,7 @@ public abstract class VariableArchive<E extends Number & Comparable<E>>
 	    double sampled = 0.0;
 
 	    if (!archive.isFull()) {
-		sampled = (CONFIG.get(RANDOM_GENERATOR).nextDouble()
+		sampled = (RandomStreams.current().nextDouble()
 			* (upper - lower)) + lower;
 	    } else {
 		// roulette selection based on the weight of each value
@@ -177,7 +177,7 @@ public abstract class VariableArchive<E extends Number & Comparable<E>>
 		}
 
 		int selected = (probabilities.length - 1);
-		double slot = CONFIG.get(RANDOM_GENERATOR).nextDouble();
+		double slot = RandomStreams.current().nextDouble();
 		double cumulative = 0.0;
 
 		for (int i = 0; i < probabilities.length; i++) {
@@ -224,7 +224,7 @@ public abstract class VariableArchive<E extends Number & Comparable<E>>
 	    deviation = CONFIG.get(CONVERGENCE_SPEED)
 		    * (deviation / (solutions.length - 1));
 
-	    return (CONFIG.get(RANDOM_GENERATOR).nextGaussian() * deviation)
+	    return (RandomStreams.current().nextGaussian() * deviation)
 		    + ((Entry<Double>) solutions[selected]).value;
 	}
 
@@ -270,7 +270,7 @@ public abstract class VariableArchive<E extends Number & Comparable<E>>
 	public Integer sample() {
 	    if (!archive.isFull()) {
 		// random sampling, since archive is not complete
-		return CONFIG.get(RANDOM_GENERATOR).nextInt(length);
+		return RandomStreams.current().nextInt(length);
 	    } else {
 		double[] probabilities = new double[length];
 		Comparable<Entry<Integer>>[] solutions = archive.solutions();
@@ -320,7 +320,7 @@ public abstract class VariableArchive<E extends Number & Comparable<E>>
 		// roulette selection based on the weight of each value
 
 		int value = (length - 1);
-		double slot = CONFIG.get(RANDOM_GENERATOR).nextDouble();
+		double slot = RandomStreams.current().nextDouble();
 		double cumulative = 0.0;
 
 		for (int i = 0; i < length; i++) {
@@ -0,0 +1,141 @@
+/*
+ * DriftMonitor.java
+ * (this file is part of MYRA)
+ * 
+ * Copyright 2008-2015 Fernando Esteban Barril Otero
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package myra.rule;
+
+import java.util.BitSet;
+
+import myra.classification.Label;
+import myra.classification.rule.ClassificationRule;
+import myra.datamining.Column;
+import myra.datamining.Dataset;
+import myra.util.Stats;
+
+/**
+ * Per-rule drift monitor. The error rate of each rule on a new batch is
+ * compared against the error rate of the rule on the data it was created
+ * from (given by its covered class distribution): a rule is flagged as
+ * drifted when its error rate on the new batch exceeds the upper limit of the
+ * confidence interval of its reference error rate, as computed by
+ * {@link Stats#errors(double, double)}.
+ * 
+ * @author Fernando Esteban Barril Otero
+ */
+public class DriftMonitor {
+    /**
+     * The minimum number of instances of the new batch that a rule must cover
+     * for its error rate to be tested.
+     */
+    private final int minimum;
+
+    /**
+     * Creates a new <code>DriftMonitor</code>.
+     * 
+     * @param minimum
+     *            the minimum number of covered instances for a rule to be
+     *            tested.
+     */
+    public DriftMonitor(int minimum) {
+	this.minimum = minimum;
+    }
+
+    /**
+     * Applies the rule list to the specified dataset and returns the indexes
+     * of the drifted rules. Each instance is covered by the first enabled
+     * rule that covers it; the default rule is never flagged. The rules
+     * themselves are not modified.
+     * 
+     * @param dataset
+     *            the new batch.
+     * @param list
+     *            the rule list.
+     * 
+     * @return the indexes of the drifted rules.
+     */
+    public BitSet detect(Dataset dataset, RuleList list) {
+	Column.Nominal target = dataset.nominal(dataset.classIndex());
+	Rule[] rules = list.rules();
+	int[] total = new int[rules.length];
+	int[] errors = new int[rules.length];
+
+	for (int i = 0; i < dataset.size(); i++) {
+	    for (int j = 0; j < rules.length; j++) {
+		if (rules[j].isEnabled() && rules[j].covers(dataset, i)) {
+		    Label predicted = (Label) rules[j].getConsequent();
+		    total[j]++;
+
+		    if (predicted.value() != target.code(i)) {
+			errors[j]++;
+		    }
+
+		    break;
+		}
+	    }
+	}
+
+	BitSet drifted = new BitSet(rules.length);
+
+	for (int j = 0; j < rules.length; j++) {
+	    if (!rules[j].isEmpty() && total[j] >= minimum
+		    && isDrifted((ClassificationRule) rules[j],
+				 total[j],
+				 errors[j])) {
+		drifted.set(j);
+	    }
+	}
+
+	return drifted;
+    }
+
+    /**
+     * Returns <code>true</code> if the error rate of the rule on the new batch
+     * exceeds the upper confidence limit of its reference error rate.
+     * 
+     * @param rule
+     *            the rule.
+     * @param total
+     *            the number of instances of the new batch covered by the rule.
+     * @param errors
+     *            the number of instances of the new batch misclassified by
+     *            the rule.
+     * 
+     * @return <code>true</code> if the rule has drifted; <code>false</code>
+     *         otherwise.
+     */
+    private boolean isDrifted(ClassificationRule rule, int total, int errors) {
+	int[] covered = rule.covered();
+	int predicted = rule.getConsequent().value();
+	double reference = 0;
+
+	for (int i = 0; i < covered.length; i++) {
+	    reference += covered[i];
+	}
+
+	if (reference == 0) {
+	    // no reference information: the rule is kept
+	    return false;
+	}
+
+	double misclassified = reference - covered[predicted];
+	double limit = (misclassified + Stats.errors(reference, misclassified))
+		/ reference;
+
+	return (errors / (double) total) > limit;
+    }
+}
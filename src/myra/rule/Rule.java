@@ -20,13 +20,20 @@
 package myra.rule;
 
 import static myra.Config.CONFIG;
+import static myra.datamining.Dataset.COVERED;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Objects;
 
 import myra.Config.ConfigKey;
 import myra.Cost;
 import myra.datamining.Attribute;
 import myra.datamining.Attribute.Condition;
+import myra.datamining.Column;
 import myra.datamining.Dataset;
 import myra.datamining.Dataset.Instance;
 import myra.datamining.Prediction;
@@ -44,6 +51,25 @@ public abstract class Rule implements Comparable<Rule> {
     public static final ConfigKey<Class<? extends Rule>> DEFAULT_RULE =
 	    new ConfigKey<>();
 
+    /**
+     * Lexicographic order of canonical term representations.
+     */
+    private static final Comparator<double[]> CANONICAL_ORDER =
+	    new Comparator<double[]>() {
+		@Override
+		public int compare(double[] a, double[] b) {
+		    for (int i = 0; i < Math.min(a.length, b.length); i++) {
+			int c = Double.compare(a[i], b[i]);
+
+			if (c != 0) {
+			    return c;
+			}
+		    }
+
+		    return Integer.compare(a.length, b.length);
+		}
+	    };
+
     /**
      * The quality (cost) of the rule during training.
      */
@@ -255,7 +281,10 @@ public abstract class Rule implements Comparable<Rule> {
 	for (int i = 0; i < size; i++) {
 	    if (terms[i].isEnabeld()) {
 		Condition condition = terms[i].condition();
-		double v = dataset.value(instance, condition.attribute);
+		Column column = dataset.column(condition.attribute);
+		double v = (column instanceof Column.Continuous)
+			? ((Column.Continuous) column).value(instance)
+			: ((Column.Nominal) column).code(instance);
 
 		if (!condition.satisfies(v)) {
 		    covered = false;
@@ -267,6 +296,63 @@ public abstract class Rule implements Comparable<Rule> {
 	return covered;
     }
 
+    /**
+     * Checks which instances satisfy the antecedent of the rule. Only
+     * instances that have not been previously covered are considered. The
+     * column of each condition is resolved once, and its values are read
+     * using the accessor of the concrete column type.
+     * 
+     * @param dataset
+     *            the current dataset.
+     * @param instances
+     *            the covered instances flag.
+     * 
+     * @return an array where the position of each instance that satisfies
+     *         the antecedent of the rule is <code>true</code>.
+     */
+    public boolean[] covers(Dataset dataset, Instance[] instances) {
+	Condition[] conditions = new Condition[size];
+	Column.Continuous[] continuous = new Column.Continuous[size];
+	Column.Nominal[] nominal = new Column.Nominal[size];
+	int count = 0;
+
+	for (int i = 0; i < size; i++) {
+	    if (terms[i].isEnabeld()) {
+		conditions[count] = terms[i].condition();
+		Column column = dataset.column(conditions[count].attribute);
+
+		if (column instanceof Column.Continuous) {
+		    continuous[count] = (Column.Continuous) column;
+		} else {
+		    nominal[count] = (Column.Nominal) column;
+		}
+
+		count++;
+	    }
+	}
+
+	boolean[] covered = new boolean[dataset.size()];
+
+	for (int i = 0; i < covered.length; i++) {
+	    if (instances[i].flag != COVERED) {
+		covered[i] = true;
+
+		for (int j = 0; j < count; j++) {
+		    double v = (continuous[j] != null)
+			    ? continuous[j].value(i)
+			    : nominal[j].code(i);
+
+		    if (!conditions[j].satisfies(v)) {
+			covered[i] = false;
+			break;
+		    }
+		}
+	    }
+	}
+
+	return covered;
+    }
+
     /**
      * Returns the number of terms in the antecedent of the rule.
      * 
@@ -308,6 +394,24 @@ public abstract class Rule implements Comparable<Rule> {
      */
     public abstract int apply(Dataset dataset, Instance[] instances);
 
+    /**
+     * Applies the rule and adds the covered instances information to the
+     * information already held by the rule, returning the number of covered
+     * instances. Only instances that have not been previously covered are
+     * considered. Unlike {@link #apply(Dataset, Instance[])}, the
+     * information of previous datasets (batches) is not discarded, so the
+     * quality of the rule can be updated by scanning only a new batch.
+     * 
+     * @param dataset
+     *            the current dataset.
+     * @param instances
+     *            the covered instances flag.
+     * 
+     * @return the number of covered instances by the rule in the current
+     *         dataset.
+     */
+    public abstract int accumulate(Dataset dataset, Instance[] instances);
+
     /**
      * Sets the predicted value.
      * 
@@ -462,6 +566,227 @@ public abstract class Rule implements Comparable<Rule> {
 	return buffer.toString();
     }
 
+    /**
+     * Returns <code>true</code> if the specified object is a rule with the
+     * same enabled terms, in any order, and the same predicted value. The
+     * quality and coverage of the rules are not compared.
+     * 
+     * <p>
+     * Note that rules are mutable: a rule should not be modified while it is
+     * an element of a hash-based collection.
+     * </p>
+     * 
+     * @param o
+     *            the object to compare.
+     * 
+     * @return <code>true</code> if the specified object is an equivalent
+     *         rule; <code>false</code> otherwise.
+     */
+    @Override
+    public boolean equals(Object o) {
+	if (this == o) {
+	    return true;
+	}
+
+	if (!(o instanceof Rule)) {
+	    return false;
+	}
+
+	Rule other = (Rule) o;
+
+	return Objects.equals(getConsequent(), other.getConsequent())
+		&& Arrays.deepEquals(canonical(), other.canonical());
+    }
+
+    @Override
+    public int hashCode() {
+	return 31 * Objects.hashCode(getConsequent())
+		+ Arrays.deepHashCode(canonical());
+    }
+
+    /**
+     * Returns the canonical representation of the enabled terms of the rule.
+     * Each term is represented by its vertex index followed, if the term has
+     * a condition, by the relation and values of the condition; terms are
+     * sorted so that the representation does not depend on their order.
+     * 
+     * @return the canonical representation of the enabled terms.
+     */
+    private double[][] canonical() {
+	double[][] canonical = new double[size][];
+	int count = 0;
+
+	for (int i = 0; i < size; i++) {
+	    if (terms[i].isEnabeld()) {
+		Condition condition = terms[i].condition();
+
+		if (condition == null) {
+		    canonical[count] = new double[] { terms[i].index() };
+		} else {
+		    double[] key = new double[condition.value.length + 2];
+		    key[0] = terms[i].index();
+		    key[1] = condition.relation;
+		    System.arraycopy(condition.value,
+				     0,
+				     key,
+				     2,
+				     condition.value.length);
+		    canonical[count] = key;
+		}
+
+		count++;
+	    }
+	}
+
+	canonical = Arrays.copyOf(canonical, count);
+	Arrays.sort(canonical, CANONICAL_ORDER);
+
+	return canonical;
+    }
+
+    /**
+     * Writes the rule to the specified output. The rule can be recreated
+     * using {@link #read(DataInput)}.
+     * 
+     * @param out
+     *            the output to write to.
+     * 
+     * @throws IOException
+     *             if an I/O error occurs.
+     */
+    public void write(DataOutput out) throws IOException {
+	out.writeBoolean(enabled);
+	out.writeInt(function);
+	write(out, quality);
+	out.writeInt(size);
+
+	for (int i = 0; i < size; i++) {
+	    out.writeInt(terms[i].index());
+	    out.writeBoolean(terms[i].isEnabeld());
+	    out.writeBoolean(terms[i].condition() != null);
+
+	    if (terms[i].condition() != null) {
+		terms[i].condition().write(out);
+	    }
+	}
+
+	writeState(out);
+    }
+
+    /**
+     * Reads a rule written by {@link #write(DataOutput)}. The rule is created
+     * using the default class implementation.
+     * 
+     * @param in
+     *            the input to read from.
+     * 
+     * @return the rule read.
+     * 
+     * @throws IOException
+     *             if an I/O error occurs.
+     * 
+     * @see #DEFAULT_RULE
+     */
+    public static Rule read(DataInput in) throws IOException {
+	Rule rule = newInstance();
+	rule.enabled = in.readBoolean();
+	rule.function = in.readInt();
+	rule.quality = readCost(in);
+	int size = in.readInt();
+
+	for (int i = 0; i < size; i++) {
+	    int index = in.readInt();
+	    boolean enabled = in.readBoolean();
+	    Condition condition = in.readBoolean() ? Condition.read(in) : null;
+	    Term term = new Term(index, condition);
+	    term.setEnabeld(enabled);
+	    rule.add(term);
+	}
+
+	rule.readState(in);
+
+	return rule;
+    }
+
+    /**
+     * Writes the state specific to the rule implementation (e.g., the
+     * predicted value). The default implementation does not write anything.
+     * 
+     * @param out
+     *            the output to write to.
+     * 
+     * @throws IOException
+     *             if an I/O error occurs.
+     */
+    protected void writeState(DataOutput out) throws IOException {
+    }
+
+    /**
+     * Reads the state written by {@link #writeState(DataOutput)}. The default
+     * implementation does not read anything.
+     * 
+     * @param in
+     *            the input to read from.
+     * 
+     * @throws IOException
+     *             if an I/O error occurs.
+     */
+    protected void readState(DataInput in) throws IOException {
+    }
+
+    /**
+     * Writes a cost value, which can be <code>null</code>.
+     * 
+     * @param out
+     *            the output to write to.
+     * @param cost
+     *            the cost to write.
+     * 
+     * @throws IOException
+     *             if an I/O error occurs.
+     */
+    static void write(DataOutput out, Cost cost) throws IOException {
+	if (cost == null) {
+	    out.writeByte(0);
+	} else if (cost instanceof Cost.Maximise) {
+	    out.writeByte(1);
+	    out.writeDouble(cost.raw());
+	} else if (cost instanceof Cost.Minimise) {
+	    out.writeByte(2);
+	    out.writeDouble(cost.raw());
+	} else {
+	    throw new IllegalArgumentException("Unsupported cost: "
+		    + cost.getClass().getName());
+	}
+    }
+
+    /**
+     * Reads a cost value written by {@link #write(DataOutput, Cost)}.
+     * 
+     * @param in
+     *            the input to read from.
+     * 
+     * @return the cost read.
+     * 
+     * @throws IOException
+     *             if an I/O error occurs.
+     */
+    static Cost readCost(DataInput in) throws IOException {
+	switch (in.readByte()) {
+	case 0:
+	    return null;
+
+	case 1:
+	    return new Cost.Maximise(in.readDouble());
+
+	case 2:
+	    return new Cost.Minimise(in.readDouble());
+
+	default:
+	    throw new IOException("Invalid cost type");
+	}
+    }
+
     /**
      * This (struct-like) class represents a rule term.
      */
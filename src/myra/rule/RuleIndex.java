@@ -0,0 +1,176 @@
+/*
+ * RuleIndex.java
+ * (this file is part of MYRA)
+ * 
+ * Copyright 2008-2015 Fernando Esteban Barril Otero
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package myra.rule;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+
+import myra.datamining.Attribute.Condition;
+import myra.rule.Rule.Term;
+
+/**
+ * Inverted index from term signatures to rules. A signature consists of the
+ * relation and the threshold values of a term condition; the index is used to
+ * find the rules that can share a term with a given rule, so that similarity
+ * only needs to be computed for those candidate pairs.
+ * 
+ * <p>
+ * The attribute is not part of the signature: the similarity measure used by
+ * the incremental merge matches attributes positionally, so two terms can be
+ * counted as similar even if their attributes differ.
+ * </p>
+ * 
+ * @author Fernando Esteban Barril Otero
+ */
+public class RuleIndex {
+    /**
+     * The number of rules indexed.
+     */
+    private final int size;
+
+    /**
+     * Mapping of term signatures to the indexes of the rules containing a
+     * term with that signature.
+     */
+    private final HashMap<Signature, BitSet> index = new HashMap<>();
+
+    /**
+     * Creates a new <code>RuleIndex</code>.
+     * 
+     * @param rules
+     *            the rules to index.
+     */
+    public RuleIndex(List<? extends Rule> rules) {
+	size = rules.size();
+
+	for (int i = 0; i < size; i++) {
+	    for (Term term : rules.get(i).terms()) {
+		Signature signature = Signature.of(term);
+
+		if (signature != null) {
+		    BitSet posting = index.get(signature);
+
+		    if (posting == null) {
+			posting = new BitSet(size);
+			index.put(signature, posting);
+		    }
+
+		    posting.set(i);
+		}
+	    }
+	}
+    }
+
+    /**
+     * Returns the indexes of the rules that have at least one term with the
+     * same signature as a term of the specified rule.
+     * 
+     * @param rule
+     *            the rule.
+     * 
+     * @return the indexes of the candidate rules.
+     */
+    public BitSet candidates(Rule rule) {
+	BitSet candidates = new BitSet(size);
+
+	for (Term term : rule.terms()) {
+	    BitSet posting = index.get(Signature.of(term));
+
+	    if (posting != null) {
+		candidates.or(posting);
+	    }
+	}
+
+	return candidates;
+    }
+
+    /**
+     * Struct-like class to represent the signature of a term condition.
+     */
+    private static final class Signature {
+	/**
+	 * The relation of the condition.
+	 */
+	private final short relation;
+
+	/**
+	 * The first threshold value of the condition.
+	 */
+	private final double first;
+
+	/**
+	 * The second threshold value of the condition.
+	 */
+	private final double second;
+
+	/**
+	 * Creates a new <code>Signature</code>.
+	 * 
+	 * @param condition
+	 *            the term condition.
+	 */
+	private Signature(Condition condition) {
+	    relation = condition.relation;
+	    // adding 0.0 maps -0.0 to 0.0, which are equal under ==
+	    first = condition.value[0] + 0.0;
+	    second = condition.value[1] + 0.0;
+	}
+
+	/**
+	 * Returns the signature of the specified term.
+	 * 
+	 * @param term
+	 *            the term.
+	 * 
+	 * @return the signature of the specified term, or <code>null</code>
+	 *         if the term does not have a condition.
+	 */
+	static Signature of(Term term) {
+	    if (term == null || term.condition() == null) {
+		return null;
+	    }
+
+	    return new Signature(term.condition());
+	}
+
+	@Override
+	public boolean equals(Object o) {
+	    if (!(o instanceof Signature)) {
+		return false;
+	    }
+
+	    Signature s = (Signature) o;
+
+	    return relation == s.relation
+		    && Double.compare(first, s.first) == 0
+		    && Double.compare(second, s.second) == 0;
+	}
+
+	@Override
+	public int hashCode() {
+	    int hash = relation;
+	    hash = (31 * hash) + Double.hashCode(first);
+	    hash = (31 * hash) + Double.hashCode(second);
+
+	    return hash;
+	}
+    }
+}
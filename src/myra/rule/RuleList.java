@@ -19,13 +19,22 @@
 
 package myra.rule;
 
+import static myra.datamining.Dataset.COVERED;
 import static myra.datamining.Dataset.NOT_COVERED;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.lang.reflect.Array;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 
 import myra.Config;
 import myra.Cost;
+import myra.classification.Label;
+import myra.datamining.Column;
 import myra.datamining.Dataset;
 import myra.datamining.Dataset.Instance;
 import myra.datamining.Model;
@@ -72,8 +81,82 @@ public class RuleList implements Model, Comparable<RuleList> {
 	rules = Arrays.copyOf(rules, rules.length + 1);
 	rules[rules.length - 1] = rule;
     }
-    
-    //public 
+
+    /**
+     * Adds the rules to the end of the list, in the order they are returned
+     * by the collection's iterator.
+     * 
+     * @param collection
+     *            the rules to add.
+     */
+    public void addAll(Collection<? extends Rule> collection) {
+	int index = rules.length;
+	rules = Arrays.copyOf(rules, rules.length + collection.size());
+
+	for (Rule rule : collection) {
+	    rules[index++] = rule;
+	}
+    }
+
+    /**
+     * Removes duplicated rules from the list, keeping the first occurrence of
+     * each rule. Rules are compared using {@link Rule#equals(Object)}, so
+     * rules with the same terms (in any order) and predicted value are
+     * duplicates.
+     * 
+     * @return the number of rules removed.
+     */
+    public int removeDuplicates() {
+	LinkedHashSet<Rule> unique = new LinkedHashSet<>(Arrays.asList(rules));
+	int removed = rules.length - unique.size();
+
+	if (removed > 0) {
+	    rules = unique.toArray(Arrays.copyOf(rules, 0));
+	}
+
+	return removed;
+    }
+
+    /**
+     * Removes the rules that are subsumed by a preceding rule with the same
+     * predicted value. Since a subsumed rule can only cover instances already
+     * covered by the preceding rule, removing it does not change the
+     * predictions of the list.
+     * 
+     * @return the number of rules removed.
+     * 
+     * @see SubsumptionIndex
+     */
+    public int removeSubsumed() {
+	return remove(new SubsumptionIndex(rules).subsumed(true));
+    }
+
+    /**
+     * Removes the rules at the specified indexes from the list.
+     * 
+     * @param indexes
+     *            the indexes of the rules to remove.
+     * 
+     * @return the number of rules removed.
+     */
+    protected int remove(BitSet indexes) {
+	int removed = indexes.cardinality();
+
+	if (removed > 0) {
+	    Rule[] remaining = Arrays.copyOf(rules, rules.length - removed);
+	    int position = 0;
+
+	    for (int i = 0; i < rules.length; i++) {
+		if (!indexes.get(i)) {
+		    remaining[position++] = rules[i];
+		}
+	    }
+
+	    rules = remaining;
+	}
+
+	return removed;
+    }
 
     /**
      * Returns the list of rules.
@@ -179,6 +262,126 @@ public class RuleList implements Model, Comparable<RuleList> {
 	}
     }
 
+    /**
+     * Applies the rule list to the specified dataset, adding the coverage of
+     * each rule to the coverage already held by the rule, and re-evaluates the
+     * quality of the rules from the merged coverage. Only the specified
+     * dataset is scanned, so the cost of updating the rules with a new batch
+     * does not depend on the size of the previous batches.
+     * 
+     * @param dataset
+     *            the new batch.
+     * 
+     * @see Rule#accumulate(Dataset, Dataset.Instance[])
+     */
+    public void accumulate(Dataset dataset) {
+	Instance[] instances = Instance.newArray(dataset.size());
+	Instance.markAll(instances, NOT_COVERED);
+	RuleFunction function =
+		Config.CONFIG.get(RuleFunction.DEFAULT_FUNCTION);
+
+	for (int i = 0; i < rules.length; i++) {
+	    if (rules[i].isEnabled()) {
+		rules[i].accumulate(dataset, instances);
+
+		if (rules[i].getQuality() != null) {
+		    rules[i].setQuality(function
+			    .evaluate(dataset, rules[i], instances));
+		}
+
+		Dataset.markCovered(instances);
+	    }
+	}
+    }
+
+    /**
+     * Marks the instances misclassified by the default rule (or not covered
+     * by any rule) as <code>NOT_COVERED</code> and the remaining instances
+     * as <code>COVERED</code>. Each instance is classified by the first
+     * enabled rule that covers it; instances classified by a non-default
+     * rule are marked as <code>COVERED</code> even if misclassified, since
+     * rules added before the default rule never classify them.
+     * 
+     * @param dataset
+     *            the current dataset.
+     * @param instances
+     *            the instances flag array.
+     * 
+     * @return the number of misclassified (<code>NOT_COVERED</code>)
+     *         instances reaching the default rule.
+     */
+    public int markCorrect(Dataset dataset, Instance[] instances) {
+	Column.Nominal target = dataset.nominal(dataset.classIndex());
+	int available = 0;
+
+	for (int i = 0; i < instances.length; i++) {
+	    instances[i].flag = NOT_COVERED;
+
+	    for (Rule rule : rules) {
+		if (rule.isEnabled() && rule.covers(dataset, i)) {
+		    Label predicted = (Label) rule.getConsequent();
+
+		    if (!rule.isEmpty()
+			    || predicted.value() == target.code(i)) {
+			instances[i].flag = COVERED;
+		    }
+
+		    break;
+		}
+	    }
+
+	    if (instances[i].flag == NOT_COVERED) {
+		available++;
+	    }
+	}
+
+	return available;
+    }
+
+    /**
+     * Writes the rule list to the specified output. The list can be recreated
+     * using {@link #read(DataInput)}.
+     * 
+     * @param out
+     *            the output to write to.
+     * 
+     * @throws IOException
+     *             if an I/O error occurs.
+     */
+    public void write(DataOutput out) throws IOException {
+	Rule.write(out, quality);
+	out.writeInt(iteration);
+	out.writeInt(rules.length);
+
+	for (Rule rule : rules) {
+	    rule.write(out);
+	}
+    }
+
+    /**
+     * Reads a rule list written by {@link #write(DataOutput)}.
+     * 
+     * @param in
+     *            the input to read from.
+     * 
+     * @return the rule list read.
+     * 
+     * @throws IOException
+     *             if an I/O error occurs.
+     */
+    public static RuleList read(DataInput in) throws IOException {
+	RuleList list = new RuleList();
+	list.quality = Rule.readCost(in);
+	list.iteration = in.readInt();
+	list.rules = Arrays.copyOf(list.rules, in.readInt());
+
+	for (int i = 0; i < list.rules.length; i++) {
+	    list.rules[i] = Rule.read(in);
+	}
+
+	return list;
+    }
+
     /**
      * Removes rules that are not enabled from the rule list.
      */
@@ -219,7 +422,7 @@ public class RuleList implements Model, Comparable<RuleList> {
      * @return the predicted class value of the specified instance.
      */
     public Prediction predict(Dataset dataset, int instance) {
-	for (int i = 1; i < rules.length; i++) {
+	for (int i = 0; i < rules.length; i++) {
 	    if (rules[i].isEnabled() && rules[i].covers(dataset, instance)) {
 		return rules[i].getConsequent();
 	    }
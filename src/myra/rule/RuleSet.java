@@ -43,6 +43,20 @@ public class RuleSet extends RuleList {
     public static final ConfigKey<ConflictResolution> CONFLICT_RESOLUTION =
 	    new ConfigKey<ConflictResolution>();
 
+    /**
+     * Removes the rules that are subsumed by another rule with the same
+     * predicted value. Since rules are unordered, the subsuming rule can be
+     * anywhere in the set.
+     * 
+     * @return the number of rules removed.
+     * 
+     * @see SubsumptionIndex
+     */
+    @Override
+    public int removeSubsumed() {
+	return remove(new SubsumptionIndex(rules).subsumed(false));
+    }
+
     @Override
     public void apply(Dataset dataset) {
 	Instance[] instances = Instance.newArray(dataset.size());
@@ -0,0 +1,320 @@
+/*
+ * SubsumptionIndex.java
+ * (this file is part of MYRA)
+ * 
+ * Copyright 2008-2015 Fernando Esteban Barril Otero
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package myra.rule;
+
+import static myra.datamining.Attribute.ANY_OF;
+import static myra.datamining.Attribute.EQUAL_TO;
+import static myra.datamining.Attribute.GREATER_THAN;
+import static myra.datamining.Attribute.GREATER_THAN_OR_EQUAL_TO;
+import static myra.datamining.Attribute.IN_RANGE;
+import static myra.datamining.Attribute.LESS_THAN;
+import static myra.datamining.Attribute.LESS_THAN_OR_EQUAL_TO;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Objects;
+
+import myra.datamining.Attribute.Condition;
+import myra.rule.Rule.Term;
+
+/**
+ * Index to find subsumed rules. A rule is subsumed by a more general rule
+ * with the same predicted value when every condition of the general rule is
+ * implied by a condition of the subsumed rule (e.g., <code>x &lt;= 5</code>
+ * implies <code>x &lt;= 7</code>), so the general rule covers every instance
+ * covered by the subsumed rule.
+ * 
+ * <p>
+ * The rules are indexed by the attributes used in their conditions: only the
+ * rules whose attributes are a subset of the attributes of a rule are tested
+ * as candidates to subsume it.
+ * </p>
+ * 
+ * @author Fernando Esteban Barril Otero
+ */
+public class SubsumptionIndex {
+    /**
+     * The indexed rules.
+     */
+    private final Rule[] rules;
+
+    /**
+     * Mapping of attribute indexes to the indexes of the rules containing a
+     * condition on that attribute.
+     */
+    private final HashMap<Integer, BitSet> index = new HashMap<>();
+
+    /**
+     * The attributes used in the conditions of each rule.
+     */
+    private final BitSet[] attributes;
+
+    /**
+     * Creates a new <code>SubsumptionIndex</code>. Rules that are not enabled
+     * and rules without terms (default rules) are not indexed.
+     * 
+     * @param rules
+     *            the rules to index.
+     */
+    public SubsumptionIndex(Rule[] rules) {
+	this.rules = rules;
+	attributes = new BitSet[rules.length];
+
+	for (int i = 0; i < rules.length; i++) {
+	    attributes[i] = new BitSet();
+
+	    if (rules[i].isEnabled()) {
+		for (Term term : rules[i].terms()) {
+		    if (term != null && term.isEnabeld()) {
+			attributes[i].set(term.condition().attribute);
+		    }
+		}
+	    }
+
+	    for (int a = attributes[i].nextSetBit(0); a >= 0;
+		    a = attributes[i].nextSetBit(a + 1)) {
+		BitSet posting = index.get(a);
+
+		if (posting == null) {
+		    posting = new BitSet(rules.length);
+		    index.put(a, posting);
+		}
+
+		posting.set(i);
+	    }
+	}
+    }
+
+    /**
+     * Returns the indexes of the subsumed rules. When the rules are ordered
+     * (e.g., a rule list), a rule is only subsumed by a rule that precedes it,
+     * since only then the subsumed rule can never be used; otherwise, any
+     * rule can subsume another rule. When two rules subsume each other, only
+     * the last one is considered subsumed.
+     * 
+     * @param ordered
+     *            indicates if the rules are ordered.
+     * 
+     * @return the indexes of the subsumed rules.
+     */
+    public BitSet subsumed(boolean ordered) {
+	BitSet subsumed = new BitSet(rules.length);
+	int[] hits = new int[rules.length];
+	int[] touched = new int[rules.length];
+
+	for (int i = 0; i < rules.length; i++) {
+	    int count = 0;
+
+	    // counts, for each candidate, how many of its attributes are
+	    // also used by the current rule
+	    for (int a = attributes[i].nextSetBit(0); a >= 0;
+		    a = attributes[i].nextSetBit(a + 1)) {
+		BitSet posting = index.get(a);
+
+		for (int j = posting.nextSetBit(0); j >= 0;
+			j = posting.nextSetBit(j + 1)) {
+		    if (hits[j] == 0) {
+			touched[count++] = j;
+		    }
+
+		    hits[j]++;
+		}
+	    }
+
+	    for (int k = 0; k < count; k++) {
+		int j = touched[k];
+
+		if (!subsumed.get(i) && j != i
+			&& hits[j] == attributes[j].cardinality()
+			&& (j < i || !ordered)
+			&& subsumes(rules[j], rules[i])
+			&& (j < i || !subsumes(rules[i], rules[j]))) {
+		    subsumed.set(i);
+		}
+
+		hits[j] = 0;
+	    }
+	}
+
+	return subsumed;
+    }
+
+    /**
+     * Returns <code>true</code> if the general rule subsumes the specific
+     * rule.
+     * 
+     * @param general
+     *            the general rule.
+     * @param specific
+     *            the specific rule.
+     * 
+     * @return <code>true</code> if the general rule subsumes the specific
+     *         rule; <code>false</code> otherwise.
+     */
+    public static boolean subsumes(Rule general, Rule specific) {
+	if (!Objects.equals(general.getConsequent(),
+			    specific.getConsequent())) {
+	    return false;
+	}
+
+	for (Term g : general.terms()) {
+	    if (g == null || !g.isEnabeld()) {
+		continue;
+	    }
+
+	    boolean implied = false;
+
+	    for (Term s : specific.terms()) {
+		if (s != null && s.isEnabeld()
+			&& implies(s.condition(), g.condition())) {
+		    implied = true;
+		    break;
+		}
+	    }
+
+	    if (!implied) {
+		return false;
+	    }
+	}
+
+	return true;
+    }
+
+    /**
+     * Returns <code>true</code> if every value satisfying the specific
+     * condition also satisfies the general condition.
+     * 
+     * @param specific
+     *            the specific condition.
+     * @param general
+     *            the general condition.
+     * 
+     * @return <code>true</code> if the specific condition implies the general
+     *         condition; <code>false</code> otherwise.
+     */
+    public static boolean implies(Condition specific, Condition general) {
+	if (specific.attribute != general.attribute) {
+	    return false;
+	}
+
+	// a finite set of values is tested value by value
+	if (specific.relation == EQUAL_TO) {
+	    return general.satisfies(specific.value[0]);
+	} else if (specific.relation == ANY_OF) {
+	    for (double v : specific.value) {
+		if (!general.satisfies(v)) {
+		    return false;
+		}
+	    }
+
+	    return true;
+	}
+
+	if (general.relation == EQUAL_TO || general.relation == ANY_OF) {
+	    // an interval is never contained in a finite set of values
+	    return false;
+	}
+
+	Interval s = Interval.of(specific);
+	Interval g = Interval.of(general);
+
+	if (s == null || g == null) {
+	    return false;
+	}
+
+	boolean lower = s.lower > g.lower
+		|| (s.lower == g.lower && (g.lowerClosed || !s.lowerClosed));
+	boolean upper = s.upper < g.upper
+		|| (s.upper == g.upper && (g.upperClosed || !s.upperClosed));
+
+	return lower && upper;
+    }
+
+    /**
+     * Struct-like class to represent the interval of values satisfying a
+     * continuous condition. Infinite bounds are open.
+     */
+    private static final class Interval {
+	/**
+	 * The lower bound.
+	 */
+	double lower = Double.NEGATIVE_INFINITY;
+
+	/**
+	 * Indicates if the lower bound is included.
+	 */
+	boolean lowerClosed;
+
+	/**
+	 * The upper bound.
+	 */
+	double upper = Double.POSITIVE_INFINITY;
+
+	/**
+	 * Indicates if the upper bound is included.
+	 */
+	boolean upperClosed;
+
+	/**
+	 * Returns the interval of values satisfying the specified condition.
+	 * 
+	 * @param condition
+	 *            the condition.
+	 * 
+	 * @return the interval of values satisfying the condition;
+	 *         <code>null</code> if the condition does not represent an
+	 *         interval.
+	 */
+	static Interval of(Condition condition) {
+	    Interval interval = new Interval();
+
+	    switch (condition.relation) {
+	    case LESS_THAN_OR_EQUAL_TO:
+		interval.upper = condition.value[0];
+		interval.upperClosed = true;
+		break;
+
+	    case LESS_THAN:
+		interval.upper = condition.value[0];
+		break;
+
+	    case GREATER_THAN:
+		interval.lower = condition.value[0];
+		break;
+
+	    case GREATER_THAN_OR_EQUAL_TO:
+		interval.lower = condition.value[0];
+		interval.lowerClosed = true;
+		break;
+
+	    case IN_RANGE:
+		interval.lower = condition.value[0];
+		interval.lowerClosed = true;
+		interval.upper = condition.value[1];
+		break;
+
+	    default:
+		return null;
+	    }
+
+	    return interval;
+	}
+    }
+}
@@ -84,6 +84,8 @@ public class TopDownListPruner implements ListPruner {
      *            the index of the current rule being updated.
      */
     private void update(Dataset dataset, RuleList list, int index) {
+	final int minimum = CONFIG.get(MINIMUM_CASES);
+	final Assignator assignator = CONFIG.get(ASSIGNATOR);
 	Instance[] instances = Instance.newArray(dataset.size());
 	Instance.markAll(instances, NOT_COVERED);
 
@@ -94,9 +96,8 @@ public class TopDownListPruner implements ListPruner {
 		// updates the rule coverage
 		int coverage = list.rules[i].apply(dataset, instances);
 
-		if (coverage >= CONFIG.get(MINIMUM_CASES)) {
-		    CONFIG.get(ASSIGNATOR)
-			    .assign(dataset, list.rules[i], instances);
+		if (coverage >= minimum) {
+		    assignator.assign(dataset, list.rules[i], instances);
 		    Dataset.markCovered(instances);
 		    // in case this rule was disabled
 		    list.rules[i].setEnabled(true);
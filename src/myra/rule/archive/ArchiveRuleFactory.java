@@ -19,8 +19,6 @@
 
 package myra.rule.archive;
 
-import static myra.Config.CONFIG;
-import static myra.datamining.Algorithm.RANDOM_GENERATOR;
 import static myra.rule.Graph.START_INDEX;
 import myra.classification.rule.SinglePassPruner;
 import myra.datamining.Dataset;
@@ -30,6 +28,7 @@ import myra.rule.Rule;
 import myra.rule.Rule.Term;
 import myra.rule.archive.Graph.Vertex;
 import myra.rule.pittsburgh.LevelRuleFactory;
+import myra.util.RandomStreams;
 
 /**
  * Rule factory that uses a archive to sample value for rules' terms. Rules
@@ -127,7 +126,7 @@ public class ArchiveRuleFactory extends LevelRuleFactory {
 	    }
 
 	    // roulette selection
-	    double slot = CONFIG.get(RANDOM_GENERATOR).nextDouble();
+	    double slot = RandomStreams.current().nextDouble();
 	    int selected = Graph.END_INDEX;
 
 	    for (int i = 0; i < pheromone.length; i++) {
@@ -111,4 +111,39 @@ public final class EdgePheromonePolicy implements PheromonePolicy {
 	    }
 	}
     }
+
+    /**
+     * Checks if the pheromone values in the specified graph have converged to
+     * the specified rule. Since the pheromone values of each vertex's edges
+     * are normalised, the values have converged when each edge of the rule
+     * holds at least {@link #CONVERGED} of the pheromone.
+     * 
+     * @param graph
+     *            the construction graph.
+     * @param rule
+     *            the rule to check.
+     * 
+     * @return <code>true</code> if the pheromone values have converged;
+     *         <code>false</code> otherwise.
+     */
+    public boolean hasConverged(Graph graph, Rule rule) {
+	Term[] terms = rule.terms();
+
+	if (terms.length == 0) {
+	    return false;
+	}
+
+	Entry[][] matrix = graph.matrix();
+	int from = START_INDEX;
+
+	for (int i = 0; i < terms.length; i++) {
+	    if (matrix[from][terms[i].index()].value(0) < CONVERGED) {
+		return false;
+	    }
+
+	    from = terms[i].index();
+	}
+
+	return true;
+    }
 }
\ No newline at end of file
@@ -22,6 +22,7 @@ package myra.rule.irl;
 import static myra.Config.CONFIG;
 import static myra.datamining.Dataset.NOT_COVERED;
 import static myra.datamining.Dataset.RULE_COVERED;
+import static myra.datamining.IntervalBuilder.MINIMUM_CASES;
 import static myra.rule.Heuristic.DEFAULT_HEURISTIC;
 import static myra.rule.Pruner.DEFAULT_PRUNER;
 import static myra.rule.RuleFunction.DEFAULT_FUNCTION;
@@ -33,7 +34,9 @@ import myra.datamining.Dataset;
 import myra.datamining.Dataset.Instance;
 import myra.rule.Graph;
 import myra.rule.Graph.Entry;
+import myra.rule.Pruner;
 import myra.rule.Rule;
+import myra.rule.RuleFunction;
 
 /**
  * The <code>FindRuleActivity</code> is responsible for evolving a single rule
@@ -68,6 +71,38 @@ public class FindRuleActivity extends IterativeActivity<Rule> {
      */
     private Entry[] heuristic;
 
+    /**
+     * The warm start state, or <code>null</code> for a cold start.
+     */
+    private WarmStart warmStart;
+
+    /**
+     * The position of the rule among the rules created by the current
+     * training.
+     */
+    private int position;
+
+    /**
+     * The rule factory, resolved when the activity is created.
+     */
+    private final RuleFactory factory;
+
+    /**
+     * The rule pruner, resolved when the activity is created.
+     */
+    private final Pruner pruner;
+
+    /**
+     * The rule quality function, resolved when the activity is created.
+     */
+    private final RuleFunction function;
+
+    /**
+     * The maximum number of stagnated iterations, resolved when the activity
+     * is created.
+     */
+    private final int stagnationLimit;
+
     /**
      * Creates a new <code>FindRuleActivity</code> object.
      * 
@@ -81,9 +116,40 @@ public class FindRuleActivity extends IterativeActivity<Rule> {
     public FindRuleActivity(Graph graph,
 			    Instance[] instances,
 			    Dataset training) {
+	this(graph, instances, training, null, 0);
+    }
+
+    /**
+     * Creates a new <code>FindRuleActivity</code> object.
+     * 
+     * @param graph
+     *            the construction graph.
+     * @param instances
+     *            the instances to be used.
+     * @param training
+     *            the current dataset.
+     * @param warmStart
+     *            the warm start state, or <code>null</code> for a cold
+     *            start.
+     * @param position
+     *            the position of the rule among the rules created by the
+     *            current training.
+     */
+    public FindRuleActivity(Graph graph,
+			    Instance[] instances,
+			    Dataset training,
+			    WarmStart warmStart,
+			    int position) {
 	this.graph = graph;
 	this.instances = instances;
 	this.dataset = training;
+	this.warmStart = warmStart;
+	this.position = position;
+
+	factory = CONFIG.get(DEFAULT_FACTORY);
+	pruner = CONFIG.get(DEFAULT_PRUNER);
+	function = CONFIG.get(DEFAULT_FUNCTION);
+	stagnationLimit = CONFIG.get(STAGNATION);
     }
 
     @Override
@@ -92,13 +158,10 @@ public class FindRuleActivity extends IterativeActivity<Rule> {
 	// so we need to work on a copy to avoid concurrency problems
 	Instance[] clone = Instance.copyOf(instances);
 
-	Rule rule = CONFIG.get(DEFAULT_FACTORY)
-		.create(graph, heuristic, dataset, clone);
+	Rule rule = factory.create(graph, heuristic, dataset, clone);
 
-	CONFIG.get(DEFAULT_PRUNER).prune(dataset, rule, clone);
-	rule.setQuality(CONFIG.get(DEFAULT_FUNCTION).evaluate(dataset,
-							      rule,
-							      clone));
+	pruner.prune(dataset, rule, clone);
+	rule.setQuality(function.evaluate(dataset, rule, clone));
 
 	return rule;
     }
@@ -120,11 +183,92 @@ public class FindRuleActivity extends IterativeActivity<Rule> {
 
 	heuristic =
 		CONFIG.get(DEFAULT_HEURISTIC).compute(graph, dataset, clone);
+
+	if (warmStart != null) {
+	    warmStart.restore(position, graph, heuristic);
+	    seed(warmStart.rule(position, graph));
+	}
+    }
+
+    /**
+     * Uses the specified rule, recorded by a previous training, as the
+     * initial global best. The rule is evaluated on the current instances and
+     * it is only used if it covers the minimum number of instances.
+     * 
+     * @param rule
+     *            the recorded rule, or <code>null</code>.
+     */
+    private void seed(Rule rule) {
+	if (rule == null) {
+	    return;
+	}
+
+	Instance[] clone = Instance.copyOf(instances);
+
+	if (rule.apply(dataset, clone) >= CONFIG.get(MINIMUM_CASES)) {
+	    rule.setQuality(function.evaluate(dataset, rule, clone));
+	    globalBest = rule;
+	}
+    }
+
+    /**
+     * Returns the heuristic values for the graph's vertices.
+     * 
+     * @return the heuristic values for the graph's vertices.
+     */
+    Entry[] heuristic() {
+	return heuristic;
+    }
+
+    /**
+     * Sets the heuristic values for the graph's vertices. This is used when
+     * ants are created without initialising the activity.
+     * 
+     * @param heuristic
+     *            the heuristic values for the graph's vertices.
+     */
+    void setHeuristic(Entry[] heuristic) {
+	this.heuristic = heuristic;
+    }
+
+    /**
+     * Returns the instances being used.
+     * 
+     * @return the instances being used.
+     */
+    Instance[] instances() {
+	return instances;
+    }
+
+    /**
+     * Returns the construction graph.
+     * 
+     * @return the construction graph.
+     */
+    Graph graph() {
+	return graph;
+    }
+
+    /**
+     * Receives a rule discovered by another colony. The rule becomes the
+     * global best if it is better than the current global best.
+     * 
+     * @param rule
+     *            the received rule.
+     */
+    void migrate(Rule rule) {
+	if (rule != null
+		&& (globalBest == null || rule.compareTo(globalBest) > 0)) {
+	    globalBest = rule;
+	    stagnation = 0;
+	}
     }
 
     @Override
     public boolean terminate() {
-	return super.terminate() || stagnation > CONFIG.get(STAGNATION);
+	return super.terminate() || stagnation > stagnationLimit
+		|| (convergence && globalBest != null
+			&& policy.hasConverged(graph, globalBest));
     }
 
     @Override
@@ -0,0 +1,497 @@
+/*
+ * IslandModel.java
+ * (this file is part of MYRA)
+ * 
+ * Copyright 2008-2015 Fernando Esteban Barril Otero
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package myra.rule.irl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import myra.Activity;
+import myra.Archive;
+import myra.Config.ConfigKey;
+import myra.RunContext;
+import myra.Scheduler;
+import myra.datamining.Dataset;
+import myra.datamining.Dataset.Instance;
+import myra.rule.Graph;
+import myra.rule.Graph.Entry;
+import myra.rule.Rule;
+import myra.util.RandomStreams;
+
+/**
+ * Island model for the discovery of a rule. Several independent colonies
+ * (islands), each with its own construction graph, search for a rule on
+ * separate threads. Every {@link #MIGRATION_INTERVAL} iterations, each island
+ * sends its best rule and a copy of its pheromone matrix to the next island
+ * in a ring; the receiving island adopts the rule if it is better than its own
+ * best and moves its pheromone values halfway toward the received ones.
+ * 
+ * <p>
+ * Islands only wait for the state of their neighbour, so there is no global
+ * barrier between them. Each island uses its own random stream, derived from
+ * the configured random generator; therefore the discovered rule does not
+ * depend on the scheduling of the threads.
+ * </p>
+ * 
+ * @author Fernando Esteban Barril Otero
+ */
+public class IslandModel {
+    /**
+     * The config key for the number of islands.
+     */
+    public final static ConfigKey<Integer> ISLANDS = new ConfigKey<>();
+
+    /**
+     * The config key for the number of iterations between migrations.
+     */
+    public final static ConfigKey<Integer> MIGRATION_INTERVAL =
+	    new ConfigKey<>();
+
+    /**
+     * The current dataset.
+     */
+    private final Dataset dataset;
+
+    /**
+     * The construction graph of each island.
+     */
+    private final Graph[] graphs;
+
+    /**
+     * The number of iterations between migrations.
+     */
+    private final int interval;
+
+    /**
+     * The threads executing the islands.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * The deadline (as given by {@link System#nanoTime()}) of the islands.
+     */
+    private long deadline;
+
+    /**
+     * Indicates whether the islands have a deadline.
+     */
+    private boolean limited;
+
+    /**
+     * Creates a new <code>IslandModel</code>.
+     * 
+     * @param dataset
+     *            the current dataset.
+     * @param islands
+     *            the number of islands.
+     * @param interval
+     *            the number of iterations between migrations.
+     */
+    public IslandModel(Dataset dataset, int islands, int interval) {
+	if (islands < 1) {
+	    throw new IllegalArgumentException("Invalid number of islands: "
+		    + islands);
+	}
+
+	if (interval < 1) {
+	    throw new IllegalArgumentException("Invalid migration interval: "
+		    + interval);
+	}
+
+	this.dataset = dataset;
+	this.interval = interval;
+
+	graphs = new Graph[islands];
+
+	for (int i = 0; i < islands; i++) {
+	    graphs[i] = new Graph(dataset);
+	}
+
+	executor = Executors.newFixedThreadPool(islands, new ThreadFactory() {
+	    private int id = 0;
+
+	    @Override
+	    public Thread newThread(Runnable r) {
+		Thread thread = new Thread(r, "IslandModel::island" + (id++));
+		// does not prevent the JVM from exiting if the training fails
+		thread.setDaemon(true);
+		return thread;
+	    }
+	});
+    }
+
+    /**
+     * Sets the deadline of the islands for the next rules discovered.
+     * 
+     * @param deadline
+     *            the deadline, as given by {@link System#nanoTime()}.
+     * 
+     * @see myra.IterativeActivity#setDeadline(long)
+     */
+    public void setDeadline(long deadline) {
+	this.deadline = deadline;
+	limited = true;
+    }
+
+    /**
+     * Discovers a rule, running all islands until each one terminates.
+     * 
+     * @param instances
+     *            the instances to be used.
+     * @param warmStart
+     *            the warm start state, or <code>null</code> for a cold
+     *            start.
+     * @param position
+     *            the position of the rule among the rules created by the
+     *            current training.
+     * 
+     * @return the activity of the island that discovered the best rule.
+     */
+    public FindRuleActivity run(Instance[] instances,
+				WarmStart warmStart,
+				int position) {
+	final RunContext context = RunContext.current();
+	final Mailbox[] mailboxes = new Mailbox[graphs.length];
+	final Island[] islands = new Island[graphs.length];
+	List<Callable<Void>> tasks = new ArrayList<>(graphs.length);
+
+	for (int i = 0; i < graphs.length; i++) {
+	    mailboxes[i] = new Mailbox();
+	}
+
+	for (int i = 0; i < graphs.length; i++) {
+	    FindRuleActivity activity = new FindRuleActivity(graphs[i],
+							     instances,
+							     dataset,
+							     warmStart,
+							     position);
+
+	    if (limited) {
+		activity.setDeadline(deadline);
+	    }
+
+	    final Island island =
+		    new Island(activity,
+			       mailboxes[i],
+			       mailboxes[(i + graphs.length - 1)
+				       % graphs.length]);
+	    // the seeds are drawn by the calling thread, so that the
+	    // streams of the islands are reproducible
+	    final long seed = RandomStreams.current().nextLong();
+	    islands[i] = island;
+
+	    tasks.add(new Callable<Void>() {
+		@Override
+		public Void call() {
+		    RunContext previous = RunContext.bind(context);
+		    RandomStreams.set(new SplittableRandom(seed));
+
+		    try {
+			Scheduler<Rule> scheduler = new Scheduler<>(1);
+			scheduler.setActivity(island);
+			scheduler.run();
+		    } finally {
+			island.outbox.close();
+			island.inbox.detach();
+			RandomStreams.set(null);
+			RunContext.bind(previous);
+		    }
+
+		    return null;
+		}
+	    });
+	}
+
+	try {
+	    for (Future<Void> future : executor.invokeAll(tasks)) {
+		future.get();
+	    }
+	} catch (InterruptedException e) {
+	    throw new RuntimeException(e);
+	} catch (ExecutionException e) {
+	    throw new RuntimeException(e.getCause());
+	}
+
+	// the first island with the best rule wins
+	FindRuleActivity best = islands[0].activity;
+
+	for (int i = 1; i < islands.length; i++) {
+	    if (islands[i].activity.getBest()
+		    .compareTo(best.getBest()) > 0) {
+		best = islands[i].activity;
+	    }
+	}
+
+	return best;
+    }
+
+    /**
+     * Terminates the threads executing the islands.
+     */
+    public void shutdown() {
+	executor.shutdown();
+    }
+
+    /**
+     * Moves the pheromone values of the matrix halfway toward the values of
+     * the received matrix. Undefined (<code>NaN</code>) values are left
+     * unchanged.
+     * 
+     * @param matrix
+     *            the pheromone matrix to update.
+     * @param received
+     *            the received pheromone matrix.
+     */
+    private static void blend(Entry[][] matrix, Entry[][] received) {
+	for (int i = 0; i < matrix.length; i++) {
+	    for (int j = 0; j < matrix[i].length; j++) {
+		Entry target = matrix[i][j];
+		Entry other = received[i][j];
+
+		if (target != null && other != null) {
+		    int levels = Math.max(target.size(), other.size());
+
+		    for (int k = 0; k < levels; k++) {
+			double value = target.value(k);
+			double migrant = other.value(k);
+
+			if (!Double.isNaN(value) && !Double.isNaN(migrant)) {
+			    target.set(k, (value + migrant) / 2.0);
+			}
+		    }
+		}
+	    }
+	}
+    }
+
+    /**
+     * Activity of an island. It delegates to a <code>FindRuleActivity</code>
+     * and performs the migration every {@link #interval} iterations.
+     */
+    private class Island implements Activity<Rule> {
+	/**
+	 * The wrapped activity.
+	 */
+	private final FindRuleActivity activity;
+
+	/**
+	 * The mailbox where the state of this island is sent.
+	 */
+	private final Mailbox outbox;
+
+	/**
+	 * The mailbox where the state of the neighbour island is received.
+	 */
+	private final Mailbox inbox;
+
+	/**
+	 * The current iteration.
+	 */
+	private int iteration;
+
+	/**
+	 * Creates a new <code>Island</code>.
+	 * 
+	 * @param activity
+	 *            the wrapped activity.
+	 * @param outbox
+	 *            the mailbox where the state of this island is sent.
+	 * @param inbox
+	 *            the mailbox where the state of the neighbour island is
+	 *            received.
+	 */
+	Island(FindRuleActivity activity, Mailbox outbox, Mailbox inbox) {
+	    this.activity = activity;
+	    this.outbox = outbox;
+	    this.inbox = inbox;
+	}
+
+	@Override
+	public Rule create() {
+	    return activity.create();
+	}
+
+	@Override
+	public boolean search(Archive<Rule> archive) {
+	    return activity.search(archive);
+	}
+
+	@Override
+	public void initialise() {
+	    activity.initialise();
+	    iteration = 0;
+	}
+
+	@Override
+	public boolean terminate() {
+	    return activity.terminate();
+	}
+
+	@Override
+	public void update(Archive<Rule> archive) {
+	    activity.update(archive);
+	    iteration++;
+
+	    if (graphs.length > 1 && (iteration % interval) == 0) {
+		int epoch = iteration / interval;
+		Entry[][] matrix = activity.graph().matrix();
+
+		// the matrix is only copied while the neighbour island is
+		// running to receive it
+		if (!outbox.isDetached()) {
+		    Entry[][] copy = new Entry[matrix.length][];
+
+		    for (int i = 0; i < matrix.length; i++) {
+			copy[i] = WarmStart.copy(matrix[i]);
+		    }
+
+		    outbox.send(epoch, new State(activity.getBest(), copy));
+		}
+
+		State received = inbox.receive(epoch);
+
+		if (received != null) {
+		    blend(matrix, received.matrix);
+		    activity.migrate(received.best);
+		}
+	    }
+	}
+    }
+
+    /**
+     * Mailbox holding the states sent by an island, indexed by the epoch of
+     * the migration.
+     */
+    private static final class Mailbox {
+	/**
+	 * The states sent and not yet received.
+	 */
+	private final HashMap<Integer, State> states = new HashMap<>();
+
+	/**
+	 * Indicates whether the island has terminated.
+	 */
+	private boolean closed;
+
+	/**
+	 * Indicates whether the receiving island has terminated.
+	 */
+	private boolean detached;
+
+	/**
+	 * Sends the state of the specified epoch. The state is discarded if
+	 * the receiving island has terminated.
+	 * 
+	 * @param epoch
+	 *            the epoch of the migration.
+	 * @param state
+	 *            the state to send.
+	 */
+	synchronized void send(int epoch, State state) {
+	    if (!detached) {
+		states.put(epoch, state);
+		notifyAll();
+	    }
+	}
+
+	/**
+	 * Receives the state of the specified epoch, waiting until it is sent.
+	 * 
+	 * @param epoch
+	 *            the epoch of the migration.
+	 * 
+	 * @return the state of the specified epoch, or <code>null</code> if the
+	 *         island terminated before sending it.
+	 */
+	synchronized State receive(int epoch) {
+	    while (!closed && !states.containsKey(epoch)) {
+		try {
+		    wait();
+		} catch (InterruptedException e) {
+		    throw new RuntimeException(e);
+		}
+	    }
+
+	    return states.remove(epoch);
+	}
+
+	/**
+	 * Indicates that the island has terminated.
+	 */
+	synchronized void close() {
+	    closed = true;
+	    notifyAll();
+	}
+
+	/**
+	 * Indicates that the receiving island has terminated. The states not
+	 * yet received are discarded.
+	 */
+	synchronized void detach() {
+	    detached = true;
+	    states.clear();
+	}
+
+	/**
+	 * Returns <code>true</code> if the receiving island has terminated.
+	 * 
+	 * @return <code>true</code> if the receiving island has terminated;
+	 *         <code>false</code> otherwise.
+	 */
+	synchronized boolean isDetached() {
+	    return detached;
+	}
+    }
+
+    /**
+     * Struct-like class to hold the state sent by an island.
+     */
+    private static final class State {
+	/**
+	 * The best rule of the island.
+	 */
+	final Rule best;
+
+	/**
+	 * A copy of the pheromone matrix of the island.
+	 */
+	final Entry[][] matrix;
+
+	/**
+	 * Creates a new <code>State</code>.
+	 * 
+	 * @param best
+	 *            the best rule of the island.
+	 * @param matrix
+	 *            a copy of the pheromone matrix of the island.
+	 */
+	State(Rule best, Entry[][] matrix) {
+	    this.best = best;
+	    this.matrix = matrix;
+	}
+    }
+}
@@ -30,6 +30,7 @@ import myra.rule.Rule;
  * <ul>
  * <li>initialisation</li>
  * <li>update (including evaporation)</li>
+ * <li>convergence test</li>
  * </ul>
  * 
  * @author Fernando Esteban Barril Otero
@@ -41,6 +42,12 @@ public interface PheromonePolicy {
     public static final ConfigKey<PheromonePolicy> DEFAULT_POLICY =
 	    new ConfigKey<PheromonePolicy>();
 
+    /**
+     * The proportion of the pheromone that the terms of a rule must hold for
+     * the pheromone values to be considered converged.
+     */
+    public static final double CONVERGED = 0.99;
+
     /**
      * Initialises the pheromone values of the specified graph.
      * 
@@ -59,4 +66,19 @@ public interface PheromonePolicy {
      *            the rule to guide the update.
      */
     public void update(Graph graph, Rule rule);
+
+    /**
+     * Checks if the pheromone values in the specified graph have converged to
+     * the specified rule, i.e., the pheromone of the rule's terms account for
+     * at least {@link #CONVERGED} of the (normalised) pheromone.
+     * 
+     * @param graph
+     *            the construction graph.
+     * @param rule
+     *            the rule to check.
+     * 
+     * @return <code>true</code> if the pheromone values have converged;
+     *         <code>false</code> otherwise.
+     */
+    public boolean hasConverged(Graph graph, Rule rule);
 }
\ No newline at end of file
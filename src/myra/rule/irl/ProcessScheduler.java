@@ -0,0 +1,101 @@
+/*
+ * ProcessScheduler.java
+ * (this file is part of MYRA)
+ * 
+ * Copyright 2008-2015 Fernando Esteban Barril Otero
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package myra.rule.irl;
+
+import java.io.IOException;
+
+import myra.Scheduler;
+import myra.datamining.Dataset;
+import myra.rule.Rule;
+
+/**
+ * Scheduler that delegates the creation of the ants of a
+ * <code>FindRuleActivity</code> to the processes of a {@link WorkerPool}. The
+ * search and pheromone update are performed by the calling thread, and the
+ * rules created by the workers are added to the archive in the order of the
+ * ants.
+ * 
+ * @author Fernando Esteban Barril Otero
+ */
+public class ProcessScheduler extends Scheduler<Rule> {
+    /**
+     * The worker processes.
+     */
+    private final WorkerPool workers;
+
+    /**
+     * The seed of the random stream of each ant.
+     */
+    private long[] seeds;
+
+    /**
+     * Creates a new <code>ProcessScheduler</code>.
+     * 
+     * @param workers
+     *            the worker processes.
+     * @param dataset
+     *            the current dataset.
+     * @param capacity
+     *            the capacity of the archive.
+     */
+    public ProcessScheduler(WorkerPool workers, Dataset dataset, int capacity) {
+	super(capacity);
+	this.workers = workers;
+
+	try {
+	    workers.load(dataset);
+	} catch (IOException e) {
+	    throw new RuntimeException(e);
+	}
+    }
+
+    @Override
+    protected void initialise() {
+	super.initialise();
+
+	FindRuleActivity activity = (FindRuleActivity) this.activity;
+	seeds = new long[streams.length];
+
+	try {
+	    workers.rule(activity.instances(), activity.heuristic());
+	} catch (IOException e) {
+	    throw new RuntimeException(e);
+	}
+    }
+
+    @Override
+    protected void create() {
+	split();
+
+	for (int i = 0; i < streams.length; i++) {
+	    seeds[i] = streams[i].nextLong();
+	}
+
+	FindRuleActivity activity = (FindRuleActivity) this.activity;
+
+	try {
+	    for (Rule rule : workers.create(activity.graph().matrix(), seeds)) {
+		archive.add(rule);
+	    }
+	} catch (IOException e) {
+	    throw new RuntimeException(e);
+	}
+    }
+}
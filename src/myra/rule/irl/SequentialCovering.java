@@ -20,13 +20,24 @@
 package myra.rule.irl;
 
 import static myra.Config.CONFIG;
+import static myra.IterativeActivity.TIME_BUDGET;
+import static myra.datamining.Dataset.COVERED;
 import static myra.datamining.Dataset.NOT_COVERED;
 import static myra.rule.Assignator.ASSIGNATOR;
+import static myra.rule.irl.IslandModel.ISLANDS;
+import static myra.rule.irl.IslandModel.MIGRATION_INTERVAL;
+import static myra.rule.irl.WorkerPool.WORKERS;
+import java.util.Arrays;
+import java.util.BitSet;
+
 import myra.Config.ConfigKey;
+import myra.classification.Label;
+import myra.datamining.Column;
 import myra.datamining.Dataset;
 import myra.datamining.Model;
 import myra.datamining.Dataset.Instance;
 import myra.Scheduler;
+import myra.rule.DriftMonitor;
 import myra.rule.Graph;
 import myra.rule.Rule;
 import static myra.rule.Rule.DEFAULT_RULE;
@@ -43,38 +54,46 @@ public class SequentialCovering {
      * The config key for the number of uncovered instances.
      */
     public final static ConfigKey<Integer> UNCOVERED = new ConfigKey<Integer>();
+
+    /**
+     * The warm start state, or <code>null</code> for a cold start.
+     */
+    private WarmStart warmStart;
+
+    /**
+     * Creates a new <code>SequentialCovering</code>.
+     */
+    public SequentialCovering() {
+	this(null);
+    }
+
+    /**
+     * Creates a new <code>SequentialCovering</code>.
+     * 
+     * @param warmStart
+     *            the state carried over from the previous training, or
+     *            <code>null</code> for a cold start.
+     */
+    public SequentialCovering(WarmStart warmStart) {
+	this.warmStart = warmStart;
+    }
     
     public Model train(Dataset dataset) {
-	final int uncovered = CONFIG.get(UNCOVERED);
 	Instance[] instances = Instance.newArray(dataset.size());
 	Instance.markAll(instances, NOT_COVERED);
-	Graph graph = new Graph(dataset);
 	RuleList discovered = new RuleList();
-	int available = dataset.size();
-
-	Scheduler<Rule> scheduler = Scheduler.newInstance(1);
 
-	while (available >= uncovered) {
-	    FindRuleActivity activity =
-		    new FindRuleActivity(graph, instances, dataset);
-
-	    // discovers one rule using an ACO procedure
-
-	    scheduler.setActivity(activity);
-	    scheduler.run();
-
-	    Rule best = activity.getBest();
-	    best.apply(dataset, instances);
-
-	    // adds the rule to the list
-	    discovered.add(best);
-
-	    // marks the instances covered by the current rule as
-	    // COVERED, so they are not available for the next
-	    // iterations
-	    available = Dataset.markCovered(instances);
+	if (warmStart != null) {
+	    warmStart.begin();
 	}
 
+	int available = cover(dataset,
+			      instances,
+			      discovered,
+			      dataset.size(),
+			      0,
+			      end());
+
 	if (!discovered.hasDefault()) {
 	    // adds a default rule to the list
 
@@ -101,6 +120,528 @@ public class SequentialCovering {
 	return discovered;
 	
     }
+
+    /**
+     * Error-driven incremental training. New rules are only created to cover
+     * the instances of the dataset misclassified by the default rule of the
+     * current model (see {@link RuleList#markCorrect(Dataset, Instance[])}),
+     * since instances classified by the other rules never reach the new
+     * rules. The new rules are added after the rules of the current model and
+     * before its default rule.
+     * 
+     * @param dataset
+     *            the incremental dataset.
+     * @param model
+     *            the current model.
+     * 
+     * @return the current model extended with the new rules.
+     */
+    public Model train(Dataset dataset, RuleList model) {
+	Instance[] instances = Instance.newArray(dataset.size());
+	int available = model.markCorrect(dataset, instances);
+
+	return extend(dataset, model, instances, available);
+    }
+
+    /**
+     * Drift-aware incremental training. Each rule of the current model whose
+     * error rate on the dataset has increased (see {@link DriftMonitor}) is
+     * replaced, in its position in the list, by new rules created from the
+     * instances that reach the drifted rule and are covered by it. Since the
+     * new rules also cover instances that reach the following rules, the
+     * number of new rules used is the one that classifies the most instances
+     * of the dataset correctly; the drifted rule is kept when none of the new
+     * rules improve on it.
+     * 
+     * @param dataset
+     *            the incremental dataset.
+     * @param model
+     *            the current model.
+     * @param monitor
+     *            the drift monitor.
+     * 
+     * @return the current model with the drifted rules replaced.
+     */
+    public Model retrain(Dataset dataset,
+			 RuleList model,
+			 DriftMonitor monitor) {
+	BitSet drifted = monitor.detect(dataset, model);
+	Instance[] instances = Instance.newArray(dataset.size());
+	RuleList discovered = new RuleList();
+	Rule[] rules = model.rules();
+	int created = 0;
+	// the time budget is shared by the replacement of all drifted rules
+	final long end = end();
+	// instances not covered by the rules already in the list: only these
+	// instances reach the next rule
+	boolean[] reaching = new boolean[dataset.size()];
+	Arrays.fill(reaching, true);
+
+	if (warmStart != null) {
+	    warmStart.begin();
+	}
+
+	for (int i = 0; i < rules.length; i++) {
+	    if (!drifted.get(i) || expired(end)) {
+		// once the time budget is spent, the remaining drifted rules
+		// are kept unchanged
+		append(dataset, discovered, rules[i], reaching);
+		continue;
+	    }
+
+	    int available = reach(dataset, reaching, rules[i], instances);
+	    RuleList replacement = new RuleList();
+	    cover(dataset, instances, replacement, available, created, end);
+	    created += replacement.size();
+
+	    Rule[] candidates = replacement.rules();
+	    int used = select(dataset,
+			      reaching,
+			      rules[i],
+			      candidates,
+			      Arrays.copyOfRange(rules, i + 1, rules.length));
+
+	    if (used == 0) {
+		append(dataset, discovered, rules[i], reaching);
+	    } else {
+		for (int j = 0; j < used; j++) {
+		    append(dataset, discovered, candidates[j], reaching);
+		}
+	    }
+	}
+
+	if (!discovered.hasDefault()) {
+	    // the current model has no default rule, so one is created using
+	    // all instances of the dataset
+	    Instance.markAll(instances, NOT_COVERED);
+	    Rule empty = Rule.newInstance();
+	    empty.apply(dataset, instances);
+	    CONFIG.get(ASSIGNATOR).assign(dataset, empty, instances);
+	    discovered.add(empty);
+	}
+
+	return discovered;
+    }
+
+    /**
+     * Adds the rule to the end of the list, removing the instances covered by
+     * the rule from the instances that reach the next rule.
+     * 
+     * @param dataset
+     *            the current dataset.
+     * @param list
+     *            the rule list.
+     * @param rule
+     *            the rule to add.
+     * @param reaching
+     *            the instances not covered by the rules of the list.
+     */
+    private static void append(Dataset dataset,
+			       RuleList list,
+			       Rule rule,
+			       boolean[] reaching) {
+	list.add(rule);
+
+	if (rule.isEnabled()) {
+	    for (int i = 0; i < reaching.length; i++) {
+		if (reaching[i] && rule.covers(dataset, i)) {
+		    reaching[i] = false;
+		}
+	    }
+	}
+    }
+
+    /**
+     * Marks the instances that reach the specified rule and are covered by
+     * it as <code>NOT_COVERED</code>, and the remaining instances as
+     * <code>COVERED</code>.
+     * 
+     * @param dataset
+     *            the current dataset.
+     * @param reaching
+     *            the instances not covered by the rules preceding the
+     *            specified rule.
+     * @param rule
+     *            the rule.
+     * @param instances
+     *            the instances flag array.
+     * 
+     * @return the number of <code>NOT_COVERED</code> instances.
+     */
+    private static int reach(Dataset dataset,
+			     boolean[] reaching,
+			     Rule rule,
+			     Instance[] instances) {
+	int available = 0;
+
+	for (int i = 0; i < instances.length; i++) {
+	    if (reaching[i] && rule.covers(dataset, i)) {
+		instances[i].flag = NOT_COVERED;
+		available++;
+	    } else {
+		instances[i].flag = COVERED;
+	    }
+	}
+
+	return available;
+    }
+
+    /**
+     * Returns the number of new rules to use in place of a drifted rule, or
+     * <code>0</code> if the drifted rule should be kept. Only the instances
+     * that reach the drifted rule are considered, since the rules preceding
+     * it classify the remaining instances in the same way for every choice.
+     * The classification of each instance by the following rules is computed
+     * once, so every number of new rules is scored in a single pass.
+     * 
+     * @param dataset
+     *            the current dataset.
+     * @param reaching
+     *            the instances not covered by the rules preceding the
+     *            drifted rule.
+     * @param drifted
+     *            the drifted rule.
+     * @param candidates
+     *            the new rules, in order.
+     * @param tail
+     *            the rules following the drifted rule.
+     * 
+     * @return the number of new rules to use.
+     */
+    private static int select(Dataset dataset,
+			      boolean[] reaching,
+			      Rule drifted,
+			      Rule[] candidates,
+			      Rule[] tail) {
+	Column.Nominal target = dataset.nominal(dataset.classIndex());
+	// a default rule created by the search would hide the following rules
+	int length = 0;
+
+	while (length < candidates.length && !candidates[length].isEmpty()) {
+	    length++;
+	}
+
+	// the change in the number of correctly classified instances, relative
+	// to the following rules alone, when the drifted rule is kept and
+	// for the instances first covered by each new rule
+	int kept = 0;
+	int[] gain = new int[length];
+
+	for (int i = 0; i < reaching.length; i++) {
+	    if (reaching[i]) {
+		int base = correct(dataset, target, tail, tail.length, i);
+
+		if (drifted.covers(dataset, i)) {
+		    kept += correct(target, drifted, i) - base;
+		}
+
+		for (int j = 0; j < length; j++) {
+		    if (candidates[j].isEnabled()
+			    && candidates[j].covers(dataset, i)) {
+			gain[j] += correct(target, candidates[j], i)
+				- base;
+			break;
+		    }
+		}
+	    }
+	}
+
+	int used = 0;
+	int best = kept;
+	int score = 0;
+
+	for (int j = 0; j < length; j++) {
+	    score += gain[j];
+
+	    if (score > best) {
+		best = score;
+		used = j + 1;
+	    }
+	}
+
+	return used;
+    }
+
+    /**
+     * Returns <code>1</code> if the first of the rules that covers the
+     * instance predicts its class value; <code>0</code> otherwise, including
+     * when no rule covers the instance.
+     * 
+     * @param dataset
+     *            the current dataset.
+     * @param target
+     *            the class column.
+     * @param rules
+     *            the rules.
+     * @param length
+     *            the number of rules to use.
+     * @param instance
+     *            the index of the instance.
+     * 
+     * @return <code>1</code> if the instance is correctly classified;
+     *         <code>0</code> otherwise.
+     */
+    private static int correct(Dataset dataset,
+			       Column.Nominal target,
+			       Rule[] rules,
+			       int length,
+			       int instance) {
+	for (int j = 0; j < length; j++) {
+	    if (rules[j].isEnabled() && rules[j].covers(dataset, instance)) {
+		return correct(target, rules[j], instance);
+	    }
+	}
+
+	return 0;
+    }
+
+    /**
+     * Returns <code>1</code> if the rule predicts the class value of the
+     * instance; <code>0</code> otherwise. The rule is assumed to cover the
+     * instance.
+     * 
+     * @param target
+     *            the class column.
+     * @param rule
+     *            the rule.
+     * @param instance
+     *            the index of the instance.
+     * 
+     * @return <code>1</code> if the instance is correctly classified;
+     *         <code>0</code> otherwise.
+     */
+    private static int correct(Column.Nominal target,
+			       Rule rule,
+			       int instance) {
+	Label predicted = (Label) rule.getConsequent();
+	return predicted.value() == target.code(instance) ? 1 : 0;
+    }
+
+    /**
+     * Extends the current model with rules covering the
+     * <code>NOT_COVERED</code> instances. The new rules are added after the
+     * rules of the current model and before its default rule.
+     * 
+     * @param dataset
+     *            the incremental dataset.
+     * @param model
+     *            the current model.
+     * @param instances
+     *            the covered instances flag.
+     * @param available
+     *            the number of <code>NOT_COVERED</code> instances.
+     * 
+     * @return the current model extended with the new rules.
+     */
+    private Model extend(Dataset dataset,
+			 RuleList model,
+			 Instance[] instances,
+			 int available) {
+	RuleList discovered = new RuleList();
+	Rule[] rules = model.rules();
+	Rule empty = null;
+
+	for (int i = 0; i < rules.length; i++) {
+	    if (rules[i].isEmpty()) {
+		empty = rules[i];
+	    } else {
+		discovered.add(rules[i]);
+	    }
+	}
+
+	if (warmStart != null) {
+	    warmStart.begin();
+	}
+
+	cover(dataset, instances, discovered, available, 0, end());
+
+	if (!discovered.hasDefault()) {
+	    if (empty == null) {
+		// the current model has no default rule, so one is
+		// created using all instances of the dataset
+		Instance.markAll(instances, NOT_COVERED);
+		empty = Rule.newInstance();
+		empty.apply(dataset, instances);
+		CONFIG.get(ASSIGNATOR).assign(dataset, empty, instances);
+	    }
+
+	    discovered.add(empty);
+	}
+
+	return discovered;
+    }
+
+    /**
+     * Creates rules using an ACO procedure until the number of
+     * <code>NOT_COVERED</code> instances is lower than the allowed number of
+     * uncovered instances. The rules are added to the end of the list.
+     * 
+     * @param dataset
+     *            the current dataset.
+     * @param instances
+     *            the covered instances flag.
+     * @param discovered
+     *            the list of discovered rules.
+     * @param available
+     *            the number of <code>NOT_COVERED</code> instances.
+     * @param position
+     *            the warm start position of the first rule created.
+     * @param end
+     *            the end of the time budget of the training, as given by
+     *            {@link #end()}.
+     * 
+     * @return the number of <code>NOT_COVERED</code> instances after the
+     *         rules are created.
+     */
+    private int cover(Dataset dataset,
+		      Instance[] instances,
+		      RuleList discovered,
+		      int available,
+		      int position,
+		      long end) {
+	final int uncovered = CONFIG.get(UNCOVERED);
+	// the time budget is shared by all rules created by the training
+	final boolean limited = CONFIG.isPresent(TIME_BUDGET);
+	final int initial = available;
+	Graph graph = new Graph(dataset);
+
+	Scheduler<Rule> scheduler = null;
+	IslandModel islands = null;
+
+	if (CONFIG.isPresent(ISLANDS) && CONFIG.get(ISLANDS) > 1) {
+	    islands = new IslandModel(dataset,
+				      CONFIG.get(ISLANDS),
+				      CONFIG.get(MIGRATION_INTERVAL));
+	} else if (CONFIG.isPresent(WORKERS)) {
+	    scheduler = new ProcessScheduler(CONFIG.get(WORKERS), dataset, 1);
+	} else {
+	    scheduler = Scheduler.newInstance(1);
+	}
+
+	for (int rules = 0; available >= uncovered; rules++) {
+	    if (position + rules > 0 && expired(end)) {
+		// the remaining instances are covered by the default rule
+		break;
+	    }
+
+	    FindRuleActivity activity;
+	    long deadline = 0;
+
+	    if (limited) {
+		deadline = deadline(end,
+				    initial - available,
+				    rules,
+				    available - uncovered + 1);
+	    }
+
+	    // discovers one rule using an ACO procedure; the warm start
+	    // position only counts the rules created by the current training,
+	    // not the rules already in the list
+
+	    if (islands == null) {
+		activity = new FindRuleActivity(graph,
+						instances,
+						dataset,
+						warmStart,
+						position + rules);
+
+		if (limited) {
+		    activity.setDeadline(deadline);
+		}
+
+		scheduler.setActivity(activity);
+		scheduler.run();
+	    } else {
+		if (limited) {
+		    islands.setDeadline(deadline);
+		}
+
+		activity = islands.run(instances, warmStart, position + rules);
+	    }
+
+	    if (warmStart != null) {
+		warmStart.record(activity.graph(),
+				 activity.heuristic(),
+				 activity.getBest());
+	    }
+
+	    Rule best = activity.getBest();
+	    best.apply(dataset, instances);
+
+	    // adds the rule to the list
+	    discovered.add(best);
+
+	    // marks the instances covered by the current rule as
+	    // COVERED, so they are not available for the next
+	    // iterations
+	    available = Dataset.markCovered(instances);
+	}
+
+	if (islands != null) {
+	    islands.shutdown();
+	}
+
+	return available;
+    }
+
+    /**
+     * Returns the end of the time budget of a training, as given by
+     * {@link System#nanoTime()}. The value is only meaningful when a time
+     * budget is specified.
+     * 
+     * @return the end of the time budget of a training.
+     */
+    private static long end() {
+	return CONFIG.isPresent(TIME_BUDGET)
+		? System.nanoTime() + (CONFIG.get(TIME_BUDGET) * 1000000) : 0;
+    }
+
+    /**
+     * Returns <code>true</code> if a time budget is specified and it has been
+     * spent.
+     * 
+     * @param end
+     *            the end of the time budget, as given by {@link #end()}.
+     * 
+     * @return <code>true</code> if the time budget has been spent;
+     *         <code>false</code> otherwise.
+     */
+    private static boolean expired(long end) {
+	return CONFIG.isPresent(TIME_BUDGET) && (System.nanoTime() - end) >= 0;
+    }
+
+    /**
+     * Returns the deadline for the creation of the next rule. The remaining
+     * time budget is divided by the estimated number of rules still to be
+     * created, based on the average number of instances covered by each of
+     * the rules created so far; the first rule receives half of the budget.
+     * 
+     * @param end
+     *            the end of the time budget, as given by
+     *            {@link System#nanoTime()}.
+     * @param covered
+     *            the number of instances covered by the rules created so far.
+     * @param rules
+     *            the number of rules created so far.
+     * @param remaining
+     *            the number of instances still to be covered.
+     * 
+     * @return the deadline for the creation of the next rule.
+     */
+    private static long deadline(long end,
+				 int covered,
+				 int rules,
+				 int remaining) {
+	long now = System.nanoTime();
+	double estimate = 2.0;
+
+	if (rules > 0) {
+	    double average = Math.max(1.0, covered / (double) rules);
+	    estimate = Math.max(1.0, Math.ceil(remaining / average));
+	}
+
+	return now + Math.max(0, (long) ((end - now) / estimate));
+    }
     
     public Model train2(Dataset dataset) {
     	final int uncovered1 = CONFIG.get(UNCOVERED);
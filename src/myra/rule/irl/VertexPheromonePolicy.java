@@ -88,4 +88,35 @@ public final class VertexPheromonePolicy implements PheromonePolicy {
 	    matrix[i][0].set(0, value / total);
 	}
     }
+
+    /**
+     * Checks if the pheromone values in the specified graph have converged to
+     * the specified rule. Since the pheromone values of the vertices are
+     * normalised, the values have converged when the vertices of the rule
+     * hold together at least {@link #CONVERGED} of the pheromone.
+     * 
+     * @param graph
+     *            the construction graph.
+     * @param rule
+     *            the rule to check.
+     * 
+     * @return <code>true</code> if the pheromone values have converged;
+     *         <code>false</code> otherwise.
+     */
+    public boolean hasConverged(Graph graph, Rule rule) {
+	Term[] terms = rule.terms();
+
+	if (terms.length == 0) {
+	    return false;
+	}
+
+	Entry[][] matrix = graph.matrix();
+	double total = 0.0;
+
+	for (int i = 0; i < terms.length; i++) {
+	    total += matrix[terms[i].index()][0].value(0);
+	}
+
+	return total >= CONVERGED;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,465 @@
+/*
+ * WarmStart.java
+ * (this file is part of MYRA)
+ * 
+ * Copyright 2008-2015 Fernando Esteban Barril Otero
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package myra.rule.irl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+
+import myra.Config.ConfigKey;
+import myra.rule.Graph;
+import myra.rule.Graph.Entry;
+import myra.rule.Rule;
+
+/**
+ * This class carries the state of the colony from one training to the next
+ * one (e.g., from the training to the incremental dataset). At the end of the
+ * search for each rule, the pheromone matrix and the heuristic values are
+ * recorded; the search for the same rule position in the next training starts
+ * from the recorded state, decayed toward its uniform initialisation:
+ * 
+ * <pre>
+ * value = (1 - decay) * recorded + decay * initial
+ * </pre>
+ * 
+ * A decay of <code>0</code> reuses the recorded state as it is, while a decay
+ * of <code>1</code> is equivalent to a cold start. Unless it is a cold start,
+ * the best rule recorded for the same position is also used as the initial
+ * best-so-far rule of the search, once evaluated on the current data.
+ * 
+ * @author Fernando Esteban Barril Otero
+ */
+public class WarmStart {
+    /**
+     * The config key for the decay toward the uniform initialisation.
+     */
+    public final static ConfigKey<Double> DECAY = new ConfigKey<>();
+
+    /**
+     * The decay toward the uniform initialisation.
+     */
+    private final double decay;
+
+    /**
+     * The states recorded by the previous training.
+     */
+    private ArrayList<State> previous = new ArrayList<>();
+
+    /**
+     * The states recorded by the current training.
+     */
+    private ArrayList<State> current = new ArrayList<>();
+
+    /**
+     * Creates a new <code>WarmStart</code>.
+     * 
+     * @param decay
+     *            the decay toward the uniform initialisation.
+     */
+    public WarmStart(double decay) {
+	if (decay < 0 || decay > 1) {
+	    throw new IllegalArgumentException("Invalid decay value: " + decay
+		    + " (expected a value between 0 and 1)");
+	}
+
+	this.decay = decay;
+    }
+
+    /**
+     * Returns a new <code>WarmStart</code> with the same recorded states and
+     * the specified decay.
+     * 
+     * @param decay
+     *            the decay toward the uniform initialisation.
+     * 
+     * @return a new <code>WarmStart</code> with the specified decay.
+     */
+    public WarmStart withDecay(double decay) {
+	WarmStart warmStart = new WarmStart(decay);
+	warmStart.previous = previous;
+	warmStart.current = current;
+	return warmStart;
+    }
+
+    /**
+     * Starts a new training. The states recorded by the current training
+     * become the starting states of the new training.
+     */
+    public void begin() {
+	previous = current;
+	current = new ArrayList<>();
+    }
+
+    /**
+     * Restores the state recorded for the specified rule position into the
+     * (already initialised) graph and heuristic values. Nothing happens if
+     * there is no compatible recorded state.
+     * 
+     * @param rule
+     *            the rule position.
+     * @param graph
+     *            the construction graph.
+     * @param heuristic
+     *            the heuristic values.
+     */
+    void restore(int rule, Graph graph, Entry[] heuristic) {
+	// a decay of 1 is a cold start: the states are only recorded
+	if (decay == 1 || rule >= previous.size()) {
+	    return;
+	}
+
+	State state = previous.get(rule);
+	Entry[][] matrix = graph.matrix();
+
+	if (!state.isCompatible(graph)
+		|| state.heuristic.length != heuristic.length) {
+	    return;
+	}
+
+	for (int i = 0; i < matrix.length; i++) {
+	    for (int j = 0; j < matrix[i].length; j++) {
+		blend(matrix[i][j], state.matrix[i][j]);
+	    }
+	}
+
+	for (int i = 0; i < heuristic.length; i++) {
+	    blend(heuristic[i], state.heuristic[i]);
+	}
+    }
+
+    /**
+     * Returns a copy of the best rule recorded for the specified rule
+     * position, or <code>null</code> if there is no compatible recorded rule
+     * or it is a cold start. The copy is read from the serialised rule, so
+     * its terms refer to the vertices of the construction graph and its
+     * quality must be evaluated again on the current data.
+     * 
+     * @param rule
+     *            the rule position.
+     * @param graph
+     *            the construction graph.
+     * 
+     * @return a copy of the best rule recorded for the specified rule
+     *         position; <code>null</code> if there is none.
+     */
+    Rule rule(int rule, Graph graph) {
+	if (decay == 1 || rule >= previous.size()) {
+	    return null;
+	}
+
+	State state = previous.get(rule);
+
+	if (state.rule == null || !state.isCompatible(graph)) {
+	    return null;
+	}
+
+	try {
+	    return Rule.read(new DataInputStream(new ByteArrayInputStream(
+		    state.rule)));
+	} catch (IOException e) {
+	    throw new RuntimeException(e);
+	}
+    }
+
+    /**
+     * Records the state at the end of the search for a rule.
+     * 
+     * @param graph
+     *            the construction graph.
+     * @param heuristic
+     *            the heuristic values.
+     * @param best
+     *            the best rule found by the search, or <code>null</code>.
+     */
+    void record(Graph graph, Entry[] heuristic, Rule best) {
+	Entry[][] matrix = graph.matrix();
+	State state = new State();
+	state.matrix = new Entry[matrix.length][];
+
+	for (int i = 0; i < matrix.length; i++) {
+	    state.matrix[i] = copy(matrix[i]);
+	}
+
+	state.heuristic = copy(heuristic);
+
+	if (best != null) {
+	    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+	    try (DataOutputStream out = new DataOutputStream(bytes)) {
+		best.write(out);
+	    } catch (IOException e) {
+		throw new RuntimeException(e);
+	    }
+
+	    state.rule = bytes.toByteArray();
+	}
+
+	current.add(state);
+    }
+
+    /**
+     * Writes the states recorded by the current training to the specified
+     * output. The warm start can be recreated using {@link #read(DataInput)}.
+     * 
+     * @param out
+     *            the output to write to.
+     * 
+     * @throws IOException
+     *             if an I/O error occurs.
+     */
+    public void write(DataOutput out) throws IOException {
+	out.writeDouble(decay);
+	out.writeInt(current.size());
+
+	for (State state : current) {
+	    out.writeInt(state.matrix.length);
+
+	    for (Entry[] row : state.matrix) {
+		write(out, row);
+	    }
+
+	    write(out, state.heuristic);
+	    out.writeBoolean(state.rule != null);
+
+	    if (state.rule != null) {
+		out.writeInt(state.rule.length);
+		out.write(state.rule);
+	    }
+	}
+    }
+
+    /**
+     * Reads a warm start written by {@link #write(DataOutput)}. The states
+     * read are used as the starting states of the next training.
+     * 
+     * @param in
+     *            the input to read from.
+     * 
+     * @return the warm start read.
+     * 
+     * @throws IOException
+     *             if an I/O error occurs.
+     */
+    public static WarmStart read(DataInput in) throws IOException {
+	WarmStart warmStart = new WarmStart(in.readDouble());
+	int size = in.readInt();
+
+	for (int i = 0; i < size; i++) {
+	    State state = new State();
+	    state.matrix = new Entry[in.readInt()][];
+
+	    for (int j = 0; j < state.matrix.length; j++) {
+		state.matrix[j] = readEntries(in);
+	    }
+
+	    state.heuristic = readEntries(in);
+
+	    if (in.readBoolean()) {
+		state.rule = new byte[in.readInt()];
+		in.readFully(state.rule);
+	    }
+
+	    warmStart.current.add(state);
+	}
+
+	return warmStart;
+    }
+
+    /**
+     * Writes an array of entries, which can contain <code>null</code>
+     * entries.
+     * 
+     * @param out
+     *            the output to write to.
+     * @param array
+     *            the entries to write.
+     * 
+     * @throws IOException
+     *             if an I/O error occurs.
+     */
+    static void write(DataOutput out, Entry[] array)
+	    throws IOException {
+	out.writeInt(array.length);
+
+	for (Entry entry : array) {
+	    write(out, entry);
+	}
+    }
+
+    /**
+     * Writes an entry, which can be <code>null</code>.
+     * 
+     * @param out
+     *            the output to write to.
+     * @param entry
+     *            the entry to write.
+     * 
+     * @throws IOException
+     *             if an I/O error occurs.
+     */
+    static void write(DataOutput out, Entry entry) throws IOException {
+	out.writeInt(entry == null ? -1 : entry.size());
+
+	if (entry != null) {
+	    out.writeDouble(entry.initial());
+
+	    for (int k = 0; k < entry.size(); k++) {
+		out.writeDouble(entry.value(k));
+	    }
+	}
+    }
+
+    /**
+     * Reads an array of entries written by
+     * {@link #write(DataOutput, Entry[])}.
+     * 
+     * @param in
+     *            the input to read from.
+     * 
+     * @return the entries read.
+     * 
+     * @throws IOException
+     *             if an I/O error occurs.
+     */
+    static Entry[] readEntries(DataInput in) throws IOException {
+	Entry[] array = new Entry[in.readInt()];
+
+	for (int i = 0; i < array.length; i++) {
+	    array[i] = readEntry(in);
+	}
+
+	return array;
+    }
+
+    /**
+     * Reads an entry written by {@link #write(DataOutput, Entry)}.
+     * 
+     * @param in
+     *            the input to read from.
+     * 
+     * @return the entry read, which can be <code>null</code>.
+     * 
+     * @throws IOException
+     *             if an I/O error occurs.
+     */
+    static Entry readEntry(DataInput in) throws IOException {
+	int size = in.readInt();
+
+	if (size == -1) {
+	    return null;
+	}
+
+	double initial = in.readDouble();
+	double[] values = new double[size];
+
+	for (int k = 0; k < size; k++) {
+	    values[k] = in.readDouble();
+	}
+
+	return new Entry(initial, values);
+    }
+
+    /**
+     * Returns a deep copy of the specified array, which can contain
+     * <code>null</code> entries.
+     * 
+     * @param array
+     *            the array to copy.
+     * 
+     * @return a deep copy of the specified array.
+     */
+    static Entry[] copy(Entry[] array) {
+	Entry[] copy = new Entry[array.length];
+
+	for (int i = 0; i < array.length; i++) {
+	    if (array[i] != null) {
+		copy[i] = array[i].clone();
+	    }
+	}
+
+	return copy;
+    }
+
+    /**
+     * Moves the values of the target entry toward the values of the recorded
+     * entry. Undefined (<code>NaN</code>) values are left unchanged.
+     * 
+     * @param target
+     *            the entry to update.
+     * @param recorded
+     *            the recorded entry.
+     */
+    private void blend(Entry target, Entry recorded) {
+	if (target == null || recorded == null) {
+	    return;
+	}
+
+	int levels = Math.max(target.size(), recorded.size());
+
+	for (int k = 0; k < levels; k++) {
+	    double value = target.value(k);
+	    double other = recorded.value(k);
+
+	    if (!Double.isNaN(value) && !Double.isNaN(other)) {
+		target.set(k, ((1 - decay) * other) + (decay * value));
+	    }
+	}
+    }
+
+    /**
+     * Struct-like class to hold the recorded state of a rule search.
+     */
+    private static final class State {
+	/**
+	 * The pheromone matrix.
+	 */
+	Entry[][] matrix;
+
+	/**
+	 * The heuristic values.
+	 */
+	Entry[] heuristic;
+
+	/**
+	 * The best rule, as written by {@link Rule#write(DataOutput)}, or
+	 * <code>null</code>.
+	 */
+	byte[] rule;
+
+	/**
+	 * Returns <code>true</code> if the state was recorded for a graph of
+	 * the same size as the specified graph.
+	 * 
+	 * @param graph
+	 *            the construction graph.
+	 * 
+	 * @return <code>true</code> if the state is compatible with the
+	 *         specified graph; <code>false</code> otherwise.
+	 */
+	boolean isCompatible(Graph graph) {
+	    return matrix.length == graph.matrix().length;
+	}
+    }
+}
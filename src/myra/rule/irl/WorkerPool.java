@@ -0,0 +1,467 @@
+/*
+ * WorkerPool.java
+ * (this file is part of MYRA)
+ * 
+ * Copyright 2008-2015 Fernando Esteban Barril Otero
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package myra.rule.irl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import myra.Config.ConfigKey;
+import myra.datamining.Algorithm;
+import myra.datamining.Dataset;
+import myra.datamining.Dataset.Instance;
+import myra.datamining.Snapshot;
+import myra.rule.Graph;
+import myra.rule.Graph.Entry;
+import myra.rule.Rule;
+import myra.util.RandomStreams;
+
+/**
+ * Pool of local worker processes that create ant solutions on behalf of a
+ * coordinator. Each worker is a JVM started with the same algorithm and
+ * command-line options as the coordinator. The dataset is passed to the
+ * workers through a {@link Snapshot} file, which each worker maps read-only
+ * without copying the values to its heap, and requests and candidate rules
+ * are exchanged over the standard input and output of the workers. Pheromone
+ * updates are performed by the coordinator only; each request to create ants
+ * carries the pheromone entries changed since the previous request,
+ * serialised once and written to all workers.
+ * 
+ * <p>
+ * Each ant uses a random stream seeded by the coordinator, so the rules
+ * created do not depend on the number of workers.
+ * </p>
+ * 
+ * @see ProcessScheduler
+ * 
+ * @author Fernando Esteban Barril Otero
+ */
+public class WorkerPool implements Closeable {
+    /**
+     * The config key for the number of worker processes.
+     */
+    public final static ConfigKey<Integer> PROCESSES = new ConfigKey<>();
+
+    /**
+     * The config key for the worker pool of the current training.
+     */
+    public final static ConfigKey<WorkerPool> WORKERS = new ConfigKey<>();
+
+    /**
+     * Request to load a dataset snapshot.
+     */
+    private static final int LOAD = 1;
+
+    /**
+     * Request to start the search for a new rule.
+     */
+    private static final int RULE = 2;
+
+    /**
+     * Request to create a batch of ants.
+     */
+    private static final int CREATE = 3;
+
+    /**
+     * The worker processes.
+     */
+    private final Process[] processes;
+
+    /**
+     * The request stream of each worker.
+     */
+    private final DataOutputStream[] requests;
+
+    /**
+     * The response stream of each worker.
+     */
+    private final DataInputStream[] responses;
+
+    /**
+     * The dataset loaded by the workers.
+     */
+    private Dataset loaded;
+
+    /**
+     * The snapshot file of the dataset loaded by the workers.
+     */
+    private File snapshot;
+
+    /**
+     * The pheromone matrix last sent to the workers, or <code>null</code> if
+     * no matrix was sent since the start of the search for the current rule.
+     */
+    private Entry[][] sent;
+
+    /**
+     * Creates a new <code>WorkerPool</code>, starting the worker processes.
+     * 
+     * @param algorithm
+     *            the class of the algorithm.
+     * @param args
+     *            the command-line options of the algorithm.
+     * @param size
+     *            the number of worker processes.
+     * 
+     * @throws IOException
+     *             if a worker process cannot be started.
+     */
+    public WorkerPool(Class<? extends Algorithm> algorithm,
+		      String[] args,
+		      int size) throws IOException {
+	if (size < 1) {
+	    throw new IllegalArgumentException("Invalid number of processes: "
+		    + size);
+	}
+
+	processes = new Process[size];
+	requests = new DataOutputStream[size];
+	responses = new DataInputStream[size];
+
+	List<String> command = new ArrayList<>();
+	command.add(new File(System.getProperty("java.home"), "bin/java")
+		.getPath());
+	command.add("-cp");
+	command.add(System.getProperty("java.class.path"));
+	command.add(WorkerPool.class.getName());
+	command.add(algorithm.getName());
+	command.addAll(Arrays.asList(args));
+
+	for (int i = 0; i < size; i++) {
+	    processes[i] = new ProcessBuilder(command)
+		    .redirectError(ProcessBuilder.Redirect.INHERIT).start();
+	    requests[i] = new DataOutputStream(
+		    new BufferedOutputStream(processes[i].getOutputStream()));
+	    responses[i] = new DataInputStream(
+		    new BufferedInputStream(processes[i].getInputStream()));
+	}
+    }
+
+    /**
+     * Returns the number of worker processes.
+     * 
+     * @return the number of worker processes.
+     */
+    public int size() {
+	return processes.length;
+    }
+
+    /**
+     * Loads the specified dataset in the workers. The dataset is written to a
+     * temporary snapshot file, which each worker maps. Nothing happens if
+     * the dataset is already loaded.
+     * 
+     * @param dataset
+     *            the dataset to load.
+     * 
+     * @throws IOException
+     *             if an I/O error occurs.
+     */
+    public void load(Dataset dataset) throws IOException {
+	if (dataset == loaded) {
+	    return;
+	}
+
+	File file = File.createTempFile("myra-", ".snapshot");
+	file.deleteOnExit();
+	Snapshot.write(dataset, file);
+
+	for (DataOutputStream request : requests) {
+	    request.writeInt(LOAD);
+	    request.writeUTF(file.getAbsolutePath());
+	    request.flush();
+	}
+
+	for (DataInputStream response : responses) {
+	    response.readBoolean();
+	}
+
+	if (snapshot != null) {
+	    snapshot.delete();
+	}
+
+	loaded = dataset;
+	snapshot = file;
+    }
+
+    /**
+     * Starts the search for a new rule in the workers.
+     * 
+     * @param instances
+     *            the instances to be used.
+     * @param heuristic
+     *            the heuristic values for the graph's vertices.
+     * 
+     * @throws IOException
+     *             if an I/O error occurs.
+     */
+    public void rule(Instance[] instances, Entry[] heuristic)
+	    throws IOException {
+	ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+	DataOutputStream request = new DataOutputStream(buffer);
+	request.writeInt(RULE);
+	request.writeInt(instances.length);
+
+	for (Instance instance : instances) {
+	    request.writeByte(instance.flag);
+	    request.writeDouble(instance.weight);
+	}
+
+	WarmStart.write(request, heuristic);
+	request.flush();
+
+	for (DataOutputStream worker : requests) {
+	    buffer.writeTo(worker);
+	    worker.flush();
+	}
+
+	// the next request sends the whole pheromone matrix
+	sent = null;
+    }
+
+    /**
+     * Creates one rule per seed, distributing the ants over the workers. Only
+     * the pheromone entries changed since the previous request are sent.
+     * 
+     * @param matrix
+     *            the current pheromone matrix.
+     * @param seeds
+     *            the seed of the random stream of each ant.
+     * 
+     * @return the rules created, in the order of the seeds.
+     * 
+     * @throws IOException
+     *             if an I/O error occurs.
+     */
+    public Rule[] create(Entry[][] matrix, long[] seeds) throws IOException {
+	ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+	DataOutputStream changes = new DataOutputStream(buffer);
+	int count = 0;
+
+	if (sent == null) {
+	    sent = new Entry[matrix.length][];
+
+	    for (int i = 0; i < matrix.length; i++) {
+		sent[i] = new Entry[matrix[i].length];
+	    }
+	}
+
+	for (int i = 0; i < matrix.length; i++) {
+	    for (int j = 0; j < matrix[i].length; j++) {
+		if (matrix[i][j] != null && !equals(matrix[i][j], sent[i][j])) {
+		    changes.writeInt(i);
+		    changes.writeInt(j);
+		    WarmStart.write(changes, matrix[i][j]);
+		    sent[i][j] = matrix[i][j].clone();
+		    count++;
+		}
+	    }
+	}
+
+	changes.flush();
+
+	Rule[] rules = new Rule[seeds.length];
+	int start = 0;
+	// sends all requests before reading the responses, so that the
+	// workers create their ants concurrently
+	for (int i = 0; i < requests.length; i++) {
+	    int length = (seeds.length / requests.length)
+		    + (i < (seeds.length % requests.length) ? 1 : 0);
+
+	    requests[i].writeInt(CREATE);
+	    requests[i].writeInt(count);
+	    buffer.writeTo(requests[i]);
+	    requests[i].writeInt(length);
+
+	    for (int j = start; j < (start + length); j++) {
+		requests[i].writeLong(seeds[j]);
+	    }
+
+	    requests[i].flush();
+	    start += length;
+	}
+
+	start = 0;
+
+	for (DataInputStream response : responses) {
+	    int length = response.readInt();
+
+	    for (int j = start; j < (start + length); j++) {
+		rules[j] = Rule.read(response);
+	    }
+
+	    start += length;
+	}
+
+	return rules;
+    }
+
+    /**
+     * Returns <code>true</code> if the entries hold the same values.
+     * 
+     * @param entry
+     *            the current entry.
+     * @param previous
+     *            the entry previously sent, which can be <code>null</code>.
+     * 
+     * @return <code>true</code> if the entries hold the same values;
+     *         <code>false</code> otherwise.
+     */
+    private static boolean equals(Entry entry, Entry previous) {
+	if (previous == null || entry.size() != previous.size()
+		|| Double.compare(entry.initial(), previous.initial()) != 0) {
+	    return false;
+	}
+
+	for (int k = 0; k < entry.size(); k++) {
+	    if (Double.compare(entry.value(k), previous.value(k)) != 0) {
+		return false;
+	    }
+	}
+
+	return true;
+    }
+
+    /**
+     * Terminates the workers, closing their request streams.
+     */
+    @Override
+    public void close() throws IOException {
+	for (int i = 0; i < processes.length; i++) {
+	    requests[i].close();
+
+	    try {
+		processes[i].waitFor();
+	    } catch (InterruptedException e) {
+		Thread.currentThread().interrupt();
+	    }
+	}
+
+	if (snapshot != null) {
+	    snapshot.delete();
+	}
+    }
+
+    /**
+     * Serves the requests of a coordinator until the end of the request
+     * stream. The configuration of the algorithm must be already set.
+     * 
+     * @param input
+     *            the request stream.
+     * @param output
+     *            the response stream.
+     * 
+     * @throws IOException
+     *             if an I/O error occurs.
+     */
+    public static void serve(InputStream input, OutputStream output)
+	    throws IOException {
+	DataInputStream in =
+		new DataInputStream(new BufferedInputStream(input));
+	DataOutputStream out =
+		new DataOutputStream(new BufferedOutputStream(output));
+
+	Dataset dataset = null;
+	Graph graph = null;
+	FindRuleActivity activity = null;
+
+	while (true) {
+	    int request;
+
+	    try {
+		request = in.readInt();
+	    } catch (EOFException e) {
+		// the coordinator has finished
+		break;
+	    }
+
+	    if (request == LOAD) {
+		dataset = Snapshot.map(new File(in.readUTF()));
+		graph = new Graph(dataset);
+		out.writeBoolean(true);
+	    } else if (request == RULE) {
+		Instance[] instances = new Instance[in.readInt()];
+
+		for (int i = 0; i < instances.length; i++) {
+		    byte flag = in.readByte();
+		    instances[i] = new Instance(in.readDouble(), flag);
+		}
+
+		activity = new FindRuleActivity(graph, instances, dataset);
+		activity.setHeuristic(WarmStart.readEntries(in));
+	    } else if (request == CREATE) {
+		Entry[][] matrix = graph.matrix();
+		int count = in.readInt();
+
+		for (int k = 0; k < count; k++) {
+		    int i = in.readInt();
+		    int j = in.readInt();
+		    matrix[i][j] = WarmStart.readEntry(in);
+		}
+
+		int length = in.readInt();
+		out.writeInt(length);
+
+		for (int i = 0; i < length; i++) {
+		    RandomStreams.set(new SplittableRandom(in.readLong()));
+
+		    try {
+			activity.create().write(out);
+		    } finally {
+			RandomStreams.set(null);
+		    }
+		}
+	    } else {
+		throw new IllegalStateException("Invalid worker request: "
+			+ request);
+	    }
+
+	    out.flush();
+	}
+    }
+
+    /**
+     * Entry point of a worker process.
+     * 
+     * @param args
+     *            the class of the algorithm followed by its command-line
+     *            options.
+     * 
+     * @throws Exception
+     *             if an error occurs &mdash; e.g., I/O error.
+     */
+    public static void main(String[] args) throws Exception {
+	Algorithm algorithm = (Algorithm) Class.forName(args[0])
+		.getDeclaredConstructor().newInstance();
+	algorithm.work(Arrays.copyOfRange(args, 1, args.length));
+    }
+}
@@ -74,6 +74,12 @@ public class FindRuleListActivity extends IterativeActivity<RuleList> {
      */
     private boolean reset;
 
+    /**
+     * The maximum number of stagnated iterations, resolved when the activity
+     * is created.
+     */
+    private final int stagnationLimit;
+
     /**
      * The (initial) heuristic of the dataset. This value is not modified after
      * the {@link #initialise()} method.
@@ -128,6 +134,8 @@ public class FindRuleListActivity extends IterativeActivity<RuleList> {
 	this.dataset = dataset;
 	this.factory = factory;
 	this.policy = policy;
+
+	stagnationLimit = CONFIG.get(STAGNATION);
     }
 
     @Override
@@ -214,7 +222,9 @@ public class FindRuleListActivity extends IterativeActivity<RuleList> {
 
     @Override
     public boolean terminate() {
-	if (stagnation > CONFIG.get(STAGNATION)) {
+	if (stagnation > stagnationLimit
+		|| (convergence && globalBest != null
+			&& policy.hasConverged(graph, globalBest))) {
 	    if (reset) {
 		policy.initialise(graph);
 		stagnation = 0;
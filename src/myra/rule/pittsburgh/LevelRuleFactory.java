@@ -20,7 +20,6 @@
 package myra.rule.pittsburgh;
 
 import static myra.Config.CONFIG;
-import static myra.datamining.Algorithm.RANDOM_GENERATOR;
 import static myra.rule.Graph.START_INDEX;
 import static myra.rule.Heuristic.DEFAULT_HEURISTIC;
 import static myra.rule.Heuristic.DYNAMIC_HEURISTIC;
@@ -33,6 +32,7 @@ import myra.rule.Graph.Entry;
 import myra.rule.Graph.Vertex;
 import myra.rule.Rule;
 import myra.rule.Rule.Term;
+import myra.util.RandomStreams;
 
 /**
  * This class is responsible for creating classification rules respecting the
@@ -65,6 +65,7 @@ public class LevelRuleFactory {
 		       Instance[] instances) {
 	// the rule must cover at least MINIMUM_CASES
 	final int minimum = CONFIG.get(IntervalBuilder.MINIMUM_CASES);
+	final boolean dynamic = CONFIG.get(DYNAMIC_HEURISTIC);
 	Term last = null;
 
 	// the rule being created (empty at the start)
@@ -138,7 +139,7 @@ public class LevelRuleFactory {
 		}
 
 		// roulette selection
-		double slot = CONFIG.get(RANDOM_GENERATOR).nextDouble();
+		double slot = RandomStreams.current().nextDouble();
 
 		for (int i = 0; i < pheromone.length; i++) {
 		    if (slot < pheromone[i]) {
@@ -191,7 +192,7 @@ public class LevelRuleFactory {
 
 			// recompute the heuristic information if we are
 			// using the dynamic heuristic
-			if (CONFIG.get(DYNAMIC_HEURISTIC)) {
+			if (dynamic) {
 			    heuristic = CONFIG.get(DEFAULT_HEURISTIC)
 				    .compute(graph,
 					     dataset,
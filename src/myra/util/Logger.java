@@ -21,8 +21,12 @@ package myra.util;
 
 import java.io.PrintStream;
 
+import myra.RunContext;
+
 /**
  * The <code>Logger</code> class provides an utility method to log messages.
+ * Messages are written to the destination of the {@link RunContext} bound to
+ * the current thread, if any; otherwise to the logger destination.
  * 
  * @author Fernando Esteban Barril Otero
  */
@@ -43,14 +47,24 @@ public class Logger {
     }
 
     public static void log(String message, Object... args) {
-	destination.print(String.format(message, args));
+	destination().print(String.format(message, args));
     }
 
     public static void flush() {
-	destination.flush();
+	destination().flush();
     }
 
     public static void close() {
-	destination.close();
+	destination().close();
+    }
+
+    /**
+     * Returns the destination of the current thread.
+     * 
+     * @return the destination of the current thread.
+     */
+    private static PrintStream destination() {
+	RunContext context = RunContext.current();
+	return context == null ? destination : context.log();
     }
 }
\ No newline at end of file
@@ -0,0 +1,76 @@
+/*
+ * RandomStreams.java
+ * (this file is part of MYRA)
+ * 
+ * Copyright 2008-2015 Fernando Esteban Barril Otero
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package myra.util;
+
+import static myra.Config.CONFIG;
+import static myra.datamining.Algorithm.RANDOM_GENERATOR;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * The <code>RandomStreams</code> class provides the random number generator
+ * of the current thread. Schedulers assign to the thread creating an ant the
+ * stream of that ant, derived from the run seed and the ant's position in the
+ * colony; outside ant creation, the shared generator of the configuration is
+ * used.
+ * 
+ * @author Fernando Esteban Barril Otero
+ */
+public final class RandomStreams {
+    /**
+     * The random stream of each thread.
+     */
+    private static final ThreadLocal<RandomGenerator> CURRENT =
+	    new ThreadLocal<>();
+
+    /**
+     * No instances allowed.
+     */
+    private RandomStreams() {
+    }
+
+    /**
+     * Returns the random number generator of the current thread.
+     * 
+     * @return the random stream of the current thread, if one is set;
+     *         otherwise the generator of the
+     *         {@link myra.datamining.Algorithm#RANDOM_GENERATOR}
+     *         configuration.
+     */
+    public static RandomGenerator current() {
+	RandomGenerator stream = CURRENT.get();
+	return stream == null ? CONFIG.get(RANDOM_GENERATOR) : stream;
+    }
+
+    /**
+     * Sets the random stream of the current thread.
+     * 
+     * @param stream
+     *            the random stream; <code>null</code> restores the generator
+     *            of the configuration.
+     */
+    public static void set(RandomGenerator stream) {
+	if (stream == null) {
+	    CURRENT.remove();
+	} else {
+	    CURRENT.set(stream);
+	}
+    }
+}